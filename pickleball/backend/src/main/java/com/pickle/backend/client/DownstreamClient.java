@@ -0,0 +1,191 @@
+package com.pickle.backend.client;
+
+import com.pickle.backend.exception.DownstreamUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client cho một dịch vụ AI phía sau: RestTemplate dùng pool kết nối riêng, bulkhead
+ * giới hạn số lời gọi đồng thời, circuit breaker và retry có backoff cho lời gọi
+ * idempotent. Thời gian mỗi lần gọi được ghi vào timer "ai.client.requests" (có
+ * histogram) theo downstream, endpoint và kết quả.
+ */
+public class DownstreamClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownstreamClient.class);
+
+    @FunctionalInterface
+    public interface Call<T> {
+        T execute(RestTemplate restTemplate);
+    }
+
+    // Endpoint của lời gọi đang chạy trên luồng này, để request factory chọn timeout đọc
+    private static final ThreadLocal<String> currentEndpoint = new ThreadLocal<>();
+
+    private final String name;
+    private final RestTemplate restTemplate;
+    private final DownstreamProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public DownstreamClient(String name, RestTemplate restTemplate, DownstreamProperties properties,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.restTemplate = restTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(properties.getMaxConcurrentCalls(), true);
+        this.circuitBreaker = new CircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration());
+
+        Gauge.builder("ai.client.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("downstream", name)
+                .register(meterRegistry);
+        Gauge.builder("ai.client.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("0 = closed, 1 = half-open, 2 = open")
+                .tag("downstream", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gọi dịch vụ qua bulkhead và circuit breaker. Lời gọi idempotent được thử lại
+     * khi lỗi kết nối/timeout hoặc lỗi 5xx, với backoff tăng dần có jitter.
+     *
+     * @param endpoint tên endpoint dùng cho metric (vd "analyze")
+     */
+    public <T> T execute(String endpoint, boolean idempotent, Call<T> call) {
+        int maxAttempts = idempotent ? Math.max(1, properties.getMaxAttempts()) : 1;
+        acquirePermit(endpoint);
+        try {
+            for (int attempt = 1;; attempt++) {
+                if (!circuitBreaker.tryAcquire()) {
+                    reject(endpoint, "circuit_open");
+                    throw new DownstreamUnavailableException(
+                            "Dịch vụ " + name + " tạm thời không khả dụng, vui lòng thử lại sau");
+                }
+                try {
+                    T result = timed(endpoint, call);
+                    circuitBreaker.onSuccess();
+                    return result;
+                } catch (RestClientException e) {
+                    boolean serviceFailure = isServiceFailure(e);
+                    if (serviceFailure) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onIgnored();
+                    }
+                    if (!serviceFailure || attempt >= maxAttempts) {
+                        throw e;
+                    }
+                    long backoffMillis = backoffMillis(attempt);
+                    logger.warn("Call to {} {} failed (attempt {}/{}), retrying in {} ms: {}",
+                            name, endpoint, attempt, maxAttempts, backoffMillis, e.getMessage());
+                    meterRegistry.counter("ai.client.retries", "downstream", name, "endpoint", endpoint).increment();
+                    sleep(backoffMillis);
+                } catch (RuntimeException e) {
+                    circuitBreaker.onIgnored();
+                    throw e;
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Tên endpoint (tham số endpoint của execute) của lời gọi đang chạy trên luồng
+     * hiện tại, null nếu không ở trong execute.
+     */
+    public static String currentEndpoint() {
+        return currentEndpoint.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private void acquirePermit(String endpoint) {
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(properties.getMaxWaitForPermit().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            reject(endpoint, "bulkhead_full");
+            throw new DownstreamUnavailableException("Dịch vụ " + name + " đang quá tải, vui lòng thử lại sau");
+        }
+    }
+
+    private <T> T timed(String endpoint, Call<T> call) {
+        long start = System.nanoTime();
+        String outcome = "success";
+        currentEndpoint.set(endpoint);
+        try {
+            return call.execute(restTemplate);
+        } catch (HttpStatusCodeException e) {
+            outcome = e.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+            throw e;
+        } catch (RuntimeException e) {
+            outcome = e instanceof ResourceAccessException ? "io_error" : "error";
+            throw e;
+        } finally {
+            currentEndpoint.remove();
+            Timer.builder("ai.client.requests")
+                    .tag("downstream", name)
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Lỗi kết nối/timeout và 5xx tính là dịch vụ lỗi; 4xx là lỗi của request
+    private static boolean isServiceFailure(RestClientException e) {
+        return e instanceof ResourceAccessException || e instanceof HttpServerErrorException;
+    }
+
+    private long backoffMillis(int attempt) {
+        long base = properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 16);
+        long capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        // Chờ ngẫu nhiên trong [capped/2, capped] để các client không retry cùng lúc
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DownstreamUnavailableException("Bị gián đoạn khi chờ gọi lại dịch vụ " + name);
+        }
+    }
+
+    private void reject(String endpoint, String reason) {
+        Counter.builder("ai.client.rejected")
+                .tag("downstream", name)
+                .tag("endpoint", endpoint)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+}
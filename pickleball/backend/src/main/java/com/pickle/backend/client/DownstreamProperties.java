@@ -0,0 +1,41 @@
+package com.pickle.backend.client;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình cho một dịch vụ phía sau (pool kết nối, timeout, bulkhead, retry và
+ * circuit breaker). Mỗi dịch vụ có bộ cấu hình riêng để dịch vụ này chậm không
+ * làm nghẽn dịch vụ kia.
+ */
+@Data
+public class DownstreamProperties {
+
+    private int maxConnections = 20;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    private Duration readTimeout = Duration.ofSeconds(30);
+
+    // Timeout đọc riêng theo endpoint, khóa là tên endpoint truyền cho DownstreamClient.execute
+    // (vd "analyze", "status", "generate-quiz")
+    private Map<String, Duration> readTimeouts = new HashMap<>();
+
+    // Bulkhead: số lời gọi đồng thời tối đa và thời gian chờ lấy lượt
+    private int maxConcurrentCalls = 10;
+    private Duration maxWaitForPermit = Duration.ofMillis(200);
+
+    // Retry chỉ áp dụng cho lời gọi idempotent
+    private int maxAttempts = 3;
+    private Duration initialBackoff = Duration.ofMillis(200);
+    private Duration maxBackoff = Duration.ofSeconds(2);
+
+    // Circuit breaker: mở sau số lỗi liên tiếp, thử lại sau openDuration
+    private int failureThreshold = 5;
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    public Duration readTimeoutFor(String endpoint) {
+        return readTimeouts.getOrDefault(endpoint, readTimeout);
+    }
+}
@@ -0,0 +1,84 @@
+package com.pickle.backend.config;
+
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.client.DownstreamProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.Data;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Mỗi dịch vụ Python (vision phân tích video, quiz sinh câu hỏi) có một
+ * DownstreamClient với pool kết nối, bulkhead và circuit breaker riêng.
+ */
+@Configuration
+@EnableConfigurationProperties(AiClientConfig.AiClientProperties.class)
+public class AiClientConfig {
+
+    @Data
+    @ConfigurationProperties(prefix = "ai.clients")
+    public static class AiClientProperties {
+        private DownstreamProperties vision = new DownstreamProperties();
+        private DownstreamProperties quiz = new DownstreamProperties();
+    }
+
+    @Bean(name = "visionClient")
+    public DownstreamClient visionClient(AiClientProperties properties, MeterRegistry meterRegistry) {
+        return createClient("vision", properties.getVision(), meterRegistry);
+    }
+
+    @Bean(name = "quizClient")
+    public DownstreamClient quizClient(AiClientProperties properties, MeterRegistry meterRegistry) {
+        return createClient("quiz", properties.getQuiz(), meterRegistry);
+    }
+
+    private DownstreamClient createClient(String name, DownstreamProperties properties,
+            MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                        .setTimeToLive(TimeValue.ofMinutes(5))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "ai-" + name)
+                .bindTo(meterRegistry);
+
+        // Retry do DownstreamClient quyết định (chỉ với lời gọi idempotent)
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableAutomaticRetries()
+                .evictIdleConnections(TimeValue.ofSeconds(30))
+                .build();
+
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(
+                httpClient);
+        // Timeout đọc theo tên endpoint mà DownstreamClient.execute đang gọi (vd "status"),
+        // không theo path vì path có thể chứa tham số như /status/{jobId}
+        requestFactory.setHttpContextFactory((method, uri) -> {
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(RequestConfig.custom()
+                    .setConnectionRequestTimeout(Timeout.of(properties.getMaxWaitForPermit()))
+                    .setResponseTimeout(Timeout.of(properties.readTimeoutFor(DownstreamClient.currentEndpoint())))
+                    .build());
+            return context;
+        });
+
+        return new DownstreamClient(name, new RestTemplate(requestFactory), properties, meterRegistry);
+    }
+}
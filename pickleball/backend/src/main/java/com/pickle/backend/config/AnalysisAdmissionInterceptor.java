@@ -0,0 +1,67 @@
+package com.pickle.backend.config;
+
+import com.pickle.backend.service.AnalysisAdmissionQueue;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+
+/**
+ * Xếp hàng các request upload video phân tích qua AnalysisAdmissionQueue trước khi
+ * đọc body. Cần spring.servlet.multipart.resolve-lazily=true để file chỉ được nhận
+ * sau khi request tới lượt.
+ */
+public class AnalysisAdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = AnalysisAdmissionInterceptor.class.getName() + ".permit";
+
+    private final AnalysisAdmissionQueue admissionQueue;
+
+    public AnalysisAdmissionInterceptor(AnalysisAdmissionQueue admissionQueue) {
+        this.admissionQueue = admissionQueue;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, admissionQueue.acquire(userKey(request)));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AnalysisAdmissionQueue.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.close();
+        }
+    }
+
+    /**
+     * Khóa công bằng của request: người dùng đã đăng nhập luôn theo principal, để
+     * không thể đổi userId trên query string mà lách giới hạn mỗi người. Chỉ request
+     * ẩn danh mới dùng userId (hoặc IP).
+     */
+    static String userKey(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            return "principal:" + principal.getName();
+        }
+        // Chỉ đọc userId từ query string: getParameter() sẽ khiến container đọc cả body multipart
+        String query = request.getQueryString();
+        if (query != null) {
+            String userId = UriComponentsBuilder.newInstance().query(query).build()
+                    .getQueryParams().getFirst("userId");
+            if (userId != null && !userId.isBlank()) {
+                return "user:" + UriUtils.decode(userId, StandardCharsets.UTF_8);
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,62 @@
+package com.pickle.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Pool giới hạn cho các job phân tích video. Kích thước pool nên nhỏ hơn
+     * Hikari pool để các endpoint khác vẫn còn kết nối DB.
+     */
+    @Bean(name = "analysisExecutor")
+    public ThreadPoolTaskExecutor analysisExecutor(
+            @Value("${analysis.jobs.pool-size:4}") int poolSize,
+            @Value("${analysis.jobs.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("analysis-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool nhỏ để sinh lại quiz ở nền khi cache trả bản cũ (stale-while-revalidate).
+     * Hàng đợi đầy thì bỏ qua lần làm mới, không chặn request.
+     */
+    @Bean(name = "quizRefreshExecutor")
+    public ThreadPoolTaskExecutor quizRefreshExecutor(
+            @Value("${quiz.cache.refresh.pool-size:2}") int poolSize,
+            @Value("${quiz.cache.refresh.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("quiz-refresh-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Một luồng cho các việc bảo trì lúc khởi động (backfill dữ liệu cũ), để không
+     * giữ luồng khởi động và không chiếm pool phân tích.
+     */
+    @Bean(name = "maintenanceExecutor")
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.initialize();
+        return executor;
+    }
+}
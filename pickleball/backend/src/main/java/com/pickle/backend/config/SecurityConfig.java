@@ -49,7 +49,8 @@ public class SecurityConfig {
                                                 // tất cả OPTIONS
                                                 .requestMatchers(org.springframework.http.HttpMethod.OPTIONS, "/**")
                                                 .permitAll()
-                                                .requestMatchers("/api/ai/full-analysis").permitAll()
+                                                .requestMatchers("/api/ai/full-analysis", "/api/ai/full-analysis/jobs/**")
+                                                .permitAll()
                                                 .requestMatchers("/images/**", "/uploads/**", "/static/**").permitAll()
                                                 .requestMatchers("/api/users/register", "/api/users/login",
                                                                 "/api/users/forgot-password", "/api/users/verify-otp",
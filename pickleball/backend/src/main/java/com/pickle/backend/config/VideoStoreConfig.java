@@ -0,0 +1,63 @@
+package com.pickle.backend.config;
+
+import com.pickle.backend.storage.LocalVideoStore;
+import com.pickle.backend.storage.S3VideoStore;
+import com.pickle.backend.storage.TempVideoArea;
+import com.pickle.backend.storage.VideoStore;
+import com.pickle.backend.storage.VideoStoreProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+import java.net.URI;
+import java.nio.file.Path;
+
+/**
+ * Chọn kho video theo video.store.type: "local" (mặc định) hoặc "s3".
+ */
+@Configuration
+public class VideoStoreConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "video.store")
+    public VideoStoreProperties videoStoreProperties() {
+        return new VideoStoreProperties();
+    }
+
+    @Bean
+    public VideoStore videoStore(VideoStoreProperties properties) {
+        TempVideoArea tempArea = new TempVideoArea(Path.of(properties.getTempDir()), properties.getTempMaxAge());
+        if ("s3".equalsIgnoreCase(properties.getType())) {
+            VideoStoreProperties.S3 s3 = properties.getS3();
+            if (s3.getBucket() == null || s3.getBucket().isBlank()) {
+                throw new IllegalStateException("video.store.s3.bucket is required when video.store.type=s3");
+            }
+            return new S3VideoStore(s3Client(s3), s3.getBucket(), s3.getPrefix(), tempArea);
+        }
+        VideoStoreProperties.Local local = properties.getLocal();
+        return new LocalVideoStore(Path.of(local.getRoot()), local.getVideosDir(), tempArea,
+                local.getMaxSize().toBytes(), local.getRetention());
+    }
+
+    static S3Client s3Client(VideoStoreProperties.S3 s3) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(s3.getRegion()))
+                .forcePathStyle(s3.isPathStyleAccess());
+        if (s3.getEndpoint() != null && !s3.getEndpoint().isBlank()) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        if (s3.getAccessKey() != null && !s3.getAccessKey().isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey())));
+        } else {
+            builder.credentialsProvider(DefaultCredentialsProvider.create());
+        }
+        return builder.build();
+    }
+}
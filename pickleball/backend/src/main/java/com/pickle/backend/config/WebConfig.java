@@ -1,12 +1,27 @@
 package com.pickle.backend.config;
 
+import com.pickle.backend.service.AnalysisAdmissionQueue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    // ObjectProvider vì các test @WebMvcTest không nạp service
+    @Autowired
+    private ObjectProvider<AnalysisAdmissionQueue> analysisAdmissionQueue;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Giới hạn số upload video phân tích chạy cùng lúc
+        analysisAdmissionQueue.ifAvailable(queue -> registry.addInterceptor(new AnalysisAdmissionInterceptor(queue))
+                .addPathPatterns("/api/ai/full-analysis", "/api/ai/full-analysis/jobs"));
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // Cấu hình cho hình ảnh static
@@ -6,18 +6,20 @@ import org.slf4j.LoggerFactory;
 import com.pickle.backend.entity.curriculum.Course;
 import com.pickle.backend.entity.curriculum.LearnerProgress;
 import com.pickle.backend.entity.curriculum.Lesson;
-import com.pickle.backend.repository.curriculum.LearnerProgressRepository;
+import com.pickle.backend.service.curriculum.CatalogCache;
 import com.pickle.backend.service.curriculum.CourseService;
 import com.pickle.backend.service.curriculum.CurriculumService;
 import com.pickle.backend.service.curriculum.LessonService;
 // import com.pickle.backend.service.curriculum.ModuleService; // Bỏ import này
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID; // Vẫn cần nếu LessonDTO dùng UUID, nếu không thì bỏ
@@ -26,6 +28,7 @@ import java.util.UUID; // Vẫn cần nếu LessonDTO dùng UUID, nếu không t
 @RequestMapping("/api")
 public class CourseController {
     private static final Logger log = LoggerFactory.getLogger(CourseController.class);
+    private static final byte[] EMPTY_JSON_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
     @Autowired
     private CourseService courseService;
 
@@ -36,29 +39,28 @@ public class CourseController {
     private CurriculumService curriculumService;
 
     @Autowired
-    private LearnerProgressRepository learnerProgressRepository;
+    private CatalogCache catalogCache;
 
+    // Các trang catalog công khai trả JSON đã cache kèm ETag (xem CatalogCache)
     @GetMapping("/courses")
-    public ResponseEntity<List<Course>> getAllCourses() {
-        List<Course> courses = courseService.getAllCourses();
-        return ResponseEntity.ok(courses);
+    public ResponseEntity<byte[]> getAllCourses() {
+        return catalogView(catalogCache.get("courses", courseService::getAllCourses));
     }
 
     @GetMapping("/featured-courses")
-    public ResponseEntity<List<Course>> getFeaturedCourses() {
+    public ResponseEntity<byte[]> getFeaturedCourses() {
         List<String> featuredTitles = List.of(
                 "Pickleball Cơ Bản – Làm Quen Và Làm Chủ Cơ Bản",
                 "Kỹ Thuật Nền Tảng – Cải Thiện Cú Đánh & Phản Xạ",
                 "Pickleball Trung Cấp – Chiến Thuật Và Phối Hợp Đội");
-        List<Course> courses = courseService.getCoursesByTitles(featuredTitles);
-        return ResponseEntity.ok(courses);
+        return catalogView(catalogCache.get("featured-courses",
+                () -> courseService.getCoursesByTitles(featuredTitles)));
     }
 
     @GetMapping("/courses/{id}")
-    public ResponseEntity<Course> getCourseById(@PathVariable Long id) {
-        return courseService.getCourseById(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<byte[]> getCourseById(@PathVariable Long id) {
+        return catalogView(catalogCache.get("course:" + id,
+                () -> courseService.getCourseById(id).orElse(null)));
     }
 
     @GetMapping("/lessons/{id}")
@@ -82,18 +84,19 @@ public class CourseController {
 
     @PostMapping("/learner-progress")
     public ResponseEntity<LearnerProgress> updateLearnerProgress(@RequestBody LearnerProgressDTO progressDTO) {
-        LearnerProgress progress = new LearnerProgress();
-        progress.setLearnerId(progressDTO.getLearnerId());
-        progress.setLesson(lessonService.getLessonById(progressDTO.getLessonId())
-                .orElseThrow(() -> new RuntimeException("Lesson not found")));
-        progress.setIsCompleted(progressDTO.getIsCompleted());
-        progress.setWatchedDurationSeconds(progressDTO.getWatchedDurationSeconds());
-        progress.setLastWatchedAt(LocalDateTime.now());
-
-        LearnerProgress savedProgress = learnerProgressRepository.save(progress);
+        LearnerProgress savedProgress = curriculumService.saveProgress(progressDTO.getLearnerId(),
+                progressDTO.getLessonId(), progressDTO.getIsCompleted(), progressDTO.getWatchedDurationSeconds());
         return ResponseEntity.ok(savedProgress);
     }
 
+    // Báo cáo tiến độ khi video đang phát, được ghi theo lô
+    @PostMapping("/learner-progress/heartbeat")
+    public ResponseEntity<Void> recordProgressHeartbeat(@RequestBody LearnerProgressDTO progressDTO) {
+        curriculumService.recordHeartbeat(progressDTO.getLearnerId(), progressDTO.getLessonId(),
+                progressDTO.getIsCompleted(), progressDTO.getWatchedDurationSeconds());
+        return ResponseEntity.accepted().build();
+    }
+
     // Admin endpoints
     @GetMapping("/admin/courses")
     public ResponseEntity<List<Course>> getAllCoursesAdmin() {
@@ -171,14 +174,19 @@ public class CourseController {
 
     @GetMapping("/admin/learners/{learnerId}/progress")
     public ResponseEntity<List<LearnerProgress>> getLearnerProgress(@PathVariable String learnerId) {
-        List<LearnerProgress> progress = learnerProgressRepository.findByLearnerId(learnerId);
+        List<LearnerProgress> progress = curriculumService.getLearnerProgress(learnerId);
         return ResponseEntity.ok(progress);
     }
 
     @GetMapping("/courses/{courseId}/lessons")
-    public ResponseEntity<List<Lesson>> getLessonsByCourse(@PathVariable long courseId) {
-        List<Lesson> lessons = lessonService.getLessonByIdCourse(courseId);
-        return ResponseEntity.ok(lessons);
+    public ResponseEntity<byte[]> getLessonsByCourse(@PathVariable long courseId) {
+        // Chỉ cache khóa học có thật để id tùy ý từ client không làm cache phình ra
+        CatalogCache.View view = catalogCache.get("course-lessons:" + courseId,
+                () -> courseService.existsById(courseId) ? lessonService.getLessonByIdCourse(courseId) : null);
+        if (view == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(EMPTY_JSON_ARRAY);
+        }
+        return catalogView(view);
     }
 
     @GetMapping("/updateLessonComplete/{progressId}")
@@ -196,7 +204,7 @@ public class CourseController {
     public ResponseEntity<CheckProgressResponseDTO> checkProgress(@RequestBody CheckProgressRequestDTO request) {
         try {
             long IdProgress = curriculumService.getIdProgressByLessonId(request.getLessonId(), request.getLearnerId());
-            boolean isExist = curriculumService.checkProgress(request.getLessonId(), request.getLearnerId());
+            boolean isExist = IdProgress != -1L;
             String message = isExist
                     ? "Progress isExist"
                     : "Progress not isExist";
@@ -254,6 +262,21 @@ public class CourseController {
         }
     }
 
+    /**
+     * Trả view catalog kèm ETag; Spring tự so với If-None-Match và trả 304 không
+     * body khi client đã có bản này. no-cache buộc trình duyệt hỏi lại mỗi lần.
+     */
+    private ResponseEntity<byte[]> catalogView(CatalogCache.View view) {
+        if (view == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .eTag(view.etag())
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(view.body());
+    }
+
     // Helper methods for DTO conversion
     private Lesson convertToLessonEntity(LessonDTO dto) {
         log.info("➡️  Bắt đầu convert LessonDTO: {}", dto);
@@ -2,16 +2,18 @@ package com.pickle.backend.controller;
 
 import com.pickle.backend.dto.*;
 import com.pickle.backend.entity.QuizResult;
-import com.pickle.backend.entity.test.Option;
 import com.pickle.backend.entity.test.Question;
-import com.pickle.backend.repository.OptionRepository;
+import com.pickle.backend.exception.DownstreamUnavailableException;
 import com.pickle.backend.repository.QuestionRepository;
 import com.pickle.backend.repository.QuizResultsRepository;
+import com.pickle.backend.service.QuestionSampler;
 import com.pickle.backend.service.QuestionService;
+import com.pickle.backend.service.QuizStatsService;
+import com.pickle.backend.service.SkillModelService;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -32,15 +34,21 @@ public class QuestionController {
     @Autowired
     private QuestionRepository questionRepo;
 
-    @Autowired
-    private OptionRepository optionRepo;
-
     @Autowired
     private QuizResultsRepository quizResultsRepository;
 
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private SkillModelService skillModelService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuestionSampler questionSampler;
+
     @GetMapping
     public List<QuestionDTO> getAllQuestions() {
         logger.info("Received GET request for all questions");
@@ -74,6 +82,7 @@ public class QuestionController {
         question.setLevel(dto.getLevel());
 
         Question savedQuestion = questionRepo.save(question);
+        questionSampler.invalidate();
         logger.info("Question created with ID: {}", savedQuestion.getId());
         return savedQuestion;
     }
@@ -101,6 +110,7 @@ public class QuestionController {
         logger.info("Received DELETE request for question ID: {}", id);
         if (questionRepo.existsById(id)) {
             questionRepo.deleteById(id);
+            questionSampler.invalidate();
             logger.info("Question deleted with ID: {}", id);
         } else {
             logger.warn("Question with ID {} not found for deletion", id);
@@ -124,26 +134,17 @@ public class QuestionController {
     @GetMapping("/quiz")
     public List<Question> getQuiz() {
         logger.info("Received GET request for random quiz questions");
-        List<Question> questions = questionRepo.findRandomQuestions(PageRequest.of(0, 5));
+        List<Question> questions = questionSampler.sample(5);
         logger.info("Returning {} random questions for quiz", questions.size());
         return questions;
     }
 
     @PostMapping("/submit")
-    public int submitQuiz(@RequestBody List<AnswerDTO> answers) {
+    public QuizScoreDTO submitQuiz(@RequestBody List<AnswerDTO> answers) {
         logger.info("Received POST request to submit quiz with {} answers", answers.size());
-        int score = 0;
-        for (AnswerDTO answer : answers) {
-            Optional<Option> selected = optionRepo.findById(answer.getOptionId());
-            if (selected.isPresent() && selected.get().isCorrect()) {
-                score++;
-                logger.debug("Correct answer for option ID: {}", answer.getOptionId());
-            } else {
-                logger.debug("Incorrect or invalid answer for option ID: {}", answer.getOptionId());
-            }
-        }
-        logger.info("Quiz submitted, score: {}", score);
-        return score;
+        QuizScoreDTO result = questionService.scoreQuiz(answers);
+        logger.info("Quiz submitted, score: {}/{}", result.getScore(), result.getTotal());
+        return result;
     }
 
     // === AI-POWERED ADAPTIVE QUIZ ENDPOINTS ===
@@ -156,6 +157,9 @@ public class QuestionController {
             QuizResponseDTO response = questionService.generateQuiz(request);
             logger.info("✅ AI quiz generated successfully for learner: {}", request.getLearnerId());
             return ResponseEntity.ok(response);
+        } catch (DownstreamUnavailableException e) {
+            logger.warn("AI quiz service unavailable for learner {}: {}", request.getLearnerId(), e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(null);
         } catch (Exception e) {
             logger.error("❌ Error generating AI quiz for learner {}: {}", request.getLearnerId(), e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -182,6 +186,9 @@ public class QuestionController {
             result.setCreatedAt(LocalDateTime.now());
 
             quizResultsRepository.save(result);
+            skillModelService.recordQuizResult(result.getLearnerId(), result.getTopic(),
+                    Boolean.TRUE.equals(result.getIsCorrect()));
+            quizStatsService.record(result.getLearnerId(), List.of(result));
             logger.info("✅ Quiz result saved successfully for learner: {}", resultDTO.getLearnerId());
             return ResponseEntity.ok("Quiz result saved successfully");
         } catch (Exception e) {
@@ -191,6 +198,15 @@ public class QuestionController {
         }
     }
 
+    // Lưu cả lượt làm quiz trong một request thay vì gọi save-result cho từng câu
+    @PostMapping("/ai/save-results")
+    public ResponseEntity<Map<String, Object>> saveQuizAttempt(@Valid @RequestBody QuizAttemptDTO attempt) {
+        logger.info("💾 Saving quiz attempt for learner: {}, answers: {}",
+                attempt.getLearnerId(), attempt.getResults().size());
+        int saved = questionService.saveQuizAttempt(attempt);
+        return ResponseEntity.ok(Map.of("saved", saved));
+    }
+
     // Endpoint để xem thống kê learner (optional, for debugging)
     @GetMapping("/learner-stats/{learnerId}")
     public ResponseEntity<Map<String, Object>> getLearnerStatistics(@PathVariable String learnerId) {
@@ -1,19 +1,28 @@
 package com.pickle.backend.controller;
 
+import com.pickle.backend.dto.AnalysisJobDTO;
+import com.pickle.backend.dto.CursorPageDTO;
+import com.pickle.backend.dto.VideoAnalysisSummaryDTO;
 import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.service.AnalysisJobService;
 import com.pickle.backend.service.FullAnalysisService;
 import com.pickle.backend.service.VideoAnalysisService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +37,9 @@ public class VideoAnalysisController {
     @Autowired
     private FullAnalysisService fullAnalysisService;
 
+    @Autowired
+    private AnalysisJobService analysisJobService;
+
     @Value("${video.analysis.api.url}")
     private String videoAnalysisUrl;
 
@@ -65,6 +77,11 @@ public class VideoAnalysisController {
                 log.warn("Error result: {}", errorMessage);
                 return ResponseEntity.badRequest().body(new VideoAnalysisResponse(errorMessage));
             }
+            if (result.get("jobId") != null && result.get("result") == null) {
+                // Dịch vụ vision xử lý bất đồng bộ: client theo dõi qua /full-analysis/jobs/{jobId}
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(new VideoAnalysisResponse(
+                        String.valueOf(result.get("message")), Map.of("jobId", result.get("jobId"))));
+            }
             return ResponseEntity.ok(new VideoAnalysisResponse("Phân tích thành công", result));
         } catch (IOException e) {
             log.error("IO Error in fullAnalysis: {}", e.getMessage());
@@ -77,6 +94,48 @@ public class VideoAnalysisController {
         }
     }
 
+    // Chế độ job: trả về jobId ngay, việc phân tích chạy trên pool worker
+    @PostMapping(value = "/full-analysis/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<VideoAnalysisResponse> submitAnalysisJob(
+            @RequestParam String userId,
+            @RequestParam("video") MultipartFile video) {
+        log.info("Received analysis job - video: {}, userId: {}, video size: {}",
+                video.getOriginalFilename(), userId, video.getSize());
+
+        if (video.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(new VideoAnalysisResponse("Error: Video file is empty or invalid"));
+        }
+        if (!isValidVideoFormat(video.getContentType())) {
+            return ResponseEntity.badRequest()
+                    .body(new VideoAnalysisResponse("Error: Invalid video format. Only MP4 is supported"));
+        }
+
+        try {
+            AnalysisJobDTO job = analysisJobService.submit(userId, video);
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new VideoAnalysisResponse("Đã nhận yêu cầu phân tích", job));
+        } catch (IOException e) {
+            log.error("IO Error in submitAnalysisJob: {}", e.getMessage());
+            return ResponseEntity.status(400).body(
+                    new VideoAnalysisResponse("Phân tích không thành công: Lỗi xử lý file - " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/full-analysis/jobs/{jobId}")
+    public ResponseEntity<AnalysisJobDTO> getAnalysisJob(@PathVariable String jobId) {
+        return analysisJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/full-analysis/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeAnalysisJob(@PathVariable String jobId) {
+        return analysisJobService.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     private boolean isValidVideoFormat(String contentType) {
         return contentType != null && contentType.equals("video/mp4");
     }
@@ -86,6 +145,14 @@ public class VideoAnalysisController {
         return ResponseEntity.ok(videoAnalysisService.getAllVideoAnalyses());
     }
 
+    // Danh sách rút gọn phân trang theo cursor; dữ liệu JSON đầy đủ lấy qua /analyses/{id}
+    @GetMapping("/analyses/summaries")
+    public ResponseEntity<CursorPageDTO<VideoAnalysisSummaryDTO>> getVideoAnalysisSummaries(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(videoAnalysisService.getSummaries(null, cursor, size));
+    }
+
     @GetMapping("/analyses/{id}")
     public ResponseEntity<VideoAnalysis> getVideoAnalysisById(@PathVariable String id) {
         VideoAnalysis analysis = videoAnalysisService.getVideoAnalysisById(id);
@@ -115,6 +182,30 @@ public class VideoAnalysisController {
         return ResponseEntity.ok(videoAnalysisService.findByUserId(userId));
     }
 
+    @GetMapping("/analyses/user/{userId}/summaries")
+    public ResponseEntity<CursorPageDTO<VideoAnalysisSummaryDTO>> getUserVideoAnalysisSummaries(
+            @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(videoAnalysisService.getSummaries(userId, cursor, size));
+    }
+
+    // Tìm theo cú đánh/người dùng/khoảng thời gian [from, to) qua bảng video_analysis_shots
+    @GetMapping("/analyses/search")
+    public ResponseEntity<CursorPageDTO<VideoAnalysisSummaryDTO>> searchVideoAnalyses(
+            @RequestParam(required = false) String shotType,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "false") boolean weakestOnly,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(videoAnalysisService.searchSummaries(shotType, userId,
+                from != null ? Timestamp.valueOf(from) : null,
+                to != null ? Timestamp.valueOf(to) : null,
+                weakestOnly, cursor, size));
+    }
+
     @GetMapping("/analyses/shot/{shotType}")
     public ResponseEntity<List<VideoAnalysis>> findByShotType(@PathVariable String shotType) {
         return ResponseEntity.ok(videoAnalysisService.findByShotType(shotType));
@@ -0,0 +1,21 @@
+package com.pickle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Trạng thái của một job phân tích video bất đồng bộ
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnalysisJobDTO {
+    private String jobId;
+    private String userId;
+    private String status; // PENDING, RUNNING, SUCCEEDED, FAILED
+    private String message;
+    private Object result;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
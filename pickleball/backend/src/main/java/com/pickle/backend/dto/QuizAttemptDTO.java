@@ -0,0 +1,27 @@
+package com.pickle.backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Toàn bộ câu trả lời của một lượt làm quiz, gửi trong một request.
+ * topic/level dùng làm mặc định cho các câu không ghi riêng.
+ */
+@Data
+public class QuizAttemptDTO {
+
+    @NotBlank
+    private String learnerId;
+
+    private String topic;
+
+    private String level;
+
+    @NotEmpty
+    @Size(max = 100)
+    private List<QuizResultDTO> results;
+}
@@ -0,0 +1,31 @@
+package com.pickle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kết quả chấm một bài quiz: điểm và đúng/sai của từng câu theo thứ tự gửi lên.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizScoreDTO {
+
+    private int score;
+
+    private int total;
+
+    private List<AnswerResult> results;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AnswerResult {
+        private Long questionId;
+        private Long optionId;
+        private boolean correct;
+    }
+}
@@ -0,0 +1,10 @@
+package com.pickle.backend.dto;
+
+import java.nio.file.Path;
+
+/**
+ * Video upload đã được lưu tạm trên đĩa, kèm kích thước và hash SHA-256 tính
+ * trong lúc nhận file.
+ */
+public record StagedVideo(Path path, String originalFilename, String contentType, long size, String sha256) {
+}
@@ -0,0 +1,19 @@
+package com.pickle.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.sql.Timestamp;
+
+// Thông tin rút gọn của một VideoAnalysis cho màn hình lịch sử (không gồm các cột JSON)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VideoAnalysisSummaryDTO {
+    private String videoId;
+    private String userId;
+    private Timestamp createdAt;
+    private Double averageScore;
+    private String skillLevel;
+}
@@ -0,0 +1,21 @@
+package com.pickle.backend.dto.analysis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Response của Python API phân tích video, đọc một lần bằng streaming parser.
+ * Các phần không có trong response là null. jobId khác null khi dịch vụ nhận
+ * video và xử lý bất đồng bộ (kết quả lấy sau qua /status/{job_id}).
+ */
+public record AnalysisResponse(
+        List<FeedbackFrame> detailedFeedbacks,
+        JsonNode techniqueAnalysis,
+        ShotAnalysis shotAnalysis,
+        PerformanceMetrics performanceMetrics,
+        String skillLevel,
+        Double averageScore,
+        String error,
+        String jobId) {
+}
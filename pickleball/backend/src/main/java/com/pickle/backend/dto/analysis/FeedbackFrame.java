@@ -0,0 +1,148 @@
+package com.pickle.backend.dto.analysis;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Một khung hình trong detailed_feedbacks. timestamp, overall_score, grip.type,
+ * balance.status và shot.type được đọc sẵn thành kiểu cụ thể; residual chỉ giữ
+ * phần còn lại của object gốc. Giá trị không biểu diễn đúng được bằng kiểu cụ thể
+ * (vd điểm thập phân) được giữ nguyên trong residual, trường kiểu cụ thể khi đó
+ * chỉ là giá trị quy đổi. raw() dựng lại object đầy đủ để trả về cho client.
+ */
+public record FeedbackFrame(Long timestamp, Integer overallScore, String gripType, String balanceStatus,
+        String shotType, ObjectNode residual) {
+
+    public static final String TIMESTAMP = "timestamp";
+    public static final String OVERALL_SCORE = "overall_score";
+    public static final String GRIP = "grip";
+    public static final String BALANCE = "balance";
+    public static final String SHOT = "shot";
+    public static final String TYPE = "type";
+    public static final String STATUS = "status";
+
+    /**
+     * Dựng khung hình từ các giá trị đã tách (null nếu không tách được) và phần còn
+     * lại. Trường nào không tách được thì lấy giá trị quy đổi từ residual.
+     */
+    public static FeedbackFrame of(Long timestamp, Integer overallScore, String gripType, String balanceStatus,
+            String shotType, ObjectNode residual) {
+        if (overallScore == null) {
+            JsonNode score = residual.get(OVERALL_SCORE);
+            overallScore = score != null && score.isNumber() ? score.intValue() : null;
+        }
+        return new FeedbackFrame(timestamp, overallScore,
+                gripType != null ? gripType : textAt(residual, GRIP, TYPE),
+                balanceStatus != null ? balanceStatus : textAt(residual, BALANCE, STATUS),
+                shotType != null ? shotType : textAt(residual, SHOT, TYPE),
+                residual);
+    }
+
+    /**
+     * Tách một object khung hình (vd từ JSON cũ). Object của người gọi không bị sửa.
+     */
+    public static FeedbackFrame of(ObjectNode raw) {
+        ObjectNode residual = raw.deepCopy();
+        Long timestamp = null;
+        JsonNode timestampNode = residual.get(TIMESTAMP);
+        if (timestampNode != null && timestampNode.isIntegralNumber() && timestampNode.canConvertToLong()) {
+            timestamp = timestampNode.longValue();
+            residual.remove(TIMESTAMP);
+        }
+        Integer overallScore = null;
+        JsonNode score = residual.get(OVERALL_SCORE);
+        if (isStorableScore(score)) {
+            overallScore = score.intValue();
+            residual.remove(OVERALL_SCORE);
+        }
+        return of(timestamp, overallScore, liftText(residual, GRIP, TYPE), liftText(residual, BALANCE, STATUS),
+                liftText(residual, SHOT, TYPE), residual);
+    }
+
+    // overall_score chỉ được tách khi là số nguyên không âm (cột của FeedbackFrameCodec)
+    private static boolean isStorableScore(JsonNode score) {
+        return score != null && score.isInt() && score.intValue() >= 0;
+    }
+
+    /**
+     * Object đầy đủ của khung hình. Các trường đã tách được thêm vào cuối object
+     * chứa chúng nên thứ tự khóa có thể khác object gốc.
+     */
+    public ObjectNode raw() {
+        ObjectNode raw = residual.deepCopy();
+        if (timestamp != null && !raw.has(TIMESTAMP)) {
+            // Cùng kiểu node như khi đọc JSON (int nếu vừa) để raw() bằng object gốc
+            if (timestamp == timestamp.intValue()) {
+                raw.put(TIMESTAMP, timestamp.intValue());
+            } else {
+                raw.put(TIMESTAMP, timestamp);
+            }
+        }
+        if (overallScore != null && !raw.has(OVERALL_SCORE)) {
+            raw.put(OVERALL_SCORE, overallScore);
+        }
+        restoreText(raw, GRIP, TYPE, gripType);
+        restoreText(raw, BALANCE, STATUS, balanceStatus);
+        restoreText(raw, SHOT, TYPE, shotType);
+        return raw;
+    }
+
+    /**
+     * Giá trị đã được tách khỏi residual (null nếu trường vẫn nằm trong residual).
+     */
+    public Integer storedOverallScore() {
+        return residual.has(OVERALL_SCORE) ? null : overallScore;
+    }
+
+    public String storedGripType() {
+        return storedText(GRIP, TYPE, gripType);
+    }
+
+    public String storedBalanceStatus() {
+        return storedText(BALANCE, STATUS, balanceStatus);
+    }
+
+    public String storedShotType() {
+        return storedText(SHOT, TYPE, shotType);
+    }
+
+    private String storedText(String object, String field, String value) {
+        JsonNode parent = residual.get(object);
+        return parent != null && parent.has(field) ? null : value;
+    }
+
+    private static String liftText(ObjectNode residual, String object, String field) {
+        JsonNode parent = residual.get(object);
+        if (parent == null || !parent.isObject()) {
+            return null;
+        }
+        JsonNode value = parent.get(field);
+        if (value == null || !value.isTextual()) {
+            return null;
+        }
+        ((ObjectNode) parent).remove(field);
+        return value.textValue();
+    }
+
+    private static void restoreText(ObjectNode raw, String object, String field, String value) {
+        if (value == null) {
+            return;
+        }
+        JsonNode parent = raw.get(object);
+        if (parent == null) {
+            parent = raw.putObject(object);
+        }
+        if (parent.isObject() && !parent.has(field)) {
+            ((ObjectNode) parent).put(field, value);
+        }
+    }
+
+    private static String textAt(ObjectNode residual, String object, String field) {
+        JsonNode parent = residual.get(object);
+        if (parent == null || !parent.isObject()) {
+            return null;
+        }
+        JsonNode value = parent.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+}
@@ -0,0 +1,6 @@
+package com.pickle.backend.dto.analysis;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+public record PerformanceMetrics(Double averageScore, ObjectNode raw) {
+}
@@ -0,0 +1,12 @@
+package com.pickle.backend.dto.analysis;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.List;
+
+/**
+ * shotAnalysis của Python API. weakestShots lấy từ "weakestShots" hoặc
+ * "weakest_shots" (API cũ trả về cả hai kiểu tên).
+ */
+public record ShotAnalysis(List<String> weakestShots, ObjectNode raw) {
+}
@@ -0,0 +1,77 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Bộ đếm kết quả quiz của một learner theo một chiều: ALL (toàn bộ, bucket "*"),
+ * TOPIC hoặc LEVEL (bucket là topic/level đã chuẩn hóa). Được cộng dồn mỗi khi
+ * lưu kết quả, nên thống kê của learner chỉ đọc vài dòng thay vì cả quiz_results.
+ */
+@Entity
+@Table(name = "learner_quiz_stats")
+@IdClass(LearnerQuizStat.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class LearnerQuizStat {
+
+    public static final String ALL = "ALL";
+    public static final String TOPIC = "TOPIC";
+    public static final String LEVEL = "LEVEL";
+    public static final String ALL_BUCKET = "*";
+
+    @Id
+    @Column(name = "learner_id", nullable = false)
+    private String learnerId;
+
+    @Id
+    @Column(name = "dimension", nullable = false, length = 8)
+    private String dimension;
+
+    @Id
+    @Column(name = "bucket", nullable = false, length = 191)
+    private String bucket;
+
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "correct", nullable = false)
+    private long correct;
+
+    @Column(name = "last_answered_at")
+    private LocalDateTime lastAnsweredAt;
+
+    public LearnerQuizStat(String learnerId, String dimension, String bucket) {
+        this.learnerId = learnerId;
+        this.dimension = dimension;
+        this.bucket = bucket;
+    }
+
+    /**
+     * Cộng thêm các câu trả lời vào bộ đếm.
+     */
+    public void add(long answers, long correctAnswers, LocalDateTime answeredAt) {
+        total += answers;
+        correct += correctAnswers;
+        if (answeredAt != null && (lastAnsweredAt == null || answeredAt.isAfter(lastAnsweredAt))) {
+            lastAnsweredAt = answeredAt;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String learnerId;
+        private String dimension;
+        private String bucket;
+    }
+}
@@ -0,0 +1,106 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.sql.Timestamp;
+
+/**
+ * Điểm kỹ năng trượt của một learner cho một kỹ năng (tên Lesson.SkillType, hoặc
+ * OVERALL cho điểm video tổng thể, QUIZ cho tỉ lệ trả lời đúng). Mỗi quan sát mới
+ * (0-100) cập nhật điểm trung bình trượt theo hàm mũ, phương sai và xu hướng
+ * trong O(1), không cần đọc lại lịch sử.
+ */
+@Entity
+@Table(name = "learner_skill_models")
+@IdClass(LearnerSkillModel.Key.class)
+@Getter
+@Setter
+@NoArgsConstructor
+public class LearnerSkillModel {
+
+    public static final String OVERALL = "OVERALL";
+    public static final String QUIZ = "QUIZ";
+
+    // Trọng số nhỏ nhất của quan sát mới; các quan sát đầu tiên được lấy trung bình đều
+    static final double MIN_ALPHA = 0.2;
+    // Trọng số cập nhật xu hướng
+    static final double TREND_BETA = 0.3;
+    // Số quan sát để độ tin cậy đạt 50% (khi điểm ổn định)
+    static final double CONFIDENCE_SAMPLES = 3;
+    // Phương sai làm độ tin cậy giảm một nửa (độ lệch chuẩn 20 điểm)
+    static final double CONFIDENCE_VARIANCE = 400;
+
+    @Id
+    @Column(name = "learner_id", nullable = false)
+    private String learnerId;
+
+    @Id
+    @Column(name = "skill", nullable = false, length = 16)
+    private String skill;
+
+    @Column(name = "score", nullable = false)
+    private double score;
+
+    @Column(name = "variance", nullable = false)
+    private double variance;
+
+    // Thay đổi trung bình của điểm sau mỗi quan sát (dương = đang tiến bộ)
+    @Column(name = "trend", nullable = false)
+    private double trend;
+
+    @Column(name = "samples", nullable = false)
+    private int samples;
+
+    @Column(name = "updated_at")
+    private Timestamp updatedAt;
+
+    public LearnerSkillModel(String learnerId, String skill) {
+        this.learnerId = learnerId;
+        this.skill = skill;
+    }
+
+    /**
+     * Cập nhật mô hình với một quan sát điểm (0-100).
+     */
+    public void observe(double value) {
+        double x = Math.max(0, Math.min(100, value));
+        if (samples == 0) {
+            score = x;
+            variance = 0;
+            trend = 0;
+        } else {
+            double alpha = Math.max(1.0 / (samples + 1), MIN_ALPHA);
+            double delta = x - score;
+            double previous = score;
+            score += alpha * delta;
+            variance = (1 - alpha) * (variance + alpha * delta * delta);
+            trend += TREND_BETA * ((score - previous) - trend);
+        }
+        samples++;
+        updatedAt = new Timestamp(System.currentTimeMillis());
+    }
+
+    /**
+     * Độ tin cậy 0-1: tăng theo số quan sát, giảm khi điểm dao động mạnh.
+     */
+    public double getConfidence() {
+        if (samples == 0) {
+            return 0;
+        }
+        return samples / (samples + CONFIDENCE_SAMPLES) / (1 + variance / CONFIDENCE_VARIANCE);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String learnerId;
+        private String skill;
+    }
+}
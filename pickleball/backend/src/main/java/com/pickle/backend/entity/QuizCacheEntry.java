@@ -0,0 +1,41 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Quiz AI đã sinh, dùng chung giữa các instance backend. Khóa là SHA-256 của
+ * (topic, level, chữ ký điểm yếu); payload là QuizResponseDTO dạng JSON.
+ */
+@Entity
+@Table(name = "quiz_cache_entries", indexes = {
+        @Index(name = "idx_quiz_cache_entries_created", columnList = "created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class QuizCacheEntry {
+
+    @Id
+    @Column(name = "cache_key", length = 64)
+    private String cacheKey;
+
+    @Column(name = "topic")
+    private String topic;
+
+    @Column(name = "level", length = 32)
+    private String level;
+
+    @Column(name = "weakness_signature", length = 128)
+    private String weaknessSignature;
+
+    @Column(name = "payload", columnDefinition = "LONGTEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+}
@@ -0,0 +1,38 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Quiz AI sinh sẵn cho một cặp (topic, level), chưa giao cho learner nào. Mỗi
+ * dòng chỉ được lấy ra một lần; QuizPoolRefiller bổ sung lại định kỳ.
+ */
+@Entity
+@Table(name = "quiz_pool_entries", indexes = {
+        @Index(name = "idx_quiz_pool_entries_key_created", columnList = "topic, level, created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class QuizPoolEntry {
+
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "topic", nullable = false)
+    private String topic;
+
+    @Column(name = "level", nullable = false, length = 32)
+    private String level;
+
+    @Column(name = "payload", columnDefinition = "LONGTEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+}
@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "quiz_results")
+@Table(name = "quiz_results", indexes = {
+        @Index(name = "idx_quiz_results_learner_created", columnList = "learner_id, created_at")
+})
 public class QuizResult {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,79 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Job phân tích đang chạy trên dịch vụ vision (POST /analyze trả về job_id).
+ * Lưu lại job_id phía Python cùng thông tin file tạm để backend khởi động lại
+ * vẫn tiếp tục poll /status/{job_id} và hoàn tất phân tích.
+ */
+@Entity
+@Table(name = "remote_analysis_jobs", indexes = {
+        @Index(name = "idx_remote_analysis_jobs_status_next_poll", columnList = "status, next_poll_at"),
+        @Index(name = "idx_remote_analysis_jobs_status_updated", columnList = "status, updated_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class RemoteAnalysisJob {
+
+    // COMPLETING: một node đã nhận kết quả và đang hoàn tất job (chỉ một node được chuyển sang trạng thái này)
+    public enum Status {
+        POLLING, COMPLETING, SUCCEEDED, FAILED
+    }
+
+    // Trùng với jobId trả về cho client
+    @Id
+    @Column(name = "id", length = 36)
+    private String id;
+
+    @Column(name = "remote_job_id", nullable = false, length = 64)
+    private String remoteJobId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status;
+
+    // File tạm đã gửi đi, được chuyển sang Uploads khi phân tích thành công
+    @Column(name = "video_path", length = 1024)
+    private String videoPath;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "video_size")
+    private long videoSize;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "poll_count", nullable = false)
+    private int pollCount;
+
+    @Column(name = "next_poll_at")
+    private Timestamp nextPollAt;
+
+    @Column(name = "message", length = 1000)
+    private String message;
+
+    // Kết quả trả về cho client (JSON) khi job thành công
+    @Column(name = "result_json", columnDefinition = "LONGTEXT")
+    private String resultJson;
+
+    @Column(name = "created_at", nullable = false)
+    private Timestamp createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Timestamp updatedAt;
+}
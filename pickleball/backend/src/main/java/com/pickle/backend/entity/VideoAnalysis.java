@@ -1,6 +1,9 @@
 package com.pickle.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.pickle.backend.util.FeedbackFrameCodec;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -9,7 +12,12 @@ import lombok.AllArgsConstructor;
 import java.sql.Timestamp;
 
 @Entity
-@Table(name = "video_analyses")
+@Table(name = "video_analyses", indexes = {
+        @Index(name = "idx_video_analyses_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_video_analyses_created", columnList = "created_at, video_id"),
+        @Index(name = "idx_video_analyses_user_created", columnList = "user_id, created_at, video_id"),
+        @Index(name = "idx_video_analyses_shots_indexed", columnList = "shots_indexed, video_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,8 +31,22 @@ public class VideoAnalysis {
     @Column(name = "user_id", nullable = false)
     private String userId;
 
+    // JSON gốc, chỉ còn dùng cho các bản ghi trước khi có feedback_frames
+    @JsonIgnore
     @Column(name = "detailed_feedbacks", columnDefinition = "LONGTEXT")
-    private String detailedFeedbacks;
+    private String legacyDetailedFeedbacks;
+
+    // detailed_feedbacks dạng cột nén, xem FeedbackFrameCodec
+    @JsonIgnore
+    @Column(name = "feedback_frames", columnDefinition = "LONGBLOB")
+    private byte[] feedbackFrames;
+
+    // JSON giải mã từ feedbackFrames, chỉ tạo khi có người đọc
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private String decodedFeedbacks;
 
     @Column(name = "shot_analysis", columnDefinition = "LONGTEXT")
     private String shotAnalysis;
@@ -35,13 +57,56 @@ public class VideoAnalysis {
     @Column(name = "recommendations", columnDefinition = "LONGTEXT")
     private String recommendations;
 
+    // Tách riêng từ analysis_result để danh sách lịch sử không phải đọc các cột JSON
+    @Column(name = "average_score")
+    private Double averageScore;
+
+    @Column(name = "skill_level", length = 20)
+    private String skillLevel;
+
+    // Đã ghi video_analysis_shots cho bản ghi này (kể cả khi không có cú đánh nào); NULL ở bản ghi cũ
+    @JsonIgnore
+    @Column(name = "shots_indexed")
+    private Boolean shotsIndexed;
+
     @Column(name = "video_path")
     private String videoPath;
 
+    // SHA-256 của file video, dùng để nhận biết video đã được phân tích trước đó
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at")
     private Timestamp createdAt;
 
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "user_id", referencedColumnName = "userId", insertable = false, updatable = false)
     private Learner learner;
-}
\ No newline at end of file
+
+    /**
+     * detailed_feedbacks dạng JSON như trước. Với bản ghi mới, JSON được giải mã
+     * từ feedbackFrames ở lần đọc đầu tiên.
+     */
+    public String getDetailedFeedbacks() {
+        if (feedbackFrames == null) {
+            return legacyDetailedFeedbacks;
+        }
+        if (decodedFeedbacks == null) {
+            decodedFeedbacks = FeedbackFrameCodec.decodeToJson(feedbackFrames);
+        }
+        return decodedFeedbacks;
+    }
+
+    // JSON không phải mảng object thì giữ nguyên để validate báo lỗi như cũ
+    public void setDetailedFeedbacks(String detailedFeedbacks) {
+        this.feedbackFrames = FeedbackFrameCodec.encodeJson(detailedFeedbacks);
+        this.legacyDetailedFeedbacks = feedbackFrames == null ? detailedFeedbacks : null;
+        this.decodedFeedbacks = feedbackFrames != null ? detailedFeedbacks : null;
+    }
+
+    public void setFeedbackFrames(byte[] feedbackFrames) {
+        this.feedbackFrames = feedbackFrames;
+        this.legacyDetailedFeedbacks = null;
+        this.decodedFeedbacks = null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.pickle.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.sql.Timestamp;
+
+/**
+ * Một loại cú đánh xuất hiện trong một VideoAnalysis (từ detailed_feedbacks hoặc
+ * weakest shots). user_id và created_at được chép từ bản phân tích để tìm kiếm
+ * theo cú đánh/người dùng/khoảng thời gian chỉ cần đọc index của bảng này.
+ */
+@Entity
+@Table(name = "video_analysis_shots", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_video_analysis_shots_video_shot", columnNames = { "video_id", "shot_type" })
+}, indexes = {
+        @Index(name = "idx_video_analysis_shots_shot_created", columnList = "shot_type, created_at, video_id"),
+        @Index(name = "idx_video_analysis_shots_user_shot_created",
+                columnList = "user_id, shot_type, created_at, video_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class VideoAnalysisShot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "video_id", nullable = false)
+    private String videoId;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    // Luôn ở dạng chữ thường, ví dụ "forehand", "dink"
+    @Column(name = "shot_type", nullable = false, length = 50)
+    private String shotType;
+
+    // true nếu là một trong các cú yếu nhất của bản phân tích
+    @Column(name = "weakest", nullable = false)
+    private boolean weakest;
+
+    @Column(name = "created_at")
+    private Timestamp createdAt;
+
+    public VideoAnalysisShot(VideoAnalysis analysis, String shotType, boolean weakest) {
+        this.videoId = analysis.getVideoId();
+        this.userId = analysis.getUserId();
+        this.createdAt = analysis.getCreatedAt();
+        this.shotType = shotType;
+        this.weakest = weakest;
+    }
+}
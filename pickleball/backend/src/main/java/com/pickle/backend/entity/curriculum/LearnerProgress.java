@@ -4,9 +4,13 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "learner_progress")
+@Table(name = "learner_progress", uniqueConstraints = {
+        @UniqueConstraint(name = LearnerProgress.LEARNER_LESSON_KEY, columnNames = { "learner_id", "lesson_id" })
+})
 @Data
 public class LearnerProgress {
+    public static final String LEARNER_LESSON_KEY = "uk_learner_progress_learner_lesson";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -5,6 +5,8 @@ import lombok.Data;
 import org.hibernate.annotations.GenericGenerator;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 @Entity
@@ -29,8 +31,16 @@ public class VideoLessonRecommendation {
     @Column(name = "weakest_shots", columnDefinition = "TEXT")
     private String weakestShots; // JSON string của danh sách weakest shots
 
+    // Id bài học đề xuất theo thứ tự, mỗi id một dòng trong bảng nối
+    @ElementCollection
+    @CollectionTable(name = "video_lesson_recommendation_lessons",
+            joinColumns = @JoinColumn(name = "recommendation_id", nullable = false))
+    @OrderColumn(name = "position")
+    @Column(name = "lesson_id", nullable = false)
+    private List<UUID> lessonIds = new ArrayList<>();
+
     @Column(name = "recommended_lesson_ids", columnDefinition = "TEXT")
-    private String recommendedLessonIds; // JSON string của danh sách lesson IDs
+    private String recommendedLessonIds; // JSON cũ của danh sách lesson IDs, chỉ còn đọc cho bản ghi trước bảng nối
 
     @Column(name = "average_score")
     private Double averageScore;
@@ -0,0 +1,25 @@
+package com.pickle.backend.exception;
+
+/**
+ * Hàng đợi nhận video phân tích đã đầy (hoặc chờ quá lâu). Kèm vị trí trong hàng
+ * đợi và số giây nên chờ trước khi gửi lại, trả về client dưới dạng 429.
+ */
+public class AnalysisOverloadedException extends RuntimeException {
+
+    private final int queuePosition;
+    private final long retryAfterSeconds;
+
+    public AnalysisOverloadedException(String message, int queuePosition, long retryAfterSeconds) {
+        super(message);
+        this.queuePosition = queuePosition;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pickle.backend.exception;
+
+// Dịch vụ AI phía sau đang quá tải (bulkhead đầy) hoặc circuit breaker đang mở
+public class DownstreamUnavailableException extends RuntimeException {
+    public DownstreamUnavailableException(String message) {
+        super(message);
+    }
+}
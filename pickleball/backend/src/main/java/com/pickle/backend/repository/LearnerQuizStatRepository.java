@@ -0,0 +1,29 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.LearnerQuizStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface LearnerQuizStatRepository extends JpaRepository<LearnerQuizStat, LearnerQuizStat.Key> {
+
+    List<LearnerQuizStat> findByLearnerId(String learnerId);
+
+    // Tạo dòng ALL rỗng nếu learner chưa có. Hai lượt lưu đầu tiên đồng thời chờ nhau ở khóa
+    // chính của dòng này thay vì cùng dựng lại rồi cùng insert
+    @Modifying
+    @Query(value = "INSERT INTO learner_quiz_stats (learner_id, dimension, bucket, total, correct) "
+            + "VALUES (:learnerId, '" + LearnerQuizStat.ALL + "', '" + LearnerQuizStat.ALL_BUCKET + "', 0, 0) "
+            + "ON DUPLICATE KEY UPDATE total = total", nativeQuery = true)
+    int insertAllRowIfAbsent(@Param("learnerId") String learnerId);
+
+    // Khóa các bộ đếm của learner để hai lượt lưu đồng thời không ghi đè nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM LearnerQuizStat s WHERE s.learnerId = :learnerId")
+    List<LearnerQuizStat> findForUpdate(@Param("learnerId") String learnerId);
+}
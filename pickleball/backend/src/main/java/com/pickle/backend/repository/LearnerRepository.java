@@ -2,6 +2,9 @@ package com.pickle.backend.repository;
 
 import com.pickle.backend.entity.Learner;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +13,8 @@ import java.util.List;
 public interface LearnerRepository extends JpaRepository<Learner, String> {
     List<Learner> findBySkillLevel(String skillLevel);
     List<Learner> findByGoalsContaining(String goal);
+
+    @Modifying
+    @Query("UPDATE Learner l SET l.skillLevel = :skillLevel WHERE l.userId = :userId")
+    int updateSkillLevel(@Param("userId") String userId, @Param("skillLevel") String skillLevel);
 }
\ No newline at end of file
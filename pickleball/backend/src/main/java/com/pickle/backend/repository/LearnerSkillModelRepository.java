@@ -0,0 +1,31 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.LearnerSkillModel;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface LearnerSkillModelRepository extends JpaRepository<LearnerSkillModel, LearnerSkillModel.Key> {
+
+    List<LearnerSkillModel> findByLearnerId(String learnerId);
+
+    // Tạo dòng rỗng (chưa có quan sát) cho kỹ năng nếu learner chưa có. Hai lần ghi đầu tiên
+    // đồng thời chờ nhau ở khóa chính của dòng này thay vì cùng insert rồi một bên lỗi trùng khóa
+    @Modifying
+    @Query(value = "INSERT INTO learner_skill_models (learner_id, skill, score, variance, trend, samples) "
+            + "VALUES (:learnerId, :skill, 0, 0, 0, 0) ON DUPLICATE KEY UPDATE samples = samples",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("learnerId") String learnerId, @Param("skill") String skill);
+
+    // Khóa các dòng sẽ cập nhật để hai kết quả cùng learner không ghi đè nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM LearnerSkillModel m WHERE m.learnerId = :learnerId AND m.skill IN :skills")
+    List<LearnerSkillModel> findForUpdate(@Param("learnerId") String learnerId,
+            @Param("skills") Collection<String> skills);
+}
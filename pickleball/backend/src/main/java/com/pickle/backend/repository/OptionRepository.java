@@ -2,11 +2,28 @@ package com.pickle.backend.repository;
 
 import com.pickle.backend.entity.test.Option;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OptionRepository extends JpaRepository<Option, Long> {
     public Optional<Option> findById(Long id);
-}
\ No newline at end of file
+
+    // Chỉ các cột cần để chấm điểm, không nạp Option/Question
+    interface AnswerKey {
+        Long getOptionId();
+
+        Long getQuestionId();
+
+        Boolean getCorrect();
+    }
+
+    @Query("SELECT o.id AS optionId, o.question.id AS questionId, o.isCorrect AS correct"
+            + " FROM Option o WHERE o.id IN :ids")
+    List<AnswerKey> findAnswerKeys(@Param("ids") Collection<Long> ids);
+}
@@ -3,15 +3,20 @@ package com.pickle.backend.repository;
 import com.pickle.backend.entity.test.Question;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
 
-    // Lấy danh sách câu hỏi ngẫu nhiên (dùng LIMIT và ORDER BY RAND() trong SQL)
-    @Query(value = "SELECT * FROM question ORDER BY RAND()", nativeQuery = true)
-    List<Question> findRandomQuestions(Pageable pageable);
+    // Danh sách id dùng cho QuestionSampler (chỉ đọc index khóa chính)
+    @Query("SELECT q.id FROM Question q")
+    List<Long> findAllIds();
+
+    // Lấy câu hỏi cùng đáp án trong một truy vấn
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.options WHERE q.id IN :ids")
+    List<Question> findWithOptionsByIdIn(@Param("ids") Collection<Long> ids);
 
     // Không cần override findById!
 }
@@ -0,0 +1,18 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.QuizCacheEntry;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+
+public interface QuizCacheEntryRepository extends JpaRepository<QuizCacheEntry, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QuizCacheEntry e WHERE e.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Timestamp cutoff);
+}
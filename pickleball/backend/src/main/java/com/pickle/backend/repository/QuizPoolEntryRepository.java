@@ -0,0 +1,24 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.QuizPoolEntry;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface QuizPoolEntryRepository extends JpaRepository<QuizPoolEntry, String> {
+
+    List<QuizPoolEntry> findByTopicAndLevelOrderByCreatedAtAsc(String topic, String level, Pageable pageable);
+
+    long countByTopicAndLevel(String topic, String level);
+
+    // Trả về 0 nếu instance khác đã lấy quiz này trước
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM QuizPoolEntry e WHERE e.id = :id")
+    int claim(@Param("id") String id);
+}
@@ -0,0 +1,44 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.QuizResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Ghi nhiều QuizResult bằng một JDBC batch. QuizResult dùng id IDENTITY nên
+ * Hibernate không gộp được các lệnh INSERT; ở đây ghi thẳng qua JdbcTemplate
+ * (MySQL gộp thành một INSERT nhiều dòng nhờ rewriteBatchedStatements).
+ */
+@Repository
+public class QuizResultBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO quiz_results (learner_id, question_text,"
+            + " selected_option_text, correct_option_text, explanation, topic, level, is_correct, created_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<QuizResult> results) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, results, results.size(), (ps, result) -> {
+            ps.setString(1, result.getLearnerId());
+            ps.setString(2, result.getQuestionText());
+            ps.setString(3, result.getSelectedOptionText());
+            ps.setString(4, result.getCorrectOptionText());
+            ps.setString(5, result.getExplanation());
+            ps.setString(6, result.getTopic());
+            ps.setString(7, result.getLevel());
+            if (result.getIsCorrect() != null) {
+                ps.setBoolean(8, result.getIsCorrect());
+            } else {
+                ps.setNull(8, Types.BOOLEAN);
+            }
+            ps.setTimestamp(9, Timestamp.valueOf(result.getCreatedAt()));
+        });
+    }
+}
@@ -2,8 +2,30 @@ package com.pickle.backend.repository;
 
 import com.pickle.backend.entity.QuizResult;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface QuizResultsRepository extends JpaRepository<QuizResult, Long> {
-    List<QuizResult> findByLearnerIdOrderByCreatedAtDesc(String learnerId);
+    List<QuizResult> findTop10ByLearnerIdOrderByCreatedAtDesc(String learnerId);
+
+    interface TopicLevelTotals {
+        String getTopic();
+
+        String getLevel();
+
+        Long getTotal();
+
+        Long getCorrect();
+
+        LocalDateTime getLastAnsweredAt();
+    }
+
+    // Chỉ dùng để dựng lại learner_quiz_stats cho learner chưa có bộ đếm; không đọc cột TEXT
+    @Query("SELECT r.topic AS topic, r.level AS level, COUNT(r) AS total,"
+            + " SUM(CASE WHEN r.isCorrect = true THEN 1 ELSE 0 END) AS correct, MAX(r.createdAt) AS lastAnsweredAt"
+            + " FROM QuizResult r WHERE r.learnerId = :learnerId GROUP BY r.topic, r.level")
+    List<TopicLevelTotals> sumByTopicAndLevel(@Param("learnerId") String learnerId);
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.RemoteAnalysisJob;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public interface RemoteAnalysisJobRepository extends JpaRepository<RemoteAnalysisJob, String> {
+
+    List<RemoteAnalysisJob> findByStatus(RemoteAnalysisJob.Status status);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RemoteAnalysisJob j WHERE j.status IN"
+            + " (com.pickle.backend.entity.RemoteAnalysisJob.Status.SUCCEEDED,"
+            + " com.pickle.backend.entity.RemoteAnalysisJob.Status.FAILED) AND j.updatedAt < :cutoff")
+    int deleteFinishedBefore(@Param("cutoff") Timestamp cutoff);
+
+    // Đổi trạng thái nếu job còn ở trạng thái from; trả về 0 khi node khác đã đổi trước
+    @Modifying
+    @Transactional
+    @Query("UPDATE RemoteAnalysisJob j SET j.status = :to, j.updatedAt = :now WHERE j.id = :id AND j.status = :from")
+    int transition(@Param("id") String id, @Param("from") RemoteAnalysisJob.Status from,
+            @Param("to") RemoteAnalysisJob.Status to, @Param("now") Timestamp now);
+
+    // Chỉ ghi lịch poll khi job vẫn đang POLLING, để không ghi đè trạng thái do node khác đặt
+    @Modifying
+    @Transactional
+    @Query("UPDATE RemoteAnalysisJob j SET j.pollCount = :pollCount, j.nextPollAt = :nextPollAt, j.updatedAt = :now"
+            + " WHERE j.id = :id AND j.status = com.pickle.backend.entity.RemoteAnalysisJob.Status.POLLING")
+    int updatePollState(@Param("id") String id, @Param("pollCount") int pollCount,
+            @Param("nextPollAt") Timestamp nextPollAt, @Param("now") Timestamp now);
+
+    // Job bị bỏ dở khi đang hoàn tất (node dừng đột ngột): báo lỗi, không chạy lại để tránh lưu trùng
+    @Modifying
+    @Transactional
+    @Query("UPDATE RemoteAnalysisJob j"
+            + " SET j.status = com.pickle.backend.entity.RemoteAnalysisJob.Status.FAILED, j.message = :message,"
+            + " j.nextPollAt = NULL, j.updatedAt = :now"
+            + " WHERE j.status = com.pickle.backend.entity.RemoteAnalysisJob.Status.COMPLETING"
+            + " AND j.updatedAt < :cutoff")
+    int failStaleCompleting(@Param("cutoff") Timestamp cutoff, @Param("message") String message,
+            @Param("now") Timestamp now);
+}
\ No newline at end of file
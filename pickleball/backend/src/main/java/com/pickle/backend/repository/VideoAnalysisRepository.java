@@ -1,13 +1,24 @@
 package com.pickle.backend.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import java.util.List;
+import java.util.Optional;
 import com.pickle.backend.entity.VideoAnalysis;
 
 public interface VideoAnalysisRepository extends JpaRepository<VideoAnalysis, String> {
     List<VideoAnalysis> findByUserId(String userId);
 
-    @Query("SELECT v FROM VideoAnalysis v WHERE v.shotAnalysis LIKE %?1%")
-    List<VideoAnalysis> findByShotAnalysisContaining(String shotType);
+    // analysis_result chỉ có khi phân tích thành công (detailed_feedbacks có thể nằm ở feedback_frames)
+    Optional<VideoAnalysis> findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc(String contentHash);
+
+    @Query("SELECT v FROM VideoAnalysis v WHERE v.videoId IN "
+            + "(SELECT s.videoId FROM VideoAnalysisShot s WHERE s.shotType = ?1)")
+    List<VideoAnalysis> findByShotType(String shotType);
+
+    // skill_level luôn được ghi cùng average_score, nên NULL nghĩa là chưa tách điểm từ analysis_result
+    @Query("SELECT v.videoId FROM VideoAnalysis v WHERE v.skillLevel IS NULL AND v.analysisResult IS NOT NULL"
+            + " AND v.videoId > ?1 ORDER BY v.videoId")
+    List<String> findUnscoredVideoIds(String afterVideoId, Pageable pageable);
 }
\ No newline at end of file
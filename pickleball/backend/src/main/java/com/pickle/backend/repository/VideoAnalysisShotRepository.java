@@ -0,0 +1,22 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.VideoAnalysisShot;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface VideoAnalysisShotRepository extends JpaRepository<VideoAnalysisShot, Long> {
+
+    @Modifying
+    @Query("DELETE FROM VideoAnalysisShot s WHERE s.videoId = :videoId")
+    int deleteByVideoId(@Param("videoId") String videoId);
+
+    // Các bản phân tích cũ chưa được đánh index cú đánh (dùng cho backfill)
+    @Query("SELECT v.videoId FROM VideoAnalysis v WHERE v.shotsIndexed IS NULL AND v.videoId > :afterVideoId"
+            + " AND v.shotAnalysis IS NOT NULL ORDER BY v.videoId")
+    List<String> findUnindexedVideoIds(@Param("afterVideoId") String afterVideoId, Pageable pageable);
+}
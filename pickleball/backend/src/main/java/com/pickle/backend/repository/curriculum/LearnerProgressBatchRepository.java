@@ -0,0 +1,52 @@
+package com.pickle.backend.repository.curriculum;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ghi nhiều cập nhật tiến độ bằng một JDBC batch với cùng câu upsert của
+ * LearnerProgressRepository (MySQL gộp thành một INSERT nhiều dòng nhờ
+ * rewriteBatchedStatements).
+ */
+@Repository
+public class LearnerProgressBatchRepository {
+
+    public record ProgressUpdate(String learnerId, UUID lessonId, Boolean isCompleted,
+            Integer watchedDurationSeconds, LocalDateTime watchedAt) {
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void upsertAll(List<ProgressUpdate> updates) {
+        SqlParameterSource[] batch = new SqlParameterSource[updates.size()];
+        for (int i = 0; i < updates.size(); i++) {
+            ProgressUpdate update = updates.get(i);
+            batch[i] = new MapSqlParameterSource()
+                    .addValue("learnerId", update.learnerId(), Types.VARCHAR)
+                    .addValue("lessonId", toBytes(update.lessonId()), Types.BINARY)
+                    .addValue("isCompleted", update.isCompleted(), Types.BOOLEAN)
+                    .addValue("watchedDurationSeconds", update.watchedDurationSeconds(), Types.INTEGER)
+                    .addValue("now", Timestamp.valueOf(update.watchedAt()), Types.TIMESTAMP);
+        }
+        jdbcTemplate.batchUpdate(LearnerProgressRepository.UPSERT_SQL, batch);
+    }
+
+    // Hibernate lưu UUID trên MySQL dạng binary(16), big-endian
+    private static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+}
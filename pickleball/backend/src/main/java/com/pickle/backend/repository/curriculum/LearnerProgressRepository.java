@@ -3,14 +3,16 @@ package com.pickle.backend.repository.curriculum;
 import com.pickle.backend.entity.curriculum.LearnerProgress;
 
 import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
-
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -27,15 +29,39 @@ public interface LearnerProgressRepository extends JpaRepository<LearnerProgress
 
     boolean existsByLearnerIdAndLessonId(String learnerId, UUID lessonId);
 
-    @Query("SELECT lp.id FROM LearnerProgress lp WHERE lp.lesson.id = :lessonId AND lp.learnerId = :learnerId")
+    @Query("SELECT MAX(lp.id) FROM LearnerProgress lp WHERE lp.lesson.id = :lessonId AND lp.learnerId = :learnerId")
     Long findIdByLessonIdAndLearnerId(@Param("lessonId") UUID lessonId, @Param("learnerId") String learnerId);
 
-    @Query("SELECT lp.id FROM LearnerProgress lp WHERE lp.lesson.id = :lessonId AND lp.learnerId = :learnerId")
-    List<Long> findIdsByLessonIdAndLearnerId(@Param("lessonId") UUID lessonId, @Param("learnerId") String learnerId);
+    // Trước khi unique key (learner_id, lesson_id) được thêm có thể còn dòng trùng: lấy dòng mới nhất
+    @EntityGraph(attributePaths = "lesson")
+    Optional<LearnerProgress> findFirstByLearnerIdAndLessonIdOrderByIdDesc(String learnerId, UUID lessonId);
+
+    /**
+     * Tạo hoặc cập nhật tiến độ của learner cho bài học trong một câu lệnh, dựa trên
+     * unique key (learner_id, lesson_id). Đã hoàn thành thì giữ hoàn thành; thời
+     * lượng đã xem chỉ bị ghi đè bởi báo cáo không cũ hơn last_watched_at (báo cáo
+     * ghi trễ từ ProgressHeartbeatBuffer không làm lùi giá trị); tham số null giữ
+     * nguyên giá trị cũ. Dùng chung cho LearnerProgressBatchRepository.
+     */
+    String UPSERT_SQL = "INSERT INTO learner_progress (learner_id, lesson_id, is_completed,"
+            + " watched_duration_seconds, last_watched_at, created_at, updated_at)"
+            + " VALUES (:learnerId, :lessonId, COALESCE(:isCompleted, FALSE), :watchedDurationSeconds, :now, :now, :now)"
+            + " ON DUPLICATE KEY UPDATE"
+            + " is_completed = CASE WHEN :isCompleted = TRUE THEN TRUE ELSE is_completed END,"
+            // Phải đứng trước phép gán last_watched_at vì MySQL dùng giá trị vừa gán
+            + " watched_duration_seconds = CASE WHEN :watchedDurationSeconds IS NOT NULL"
+            + " AND (last_watched_at IS NULL OR last_watched_at <= :now)"
+            + " THEN :watchedDurationSeconds ELSE watched_duration_seconds END,"
+            + " last_watched_at = CASE WHEN last_watched_at IS NULL OR last_watched_at < :now"
+            + " THEN :now ELSE last_watched_at END,"
+            + " updated_at = :now";
 
     @Modifying
-    @Query("DELETE FROM LearnerProgress lp WHERE lp.id IN :ids")
-    void deleteByIds(@Param("ids") List<Long> ids);
+    @Transactional
+    @Query(value = UPSERT_SQL, nativeQuery = true)
+    int upsert(@Param("learnerId") String learnerId, @Param("lessonId") UUID lessonId,
+            @Param("isCompleted") Boolean isCompleted,
+            @Param("watchedDurationSeconds") Integer watchedDurationSeconds, @Param("now") LocalDateTime now);
 
     @Query("SELECT lp.isCompleted FROM LearnerProgress lp WHERE lp.id = :idProgress")
     Boolean checkCompleted(@Param("idProgress") Long idProgress);
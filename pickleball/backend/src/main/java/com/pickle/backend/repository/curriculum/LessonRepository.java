@@ -4,9 +4,13 @@ import com.pickle.backend.entity.curriculum.Lesson;
 import com.pickle.backend.entity.curriculum.Lesson.LevelRequired;
 import com.pickle.backend.entity.curriculum.Lesson.SkillType;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,4 +27,36 @@ public interface LessonRepository extends JpaRepository<Lesson, UUID> {
 
     // Thêm method để tìm bài học theo level và sắp xếp theo order
     List<Lesson> findByLevelOrderByOrderInCourse(LevelRequired levelRequired);
+
+    // Nạp nhiều bài học trong một truy vấn, kèm course/module để bản trong LessonCache dùng được ngoài session
+    @EntityGraph(attributePaths = { "course", "module" })
+    List<Lesson> findWithCourseByIdIn(Collection<UUID> ids);
+
+    // Các cột dùng để xếp thứ tự bài học trong CurriculumGraph, không đọc contentText
+    interface OutlineRow {
+        UUID getId();
+
+        Long getCourseId();
+
+        LevelRequired getLevel();
+
+        SkillType getSkillType();
+
+        Integer getOrderInCourse();
+
+        Integer getOrderInModule();
+    }
+
+    @Query("SELECT l.id AS id, l.course.id AS courseId, l.level AS level, l.skillType AS skillType,"
+            + " l.orderInCourse AS orderInCourse, l.orderInModule AS orderInModule FROM Lesson l")
+    List<OutlineRow> findOutline();
+
+    @Query("SELECT l.id AS id, l.course.id AS courseId, l.level AS level, l.skillType AS skillType,"
+            + " l.orderInCourse AS orderInCourse, l.orderInModule AS orderInModule FROM Lesson l"
+            + " WHERE l.course.id = :courseId")
+    List<OutlineRow> findOutlineByCourseId(@Param("courseId") Long courseId);
+
+    // Các cặp (courseId, skillType) khác nhau, dùng để dựng CourseSkillIndex
+    @Query("SELECT DISTINCT l.course.id, l.skillType FROM Lesson l WHERE l.skillType IS NOT NULL")
+    List<Object[]> findCourseSkillPairs();
 }
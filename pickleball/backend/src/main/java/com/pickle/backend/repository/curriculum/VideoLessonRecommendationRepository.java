@@ -2,6 +2,8 @@ package com.pickle.backend.repository.curriculum;
 
 import com.pickle.backend.entity.curriculum.VideoLessonRecommendation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,7 @@ public interface VideoLessonRecommendationRepository extends JpaRepository<Video
     Optional<VideoLessonRecommendation> findByUserId(String userId);
     List<VideoLessonRecommendation> findByUserIdOrderByCreatedAtDesc(String userId);
     Optional<VideoLessonRecommendation> findFirstByUserIdOrderByCreatedAtDesc(String userId);
+
+    @Query("SELECT l FROM VideoLessonRecommendation r JOIN r.lessonIds l WHERE r.id = :id ORDER BY INDEX(l)")
+    List<UUID> findLessonIds(@Param("id") UUID recommendationId);
 }
@@ -0,0 +1,256 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.exception.AnalysisOverloadedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn số request upload video phân tích chạy cùng lúc trên một node. Request
+ * vượt giới hạn phải xếp hàng; hàng đợi chia lượt round-robin theo người dùng nên
+ * một người gửi nhiều video không chặn người khác. Hàng đợi đầy, người dùng đã
+ * có quá nhiều request đang chờ, hoặc chờ quá lâu thì bị từ chối kèm vị trí và
+ * thời gian nên thử lại.
+ */
+@Service
+public class AnalysisAdmissionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisAdmissionQueue.class);
+    // Trọng số trung bình trượt của thời gian xử lý một request
+    private static final double HOLD_TIME_WEIGHT = 0.2;
+
+    @Value("${analysis.admission.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${analysis.admission.max-queued:20}")
+    private int maxQueued;
+
+    @Value("${analysis.admission.max-queued-per-user:2}")
+    private int maxQueuedPerUser;
+
+    @Value("${analysis.admission.max-wait:30s}")
+    private Duration maxWait;
+
+    @Value("${analysis.admission.initial-hold-estimate:30s}")
+    private Duration initialHoldEstimate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Object lock = new Object();
+    // Hàng đợi của từng người dùng, theo thứ tự lượt round-robin
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> waiting = new LinkedHashMap<>();
+    private int running;
+    private int queued;
+    private double averageHoldMillis;
+
+    private Timer waitTimer;
+
+    @PostConstruct
+    void init() {
+        averageHoldMillis = initialHoldEstimate.toMillis();
+        Gauge.builder("analysis.admission.queued", this, queue -> queue.snapshot()[1])
+                .description("Số request upload đang chờ trong hàng đợi")
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.running", this, queue -> queue.snapshot()[0])
+                .description("Số request upload đang được xử lý")
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.limit", this, queue -> queue.maxConcurrent)
+                .register(meterRegistry);
+        Gauge.builder("analysis.admission.estimated.wait", this, queue -> queue.estimatedWaitSeconds())
+                .description("Thời gian chờ ước tính cho request mới (giây)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("analysis.admission.wait")
+                .description("Thời gian request chờ trong hàng đợi trước khi được xử lý")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Chờ tới lượt xử lý. Permit trả về phải được đóng khi request kết thúc.
+     *
+     * @throws AnalysisOverloadedException nếu không được nhận vào hàng đợi hoặc
+     *                                     chờ quá max-wait
+     */
+    public Permit acquire(String userKey) {
+        long start = System.nanoTime();
+        synchronized (lock) {
+            if (running < maxConcurrent && queued == 0) {
+                running++;
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return new Permit();
+            }
+            ArrayDeque<Ticket> userQueue = waiting.get(userKey);
+            int userQueued = userQueue != null ? userQueue.size() : 0;
+            if (queued >= maxQueued) {
+                throw reject("queue_full", positionOf(userKey, userQueued));
+            }
+            if (userQueued >= maxQueuedPerUser) {
+                throw reject("user_limit", positionOf(userKey, userQueued));
+            }
+            Ticket ticket = new Ticket();
+            waiting.computeIfAbsent(userKey, key -> new ArrayDeque<>()).addLast(ticket);
+            queued++;
+
+            long deadline = start + maxWait.toNanos();
+            while (!ticket.granted) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    int position = positionOf(userKey, indexOf(userKey, ticket));
+                    remove(userKey, ticket);
+                    throw reject("timeout", position);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (ticket.granted) {
+                        break;
+                    }
+                    remove(userKey, ticket);
+                    throw reject("interrupted", 0);
+                }
+            }
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return new Permit();
+    }
+
+    private void release(long heldMillis) {
+        synchronized (lock) {
+            running--;
+            averageHoldMillis += HOLD_TIME_WEIGHT * (heldMillis - averageHoldMillis);
+            boolean granted = false;
+            while (running < maxConcurrent && !waiting.isEmpty()) {
+                Iterator<Map.Entry<String, ArrayDeque<Ticket>>> first = waiting.entrySet().iterator();
+                Map.Entry<String, ArrayDeque<Ticket>> entry = first.next();
+                first.remove();
+                Ticket ticket = entry.getValue().pollFirst();
+                // Người dùng còn request chờ thì xuống cuối lượt
+                if (!entry.getValue().isEmpty()) {
+                    waiting.put(entry.getKey(), entry.getValue());
+                }
+                queued--;
+                running++;
+                ticket.granted = true;
+                granted = true;
+            }
+            if (granted) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Vị trí (tính từ 1) của request thứ index của người dùng khi chia lượt
+     * round-robin: đứng sau mọi request có lượt nhỏ hơn, và sau các người dùng
+     * đứng trước trong vòng có cùng lượt. Người dùng chưa có request chờ thì
+     * đứng cuối vòng.
+     */
+    private int positionOf(String userKey, int index) {
+        int ahead = 0;
+        boolean beforeUser = true;
+        for (Map.Entry<String, ArrayDeque<Ticket>> entry : waiting.entrySet()) {
+            int size = entry.getValue().size();
+            if (entry.getKey().equals(userKey)) {
+                beforeUser = false;
+                ahead += Math.min(size, index);
+                continue;
+            }
+            ahead += Math.min(size, index);
+            if (beforeUser && size > index) {
+                ahead++;
+            }
+        }
+        return ahead + 1;
+    }
+
+    private int indexOf(String userKey, Ticket ticket) {
+        int index = 0;
+        for (Ticket queuedTicket : waiting.getOrDefault(userKey, new ArrayDeque<>())) {
+            if (queuedTicket == ticket) {
+                return index;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private void remove(String userKey, Ticket ticket) {
+        ArrayDeque<Ticket> userQueue = waiting.get(userKey);
+        if (userQueue != null && userQueue.remove(ticket)) {
+            queued--;
+            if (userQueue.isEmpty()) {
+                waiting.remove(userKey);
+            }
+        }
+    }
+
+    private AnalysisOverloadedException reject(String reason, int position) {
+        meterRegistry.counter("analysis.admission.rejected", "reason", reason).increment();
+        long retryAfter = retryAfterSeconds(position);
+        logger.warn("Rejected analysis upload ({}), queue position {}, retry after {}s", reason, position,
+                retryAfter);
+        return new AnalysisOverloadedException("Hệ thống đang xử lý nhiều video, vui lòng thử lại sau "
+                + retryAfter + " giây", position, retryAfter);
+    }
+
+    // Ước tính: số vòng xử lý cần chờ nhân thời gian xử lý trung bình
+    private long retryAfterSeconds(int position) {
+        double rounds = Math.ceil((double) Math.max(position, 1) / Math.max(maxConcurrent, 1));
+        return Math.max(1, (long) Math.ceil(rounds * averageHoldMillis / 1000));
+    }
+
+    private double estimatedWaitSeconds() {
+        synchronized (lock) {
+            if (running < maxConcurrent && queued == 0) {
+                return 0;
+            }
+            return retryAfterSeconds(queued + 1);
+        }
+    }
+
+    private int[] snapshot() {
+        synchronized (lock) {
+            return new int[] { running, queued };
+        }
+    }
+
+    private static class Ticket {
+        private boolean granted;
+    }
+
+    /**
+     * Lượt xử lý đã được cấp; close() trả lượt cho request kế tiếp. Gọi close()
+     * nhiều lần chỉ có tác dụng lần đầu.
+     */
+    public class Permit implements AutoCloseable {
+        private final long grantedAt = System.nanoTime();
+        private boolean closed;
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+            }
+            release(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - grantedAt));
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.AnalysisJobDTO;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.exception.AnalysisQueueFullException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Chạy phân tích video trên pool worker giới hạn thay vì giữ thread của request.
+ * POST trả về jobId ngay, client poll trạng thái hoặc subscribe qua SSE.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    public enum JobStatus {
+        PENDING, RUNNING, SUCCEEDED, FAILED
+    }
+
+    @Autowired
+    private FullAnalysisService fullAnalysisService;
+
+    @Autowired
+    private RemoteAnalysisTracker remoteAnalysisTracker;
+
+    @Autowired
+    @Qualifier("analysisExecutor")
+    private ThreadPoolTaskExecutor analysisExecutor;
+
+    @Value("${analysis.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    @Value("${analysis.jobs.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Lưu file tạm trên thread của request (file multipart sẽ bị xóa khi request kết
+     * thúc), sau đó đưa phân tích vào hàng đợi worker.
+     */
+    public AnalysisJobDTO submit(String userId, MultipartFile video) throws IOException {
+        StagedVideo stagedVideo = fullAnalysisService.stageVideo(video);
+
+        AnalysisJob job = new AnalysisJob(UUID.randomUUID().toString(), userId);
+        jobs.put(job.jobId, job);
+        try {
+            analysisExecutor.execute(() -> runJob(job, stagedVideo));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.jobId);
+            deleteQuietly(stagedVideo);
+            logger.warn("Analysis queue full, rejecting job for user {}", userId);
+            throw new AnalysisQueueFullException("Hệ thống đang quá tải, vui lòng thử lại sau");
+        }
+        logger.info("Queued analysis job {} for user {}", job.jobId, userId);
+        return job.toDTO();
+    }
+
+    // Job không còn trong bộ nhớ (vd sau khi khởi động lại) thì tra bảng remote_analysis_jobs
+    public Optional<AnalysisJobDTO> getJob(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        return job != null ? Optional.of(job.toDTO()) : remoteAnalysisTracker.findJob(jobId);
+    }
+
+    /**
+     * Đăng ký nhận kết quả qua Server-Sent Events. Gửi trạng thái hiện tại ngay
+     * lập tức và đóng stream khi job kết thúc.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null) {
+            Optional<AnalysisJobDTO> tracked = remoteAnalysisTracker.findJob(jobId);
+            if (tracked.isEmpty()) {
+                return Optional.empty();
+            }
+            AnalysisJob rebuilt = new AnalysisJob(tracked.get());
+            job = jobs.computeIfAbsent(jobId, id -> rebuilt);
+            if (job == rebuilt && !isFinished(rebuilt.status.name())) {
+                // Event kết thúc có thể đã phát giữa findJob và lúc thêm vào map: đọc lại trạng thái đã lưu
+                remoteAnalysisTracker.findJob(jobId)
+                        .filter(latest -> isFinished(latest.getStatus()))
+                        .ifPresent(latest -> rebuilt.update(JobStatus.valueOf(latest.getStatus()),
+                                latest.getMessage(), latest.getResult()));
+            }
+        }
+        AnalysisJob subscribed = job;
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> subscribed.emitters.remove(emitter));
+        emitter.onTimeout(() -> subscribed.emitters.remove(emitter));
+        emitter.onError(e -> subscribed.emitters.remove(emitter));
+        subscribed.emitters.add(emitter);
+
+        // Job có thể đã kết thúc giữa lúc add và lúc gửi; send() đảm bảo không bỏ sót
+        send(emitter, subscribed.toDTO());
+        return Optional.of(emitter);
+    }
+
+    private void runJob(AnalysisJob job, StagedVideo stagedVideo) {
+        job.update(JobStatus.RUNNING, "Đang phân tích video", null);
+        publish(job);
+        try {
+            Map<String, Object> response = fullAnalysisService.analyzeStaged(job.userId, stagedVideo, job.jobId);
+            if (response.get("jobId") != null && response.get("result") == null) {
+                // Dịch vụ vision xử lý bất đồng bộ; RemoteAnalysisTracker báo kết quả qua event
+                return;
+            }
+            Object result = response.get("result");
+            String message = String.valueOf(response.getOrDefault("message", ""));
+            job.update(result != null ? JobStatus.SUCCEEDED : JobStatus.FAILED, message, result);
+        } catch (Exception e) {
+            logger.error("Analysis job {} failed: {}", job.jobId, e.getMessage(), e);
+            deleteQuietly(stagedVideo);
+            job.update(JobStatus.FAILED, "Phân tích video không thành công: " + e.getMessage(), null);
+        }
+        publish(job);
+    }
+
+    @EventListener
+    public void onRemoteAnalysisFinished(RemoteAnalysisFinishedEvent event) {
+        AnalysisJob job = jobs.get(event.jobId());
+        if (job == null) {
+            return;
+        }
+        job.update(JobStatus.valueOf(event.status()), event.message(), event.result());
+        publish(job);
+    }
+
+    private void publish(AnalysisJob job) {
+        AnalysisJobDTO snapshot = job.toDTO();
+        for (SseEmitter emitter : job.emitters) {
+            send(emitter, snapshot);
+        }
+    }
+
+    private void send(SseEmitter emitter, AnalysisJobDTO snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(snapshot));
+            if (isFinished(snapshot.getStatus())) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static boolean isFinished(String status) {
+        return JobStatus.SUCCEEDED.name().equals(status) || JobStatus.FAILED.name().equals(status);
+    }
+
+    /**
+     * Bỏ các job đã kết thúc quá thời gian giữ. Job dựng lại từ bảng
+     * remote_analysis_jobs cũng được bỏ khi không còn ai subscribe, vì trạng thái
+     * thật vẫn đọc được qua RemoteAnalysisTracker.
+     */
+    @Scheduled(fixedDelayString = "${analysis.jobs.cleanup-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.updatedAt.isBefore(cutoff)
+                && (isFinished(job.status.name()) || job.tracked && job.emitters.isEmpty()));
+    }
+
+    private void deleteQuietly(StagedVideo stagedVideo) {
+        try {
+            Files.deleteIfExists(stagedVideo.path());
+        } catch (IOException e) {
+            logger.warn("Could not delete temp video {}: {}", stagedVideo.path(), e.getMessage());
+        }
+    }
+
+    private static class AnalysisJob {
+        private final String jobId;
+        private final String userId;
+        private final LocalDateTime createdAt;
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        // Dựng lại từ RemoteAnalysisTracker, bảng remote_analysis_jobs là nguồn chính
+        private final boolean tracked;
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile String message = "Đang chờ xử lý";
+        private volatile Object result;
+        private volatile LocalDateTime updatedAt;
+
+        AnalysisJob(String jobId, String userId) {
+            this.jobId = jobId;
+            this.userId = userId;
+            this.createdAt = LocalDateTime.now();
+            this.updatedAt = createdAt;
+            this.tracked = false;
+        }
+
+        // Dựng lại từ job đã lưu của RemoteAnalysisTracker
+        AnalysisJob(AnalysisJobDTO snapshot) {
+            this.jobId = snapshot.getJobId();
+            this.userId = snapshot.getUserId();
+            this.createdAt = snapshot.getCreatedAt();
+            this.status = JobStatus.valueOf(snapshot.getStatus());
+            this.message = snapshot.getMessage();
+            this.result = snapshot.getResult();
+            this.updatedAt = snapshot.getUpdatedAt();
+            this.tracked = true;
+        }
+
+        synchronized void update(JobStatus status, String message, Object result) {
+            this.status = status;
+            this.message = message;
+            this.result = result;
+            this.updatedAt = LocalDateTime.now();
+        }
+
+        synchronized AnalysisJobDTO toDTO() {
+            return new AnalysisJobDTO(jobId, userId, status.name(), message, result, createdAt, updatedAt);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
+import com.pickle.backend.dto.analysis.PerformanceMetrics;
+import com.pickle.backend.dto.analysis.ShotAnalysis;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.util.FeedbackFrameCodec;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Đọc response của Python API bằng Jackson streaming parser. detailed_feedbacks
+ * được đọc từng khung hình một, các trường cần thiết được lấy ra ngay thành
+ * FeedbackFrame, chỉ phần còn lại của khung hình được dựng thành cây; các phần
+ * không dùng đến được bỏ qua mà không dựng cây JSON.
+ */
+@Component
+public class AnalysisResponseParser {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AnalysisResponse parse(InputStream body) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    public AnalysisResponse parse(String json) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Dựng lại AnalysisResponse từ các cột đã lưu của VideoAnalysis. Khung hình
+     * lấy từ feedback_frames nếu có, nếu không thì đọc JSON cũ.
+     */
+    public AnalysisResponse fromStored(VideoAnalysis stored) throws IOException {
+        List<FeedbackFrame> frames;
+        if (stored.getFeedbackFrames() != null) {
+            frames = FeedbackFrameCodec.decode(stored.getFeedbackFrames());
+        } else {
+            try (JsonParser parser = objectMapper.getFactory().createParser(stored.getLegacyDetailedFeedbacks())) {
+                parser.nextToken();
+                frames = readFrames(parser);
+            }
+        }
+        JsonNode result = objectMapper.readTree(stored.getAnalysisResult());
+        return new AnalysisResponse(
+                frames,
+                result.get("techniqueAnalysis"),
+                toShotAnalysis(objectMapper.readTree(stored.getShotAnalysis())),
+                toPerformanceMetrics(result.get("performanceMetrics")),
+                null, null, null, null);
+    }
+
+    /**
+     * Chuyển kết quả job của dịch vụ vision (GET /status/{job_id}, trường "result")
+     * về AnalysisResponse. Dịch vụ này không chấm điểm nên mỗi cú đánh phát hiện
+     * được là một khung hình không có điểm, averageScore để null (skill level và mô
+     * hình kỹ năng của learner giữ nguyên), và cú yếu là các cú được nhắc tới trong
+     * danh sách lỗi.
+     */
+    public AnalysisResponse fromVisionJobResult(JsonNode result) {
+        if (result == null || !result.isObject()) {
+            return new AnalysisResponse(null, null, null, null, null, null, "Kết quả phân tích rỗng", null);
+        }
+        if ("error".equals(result.path("status").asText())) {
+            return new AnalysisResponse(null, null, null, null, null, null,
+                    result.path("message").asText("Phân tích video không thành công"), null);
+        }
+        JsonNode details = result.path("details");
+        JsonNode goodPoints = details.path("good_points");
+        JsonNode errors = details.path("errors");
+
+        List<FeedbackFrame> frames = new ArrayList<>();
+        ArrayNode detectedShots = objectMapper.createArrayNode();
+        List<String> weakestShots = new ArrayList<>();
+        for (JsonNode shot : details.path("detected_shots")) {
+            String type = shot.path("type").asText("").toLowerCase(Locale.ROOT);
+            if (type.isEmpty()) {
+                continue;
+            }
+            ObjectNode shotNode = ((ObjectNode) shot).deepCopy();
+            shotNode.remove(FeedbackFrame.TYPE);
+            ObjectNode residual = objectMapper.createObjectNode();
+            residual.set(FeedbackFrame.SHOT, shotNode);
+            Long timestamp = shot.path("time").isNumber() ? Math.round(shot.path("time").doubleValue() * 1000)
+                    : null;
+            frames.add(FeedbackFrame.of(timestamp, null, null, null, type, residual));
+            detectedShots.add(type);
+            if (!weakestShots.contains(type) && mentionedInErrors(type, errors)) {
+                weakestShots.add(type);
+            }
+        }
+
+        ObjectNode techniqueAnalysis = objectMapper.createObjectNode();
+        techniqueAnalysis.set("goodPoints", goodPoints.isArray() ? goodPoints : objectMapper.createArrayNode());
+        techniqueAnalysis.set("errors", errors.isArray() ? errors : objectMapper.createArrayNode());
+        techniqueAnalysis.put("videoUrl", result.path("video_url").asText(null));
+        if (result.has("recommended_courses")) {
+            techniqueAnalysis.set("recommendedCourses", result.get("recommended_courses"));
+        }
+
+        ObjectNode shotAnalysis = objectMapper.createObjectNode();
+        shotAnalysis.set("detectedShots", detectedShots);
+        ArrayNode weakest = shotAnalysis.putArray("weakestShots");
+        weakestShots.forEach(weakest::add);
+
+        // good_points/errors là các nhận xét dạng chữ, không phải điểm nên không quy ra averageScore
+        ObjectNode performanceMetrics = objectMapper.createObjectNode();
+        performanceMetrics.putNull("averageScore");
+        performanceMetrics.put("frameCount", details.path("frame_count").asInt(0));
+
+        return new AnalysisResponse(frames, techniqueAnalysis, new ShotAnalysis(weakestShots, shotAnalysis),
+                new PerformanceMetrics(null, performanceMetrics), null, null, null, null);
+    }
+
+    private static boolean mentionedInErrors(String shotType, JsonNode errors) {
+        String needle = shotType.replace('_', ' ');
+        for (JsonNode error : errors) {
+            String text = (error.path("title").asText("") + " " + error.path("description").asText(""))
+                    .toLowerCase(Locale.ROOT);
+            if (text.contains(shotType) || text.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AnalysisResponse parse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        List<FeedbackFrame> frames = null;
+        JsonNode techniqueAnalysis = null;
+        ShotAnalysis shotAnalysis = null;
+        PerformanceMetrics performanceMetrics = null;
+        String skillLevel = null;
+        Double averageScore = null;
+        String error = null;
+        String jobId = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.VALUE_NULL) {
+                // Có khóa "error" dù rỗng vẫn được coi là video không hợp lệ
+                if ("error".equals(field)) {
+                    error = "";
+                }
+                continue;
+            }
+            switch (field) {
+                case "detailed_feedbacks" -> frames = readFrames(parser);
+                case "techniqueAnalysis" -> techniqueAnalysis = parser.readValueAsTree();
+                case "shotAnalysis" -> shotAnalysis = toShotAnalysis(parser.readValueAsTree());
+                case "performanceMetrics" -> performanceMetrics = toPerformanceMetrics(parser.readValueAsTree());
+                case "skill_level" -> skillLevel = parser.getValueAsString();
+                case "average_score" -> averageScore = value.isNumeric() ? parser.getDoubleValue() : null;
+                case "error" -> error = value.isScalarValue() ? parser.getValueAsString()
+                        : parser.readValueAsTree().toString();
+                case "job_id" -> jobId = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        return new AnalysisResponse(frames, techniqueAnalysis, shotAnalysis, performanceMetrics, skillLevel,
+                averageScore, error, jobId);
+    }
+
+    // Parser đang đứng ở START_ARRAY; đọc lần lượt từng khung hình
+    private List<FeedbackFrame> readFrames(JsonParser parser) throws IOException {
+        List<FeedbackFrame> frames = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return frames;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+            if (token == JsonToken.START_OBJECT) {
+                frames.add(readFrame(parser));
+            } else {
+                // Phần tử không phải khung hình (null, số, mảng...): bỏ qua và đọc tiếp
+                parser.skipChildren();
+            }
+        }
+        return frames;
+    }
+
+    // Parser đang đứng ở START_OBJECT của một khung hình. Các trường của FeedbackFrame
+    // được đọc thẳng từ token; chỉ phần còn lại được dựng thành cây cho residual
+    private FeedbackFrame readFrame(JsonParser parser) throws IOException {
+        ObjectNode residual = objectMapper.createObjectNode();
+        Long timestamp = null;
+        Integer overallScore = null;
+        String gripType = null;
+        String balanceStatus = null;
+        String shotType = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case FeedbackFrame.TIMESTAMP -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT
+                            && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+                        timestamp = parser.getLongValue();
+                    } else {
+                        residual.set(field, parser.readValueAsTree());
+                    }
+                }
+                case FeedbackFrame.OVERALL_SCORE -> {
+                    if (value == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT
+                            && parser.getIntValue() >= 0) {
+                        overallScore = parser.getIntValue();
+                    } else {
+                        residual.set(field, parser.readValueAsTree());
+                    }
+                }
+                case FeedbackFrame.GRIP -> gripType = readNestedText(parser, residual, field, FeedbackFrame.TYPE);
+                case FeedbackFrame.BALANCE -> balanceStatus = readNestedText(parser, residual, field,
+                        FeedbackFrame.STATUS);
+                case FeedbackFrame.SHOT -> shotType = readNestedText(parser, residual, field, FeedbackFrame.TYPE);
+                default -> residual.set(field, parser.readValueAsTree());
+            }
+        }
+        return FeedbackFrame.of(timestamp, overallScore, gripType, balanceStatus, shotType, residual);
+    }
+
+    // Đọc object con (grip/balance/shot): trường chuỗi cần dùng được tách ra, phần
+    // còn lại giữ trong residual
+    private static String readNestedText(JsonParser parser, ObjectNode residual, String object, String field)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            residual.set(object, parser.readValueAsTree());
+            return null;
+        }
+        ObjectNode nested = residual.putObject(object);
+        String text = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && name.equals(field)) {
+                text = parser.getText();
+            } else {
+                nested.set(name, parser.readValueAsTree());
+            }
+        }
+        return text;
+    }
+
+    private ShotAnalysis toShotAnalysis(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            return null;
+        }
+        JsonNode shots = node.has("weakestShots") ? node.get("weakestShots") : node.get("weakest_shots");
+        List<String> weakestShots = new ArrayList<>();
+        if (shots != null && shots.isArray()) {
+            shots.forEach(shot -> weakestShots.add(shot.asText()));
+        }
+        return new ShotAnalysis(weakestShots, (ObjectNode) node);
+    }
+
+    private PerformanceMetrics toPerformanceMetrics(JsonNode node) {
+        if (node == null || !node.isObject()) {
+            return null;
+        }
+        JsonNode averageScore = node.get("averageScore");
+        return new PerformanceMetrics(averageScore != null && averageScore.isNumber() ? averageScore.doubleValue()
+                : null, (ObjectNode) node);
+    }
+
+}
@@ -1,44 +1,59 @@
 package com.pickle.backend.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
 import com.pickle.backend.entity.Learner;
+import com.pickle.backend.entity.LearnerSkillModel;
 import com.pickle.backend.entity.User;
 import com.pickle.backend.entity.VideoAnalysis;
 import com.pickle.backend.entity.curriculum.Course;
 import com.pickle.backend.entity.curriculum.Lesson;
 import com.pickle.backend.entity.curriculum.VideoLessonRecommendation;
-import com.pickle.backend.repository.curriculum.CourseRepository;
 import com.pickle.backend.repository.curriculum.LessonRepository;
 import com.pickle.backend.repository.curriculum.VideoLessonRecommendationRepository;
 import com.pickle.backend.repository.VideoAnalysisRepository;
+import com.pickle.backend.service.curriculum.CourseSkillIndex;
 import com.pickle.backend.service.curriculum.CurriculumService;
+import com.pickle.backend.storage.VideoStore;
+import com.pickle.backend.util.FeedbackFrameCodec;
+import com.pickle.backend.util.StreamingMultipartBody;
+import com.pickle.backend.util.VideoFileUtil;
+import com.pickle.backend.repository.LearnerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.StreamingHttpOutputMessage;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Timestamp;
 import java.util.stream.Collectors;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.ArrayList;
 import java.util.UUID;
 
@@ -52,13 +67,14 @@ public class FullAnalysisService {
     private EntityManager entityManager;
 
     @Autowired
-    private RestTemplate restTemplate;
+    @Qualifier("visionClient")
+    private DownstreamClient visionClient;
 
     @Autowired
     private VideoAnalysisRepository videoAnalysisRepository;
 
     @Autowired
-    private CourseRepository courseRepository;
+    private CourseSkillIndex courseSkillIndex;
 
     @Autowired
     private LessonRepository lessonRepository;
@@ -72,10 +88,153 @@ public class FullAnalysisService {
     @Autowired
     private CurriculumService curriculumService;
 
+    @Autowired
+    private LearnerRepository learnerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AnalysisResponseParser analysisResponseParser;
+
+    @Autowired
+    private VideoAnalysisShotIndexer shotIndexer;
+
+    @Autowired
+    private VideoStore videoStore;
+
+    @Autowired
+    private SkillModelService skillModelService;
+
+    // RemoteAnalysisTracker gọi lại completeAnalysis nên inject lazy để tránh vòng phụ thuộc
+    @Autowired
+    @Lazy
+    private RemoteAnalysisTracker remoteAnalysisTracker;
+
+    @Value("${video.analysis.dedup.enabled:true}")
+    private boolean dedupEnabled;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    @Transactional
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initTransactionTemplates() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     public Map<String, Object> analyze(String userId, MultipartFile video) throws IOException {
+        if (video == null) {
+            return analyzeStaged(userId, null);
+        }
+        StagedVideo stagedVideo;
+        try {
+            stagedVideo = stageVideo(video);
+        } catch (Exception e) {
+            logger.error("Error staging video for user {}: {}", userId, e.getMessage(), e);
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Phân tích video không thành công: " + e.getMessage());
+            response.put("result", null);
+            return response;
+        }
+        return analyzeStaged(userId, stagedVideo);
+    }
+
+    /**
+     * Kiểm tra và lưu video upload vào vùng tạm của VideoStore, đồng thời tính kích thước và
+     * SHA-256 theo từng chunk. Tách riêng để job bất đồng bộ có thể giữ file sau
+     * khi request kết thúc.
+     */
+    public StagedVideo stageVideo(MultipartFile video) throws IOException {
+        validateVideo(video);
+        Path tempPath = saveVideoFileToTemp(video);
+        try {
+            String sha256 = VideoFileUtil.sha256(tempPath, MAX_FILE_SIZE);
+            return new StagedVideo(tempPath, video.getOriginalFilename(), video.getContentType(),
+                    Files.size(tempPath), sha256);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+
+    public Map<String, Object> analyzeStaged(String userId, StagedVideo stagedVideo) throws IOException {
+        return analyzeStaged(userId, stagedVideo, null);
+    }
+
+    /**
+     * Phân tích video đã được lưu tạm (hoặc chỉ tạo bản ghi nếu không có video).
+     * Chia thành các pha ngắn để không giữ kết nối DB trong lúc gọi Python API:
+     * đọc/kiểm tra learner, gọi API không có transaction, đọc khóa học trong
+     * transaction chỉ đọc, rồi ghi kết quả trong một transaction ngắn.
+     *
+     * Nếu dịch vụ vision nhận video và trả về job_id (xử lý bất đồng bộ), job được
+     * giao cho RemoteAnalysisTracker theo dõi; response khi đó có "jobId" và
+     * result = null, kết quả được hoàn tất sau qua completeAnalysis.
+     *
+     * @param jobId mã job phía backend dùng cho job theo dõi, null để tự sinh
+     */
+    public Map<String, Object> analyzeStaged(String userId, StagedVideo stagedVideo, String jobId)
+            throws IOException {
+        // Pha 1: đọc/kiểm tra learner, chưa ghi gì
+        Learner existingLearner = learnerRepository.findById(userId).orElse(null);
+        Learner learner = existingLearner != null ? existingLearner : prepareNewLearner(userId);
+        boolean isNewLearner = existingLearner == null;
+
+        if (stagedVideo == null) {
+            return completeAnalysis(userId, null, null, null, learner, isNewLearner);
+        }
+        VideoAnalysis previous;
+        AnalysisResponse analysisResponse;
+        try {
+            // Video đã từng được phân tích (cùng hash) thì dùng lại kết quả cũ
+            previous = findPreviousAnalysis(stagedVideo.sha256());
+            if (previous != null) {
+                analysisResponse = toAnalysisResponse(previous);
+            } else {
+                // Pha 2: gọi Python API, không giữ transaction hay kết nối DB
+                analysisResponse = callEnhancedAnalysisAPI(stagedVideo, userId);
+            }
+            if (previous == null && isPendingRemoteJob(analysisResponse)) {
+                String trackedJobId = remoteAnalysisTracker.track(jobId, userId, stagedVideo,
+                        analysisResponse.jobId());
+                Map<String, Object> response = new HashMap<>();
+                response.put("message", "Video đang được phân tích");
+                response.put("result", null);
+                response.put("jobId", trackedJobId);
+                return response;
+            }
+        } catch (Exception e) {
+            return analysisFailed(e, stagedVideo.path().toFile());
+        }
+        return completeAnalysis(userId, stagedVideo, analysisResponse, previous, learner, isNewLearner);
+    }
+
+    /**
+     * Hoàn tất phân tích khi đã có kết quả của dịch vụ vision (dùng bởi
+     * RemoteAnalysisTracker sau khi job phía Python xong).
+     */
+    public Map<String, Object> completeAnalysis(String userId, StagedVideo stagedVideo,
+            AnalysisResponse analysisResponse) throws IOException {
+        Learner existingLearner = learnerRepository.findById(userId).orElse(null);
+        Learner learner = existingLearner != null ? existingLearner : prepareNewLearner(userId);
+        return completeAnalysis(userId, stagedVideo, analysisResponse, null, learner, existingLearner == null);
+    }
+
+    // Response chỉ có job_id (chưa có kết quả): dịch vụ đang xử lý bất đồng bộ
+    private static boolean isPendingRemoteJob(AnalysisResponse analysisResponse) {
+        return analysisResponse != null && analysisResponse.jobId() != null
+                && analysisResponse.detailedFeedbacks() == null && analysisResponse.error() == null;
+    }
+
+    private Map<String, Object> completeAnalysis(String userId, StagedVideo stagedVideo,
+            AnalysisResponse analysisResponse, VideoAnalysis previous, Learner learner, boolean isNewLearner) {
         Map<String, Object> response = new HashMap<>();
         VideoAnalysis analysis = new VideoAnalysis();
         UUID videoId = UUID.randomUUID();
@@ -83,77 +242,127 @@ public class FullAnalysisService {
         analysis.setUserId(userId);
         analysis.setCreatedAt(new Timestamp(System.currentTimeMillis()));
 
-        Learner learner = findOrCreateLearner(userId);
-
-        File tempFile = null;
-        String tempVideoPath = null;
+        File tempFile = stagedVideo != null ? stagedVideo.path().toFile() : null;
         String finalVideoPath = null;
-        Map<String, Object> analysisResponse = null;
         try {
-            if (video != null) {
-                validateVideo(video);
-                // 1. Lưu file tạm vào TempUploads
-                tempVideoPath = saveVideoFileToDir(video, "TempUploads");
-                tempFile = new File(tempVideoPath);
-
-                // 2. Gọi Python API kiểm tra hợp lệ
-                analysisResponse = callEnhancedAnalysisAPI(tempVideoPath, userId);
-                if (analysisResponse == null || analysisResponse.containsKey("error")) {
+            ProcessedAnalysis processed = null;
+            if (tempFile != null) {
+                analysis.setContentHash(stagedVideo.sha256());
+                if (analysisResponse == null || analysisResponse.error() != null) {
                     // Xóa file tạm nếu không hợp lệ
                     if (tempFile.exists())
                         tempFile.delete();
-                    String errMsg = analysisResponse != null && analysisResponse.get("error") != null
-                            ? analysisResponse.get("error").toString()
+                    String errMsg = analysisResponse != null && !analysisResponse.error().isEmpty()
+                            ? analysisResponse.error()
                             : "Video không hợp lệ";
                     response.put("message", errMsg);
                     response.put("result", null);
                     return response;
                 }
-                // 3. Nếu hợp lệ, chuyển file sang Uploads
-                finalVideoPath = moveTempToUploads(tempFile, video.getOriginalFilename());
+                // 3. Nếu hợp lệ, chuyển file vào kho video (bản trùng thì dùng lại file cũ)
+                if (previous != null && previous.getVideoPath() != null
+                        && videoStore.exists(previous.getVideoPath())) {
+                    Files.deleteIfExists(stagedVideo.path());
+                    videoStore.touch(previous.getVideoPath());
+                    finalVideoPath = previous.getVideoPath();
+                } else {
+                    finalVideoPath = videoStore.store(stagedVideo.path(), stagedVideo.originalFilename());
+                }
                 analysis.setVideoPath(finalVideoPath);
-                processEnhancedAnalysisResponse(analysis, analysisResponse, learner);
-            }
 
-            entityManager.persist(analysis);
-            Map<String, Object> result = buildAnalysisResult(analysis, learner);
+                // Đọc khóa học/bài học cho đề xuất trong transaction chỉ đọc ngắn
+                AnalysisResponse responseBody = analysisResponse;
+                processed = readOnlyTransaction.execute(status -> {
+                    try {
+                        return processEnhancedAnalysisResponse(analysis, responseBody, learner,
+                                previous != null && userId.equals(previous.getUserId()));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
 
-            // Lưu bài học đề xuất dựa trên kết quả phân tích
-            if (video != null) {
-                saveVideoLessonRecommendations(userId, analysisResponse, analysis.getVideoId());
+            // Pha 3: transaction ghi ngắn cho learner, VideoAnalysis và bài học đề xuất
+            VideoLessonRecommendation recommendationToSave = processed != null
+                    ? processed.lessonRecommendation()
+                    : null;
+            AnalysisResponse shotSource = processed != null ? analysisResponse : null;
+            Map<String, Double> skillObservations = processed != null ? processed.skillObservations() : Map.of();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (isNewLearner) {
+                    learner.setUser(entityManager.getReference(User.class, userId));
+                    entityManager.persist(learner);
+                } else if (tempFile != null) {
+                    learnerRepository.updateSkillLevel(userId, learner.getSkillLevel());
+                }
+                entityManager.persist(analysis);
+                if (shotSource != null) {
+                    shotIndexer.index(analysis,
+                            shotSource.detailedFeedbacks().stream().map(FeedbackFrame::shotType).toList(),
+                            shotSource.shotAnalysis().weakestShots());
+                }
+                if (recommendationToSave != null) {
+                    videoLessonRecommendationRepository.save(recommendationToSave);
+                }
+                if (!skillObservations.isEmpty()) {
+                    skillModelService.record(userId, skillObservations);
+                }
+            });
+            if (recommendationToSave != null) {
+                logger.info("Đã lưu bài học đề xuất cho user {} dựa trên phân tích video", userId);
             }
 
+            Map<String, Object> result = buildAnalysisResult(analysisResponse, processed, learner);
+
             response.put("message", "Phân tích thành công");
             response.put("result", result);
             return response;
         } catch (Exception e) {
-            logger.error("Error in analyze method: {}", e.getMessage(), e);
-            // Xóa file tạm nếu có lỗi
-            if (tempFile != null && tempFile.exists())
-                tempFile.delete();
-            response.put("message", "Phân tích video không thành công: " + e.getMessage());
-            response.put("result", null);
-            return response;
+            return analysisFailed(e, tempFile);
         }
     }
 
-    private Learner findOrCreateLearner(String userId) throws IOException {
-        Learner learner = entityManager.find(Learner.class, userId);
-        if (learner == null) {
-            logger.debug("Creating new Learner with userId: {}", userId);
-            learner = new Learner();
-            learner.setUserId(userId);
-
-            // Tải User từ userId
-            User user = userService.getUserById(userId)
-                    .orElseThrow(() -> new RuntimeException("User not found with ID: " + userId));
-            learner.setUser(user); // Gán User
-
-            learner.setSkillLevel("Beginner");
-            learner.setGoals(objectMapper.writeValueAsString(List.of("Improve technique")));
-            learner.setProgress("0%");
-            entityManager.persist(learner);
+    private Map<String, Object> analysisFailed(Exception e, File tempFile) {
+        logger.error("Error in analyze method: {}", e.getMessage(), e);
+        // Xóa file tạm nếu có lỗi
+        if (tempFile != null && tempFile.exists())
+            tempFile.delete();
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Phân tích video không thành công: " + e.getMessage());
+        response.put("result", null);
+        return response;
+    }
+
+    private VideoAnalysis findPreviousAnalysis(String contentHash) {
+        if (!dedupEnabled || contentHash == null) {
+            return null;
+        }
+        VideoAnalysis previous = videoAnalysisRepository
+                .findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc(contentHash)
+                .orElse(null);
+        meterRegistry.counter("video.analysis.dedup", "result", previous != null ? "hit" : "miss").increment();
+        if (previous != null) {
+            logger.info("Reusing analysis {} for video hash {}", previous.getVideoId(), contentHash);
         }
+        return previous;
+    }
+
+    // Dựng lại response của Python API từ các cột JSON đã lưu của lần phân tích trước
+    private AnalysisResponse toAnalysisResponse(VideoAnalysis previous) throws IOException {
+        return analysisResponseParser.fromStored(previous);
+    }
+
+    private Learner prepareNewLearner(String userId) throws IOException {
+        // Kiểm tra User tồn tại trước khi mở transaction ghi
+        if (userService.getUserById(userId).isEmpty()) {
+            throw new RuntimeException("User not found with ID: " + userId);
+        }
+        logger.debug("Creating new Learner with userId: {}", userId);
+        Learner learner = new Learner();
+        learner.setUserId(userId);
+        learner.setSkillLevel("Beginner");
+        learner.setGoals(objectMapper.writeValueAsString(List.of("Improve technique")));
+        learner.setProgress("0%");
         return learner;
     }
 
@@ -168,125 +377,123 @@ public class FullAnalysisService {
         }
     }
 
-    // Lưu file vào thư mục chỉ định (TempUploads hoặc Uploads)
-    private String saveVideoFileToDir(MultipartFile video, String dirName) throws IOException {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String filename = timestamp + "_" + video.getOriginalFilename();
-        String videoPath = dirName + "/" + filename;
-        String fullVideoPath = videoPath;
-
-        File videoFile = new File(fullVideoPath);
-        File directory = videoFile.getParentFile();
-        if (!directory.exists() && !directory.mkdirs()) {
-            throw new IOException("Failed to create directory: " + directory.getAbsolutePath());
-        }
-        video.transferTo(videoFile);
-        if (!videoFile.exists() || !videoFile.canRead()) {
-            throw new IOException("Video file not accessible: " + fullVideoPath);
+    // Lưu file vào vùng tạm. Đường dẫn tuyệt đối để servlet container rename file
+    // part thay vì copy lại dữ liệu.
+    private Path saveVideoFileToTemp(MultipartFile video) throws IOException {
+        Path videoPath = videoStore.createTempFile(video.getOriginalFilename());
+        video.transferTo(videoPath.toFile());
+        if (!Files.isReadable(videoPath)) {
+            throw new IOException("Video file not accessible: " + videoPath);
         }
         return videoPath;
     }
 
-    // Di chuyển file từ TempUploads sang Uploads
-    private String moveTempToUploads(File tempFile, String originalFilename) throws IOException {
-        String timestamp = String.valueOf(System.currentTimeMillis());
-        String filename = timestamp + "_" + originalFilename;
-        String uploadsPath = "Uploads/" + filename;
-        String fullUploadsPath = uploadsPath;
-        File uploadsFile = new File(fullUploadsPath);
-        File uploadsDir = uploadsFile.getParentFile();
-        if (!uploadsDir.exists() && !uploadsDir.mkdirs()) {
-            throw new IOException("Failed to create uploads directory: " + uploadsDir.getAbsolutePath());
-        }
-        if (!tempFile.renameTo(uploadsFile)) {
-            throw new IOException("Failed to move file to uploads");
-        }
-        return uploadsPath;
-    }
-
     @Value("${video.analysis.api.url}")
     private String videoAnalysisApiUrl;
 
-    private Map<String, Object> callEnhancedAnalysisAPI(String videoPath, String userId) { // Thay learnerId thành
-                                                                                           // userId
-        MultiValueMap<String, Object> request = new LinkedMultiValueMap<>();
-        request.add("video",
-                new FileSystemResource(new File(videoPath)));
-        request.add("userId", userId); // Thay learnerId thành userId
-        request.add("analysisType", "enhanced");
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        HttpEntity<MultiValueMap<String, Object>> entity = new HttpEntity<>(request, headers);
-
-        logger.debug("Sending enhanced analysis request to Python API");
-        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
-                videoAnalysisApiUrl,
-                HttpMethod.POST,
-                entity,
-                new ParameterizedTypeReference<Map<String, Object>>() {
-                });
+    // Tên field chứa file trong multipart gửi tới dịch vụ vision ("file" với /analyze)
+    @Value("${video.analysis.api.file-field:video}")
+    private String videoFileField;
+
+    // Gửi video tới Python API theo kiểu streaming: file được ghi từ FileChannel ra
+    // kết nối HTTP theo từng chunk, không nạp toàn bộ video vào heap. Response cũng
+    // được đọc trực tiếp từ stream thành AnalysisResponse.
+    private AnalysisResponse callEnhancedAnalysisAPI(StagedVideo video, String userId) throws IOException {
+        StreamingMultipartBody body = new StreamingMultipartBody(videoFileField, video.path(),
+                video.originalFilename(), video.contentType())
+                .field("userId", userId)
+                .field("analysisType", "enhanced");
+        long contentLength = body.getContentLength();
+
+        RequestCallback requestCallback = request -> {
+            request.getHeaders().setContentType(body.getContentType());
+            request.getHeaders().setContentLength(contentLength);
+            request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+            if (request instanceof StreamingHttpOutputMessage streamingRequest) {
+                streamingRequest.setBody(body);
+            } else {
+                body.writeTo(request.getBody());
+            }
+        };
+
+        logger.debug("Streaming {} bytes to enhanced analysis API", video.size());
+        ResponseExtractor<AnalysisResponse> responseExtractor = response -> analysisResponseParser
+                .parse(response.getBody());
+        // Upload video không idempotent nên không retry
+        return visionClient.execute("analyze", false,
+                rest -> rest.execute(videoAnalysisApiUrl, HttpMethod.POST, requestCallback, responseExtractor));
+    }
 
-        return response.getBody();
+    // Kết quả xử lý response, dùng lại khi dựng kết quả trả về để không phải đọc lại JSON đã lưu
+    private record ProcessedAnalysis(List<Map<String, String>> recommendations, String summary,
+            VideoLessonRecommendation lessonRecommendation, Map<String, Double> skillObservations) {
     }
 
-    @SuppressWarnings("unchecked")
-    private void processEnhancedAnalysisResponse(VideoAnalysis analysis, Map<String, Object> responseBody,
-            Learner learner)
+    private ProcessedAnalysis processEnhancedAnalysisResponse(VideoAnalysis analysis, AnalysisResponse responseBody,
+            Learner learner, boolean reused)
             throws IOException {
 
         if (responseBody == null) {
             throw new RuntimeException("Empty response from enhanced analysis API");
         }
-
-        // Xử lý detailed feedbacks
-        List<Map<String, Object>> detailedFeedbacks = (List<Map<String, Object>>) responseBody
-                .get("detailed_feedbacks");
-        if (detailedFeedbacks == null) {
+        if (responseBody.detailedFeedbacks() == null) {
             throw new RuntimeException("Missing detailed_feedbacks in response");
         }
-
-        // Xử lý technique analysis
-        Map<String, Object> techniqueAnalysis = (Map<String, Object>) responseBody.get("techniqueAnalysis");
-        if (techniqueAnalysis == null) {
+        if (responseBody.techniqueAnalysis() == null) {
             throw new RuntimeException("Missing techniqueAnalysis in response");
         }
-
-        // Xử lý shot analysis
-        Map<String, Object> shotAnalysis = (Map<String, Object>) responseBody.get("shotAnalysis");
-        if (shotAnalysis == null) {
+        if (responseBody.shotAnalysis() == null) {
             throw new RuntimeException("Missing shotAnalysis in response");
         }
-
-        // Xử lý performance metrics
-        Map<String, Object> performanceMetrics = (Map<String, Object>) responseBody.get("performanceMetrics");
-        if (performanceMetrics == null) {
+        if (responseBody.performanceMetrics() == null) {
             throw new RuntimeException("Missing performanceMetrics in response");
         }
 
-        // Xác định skill level từ average score
-        Double averageScore = (Double) performanceMetrics.get("averageScore");
+        // Skill level của video từ average score; skill level của learner từ mô hình
+        // kỹ năng trượt sau khi áp video này (mô hình được ghi trong transaction ghi)
+        Double averageScore = responseBody.performanceMetrics().averageScore();
         String skillLevel = mapScoreToSkillLevel(averageScore);
+        // Video trùng của chính learner này đã được tính vào mô hình ở lần phân tích trước
+        Map<String, Double> skillObservations = reused ? Map.of() : skillModelService.observationsFrom(responseBody);
+        Map<String, LearnerSkillModel> skillModel = skillModelService.preview(analysis.getUserId(),
+                skillObservations);
+        LearnerSkillModel overall = skillModel.get(LearnerSkillModel.OVERALL);
+        String learnerSkillLevel = overall != null ? mapScoreToSkillLevel(overall.getScore()) : skillLevel;
+        if (overall == null && averageScore == null && learner.getSkillLevel() != null) {
+            // Không có điểm nào (vd kết quả từ dịch vụ vision): giữ nguyên skill level của learner
+            learnerSkillLevel = learner.getSkillLevel();
+        }
+
+        // Cú yếu của video này trước, sau đó các kỹ năng yếu lâu dài theo mô hình
+        Set<String> weakestShots = new LinkedHashSet<>(responseBody.shotAnalysis().weakestShots());
+        weakestShots.addAll(SkillModelService.weakestSkills(skillModel, 3));
 
         // Tạo recommendations từ bảng courses
         List<Map<String, String>> recommendations = generateEnhancedRecommendations(
-                detailedFeedbacks, shotAnalysis, skillLevel);
+                responseBody.detailedFeedbacks(), new ArrayList<>(weakestShots), learnerSkillLevel);
 
-        // Cập nhật learner skill level
-        learner.setSkillLevel(skillLevel);
-        entityManager.merge(learner);
+        // Cập nhật learner skill level (được ghi trong transaction ghi)
+        learner.setSkillLevel(learnerSkillLevel);
 
         // Lưu vào database
-        analysis.setDetailedFeedbacks(objectMapper.writeValueAsString(detailedFeedbacks));
-        analysis.setShotAnalysis(objectMapper.writeValueAsString(shotAnalysis));
+        String summary = generateAnalysisSummary(averageScore, responseBody.detailedFeedbacks().size());
+        analysis.setFeedbackFrames(FeedbackFrameCodec.encode(responseBody.detailedFeedbacks()));
+        analysis.setShotAnalysis(objectMapper.writeValueAsString(responseBody.shotAnalysis().raw()));
         analysis.setAnalysisResult(objectMapper.writeValueAsString(Map.of(
-                "techniqueAnalysis", techniqueAnalysis,
-                "performanceMetrics", performanceMetrics,
-                "summary", generateAnalysisSummary(averageScore, detailedFeedbacks.size()))));
+                "techniqueAnalysis", responseBody.techniqueAnalysis(),
+                "performanceMetrics", responseBody.performanceMetrics().raw(),
+                "summary", summary)));
         analysis.setRecommendations(objectMapper.writeValueAsString(recommendations));
+        analysis.setAverageScore(averageScore);
+        analysis.setSkillLevel(skillLevel);
+
+        VideoLessonRecommendation lessonRecommendation = buildVideoLessonRecommendation(
+                analysis.getUserId(), responseBody, analysis.getVideoId(), learnerSkillLevel,
+                new ArrayList<>(weakestShots));
+        return new ProcessedAnalysis(recommendations, summary, lessonRecommendation, skillObservations);
     }
 
-    private String mapScoreToSkillLevel(Double averageScore) {
+    static String mapScoreToSkillLevel(Double averageScore) {
         if (averageScore == null)
             return "Intermediate";
         if (averageScore >= 80)
@@ -298,122 +505,88 @@ public class FullAnalysisService {
     }
 
     private List<Map<String, String>> generateEnhancedRecommendations(
-            List<Map<String, Object>> detailedFeedbacks,
-            Map<String, Object> shotAnalysis,
+            List<FeedbackFrame> detailedFeedbacks,
+            List<String> weakestShots,
             String userLevel) {
 
-        List<Map<String, String>> recommendations = new ArrayList<>();
+        // Giữ thứ tự ưu tiên, loại trùng theo tiêu đề khóa học trong O(1)
+        Map<String, Map<String, String>> recommendations = new LinkedHashMap<>();
         Course.LevelRequired levelRequired = mapSkillLevelToLevelRequired(userLevel);
 
         // Phân tích lỗi phổ biến từ detailed feedbacks
         Map<String, Long> commonIssues = analyzeCommonIssues(detailedFeedbacks);
-
-        // Truy vấn tất cả khóa học phù hợp với level
-        List<Course> courses = courseRepository.findByLevelRequired(levelRequired);
-        logger.debug("Found {} courses for level {}, issues: {}", courses.size(), levelRequired, commonIssues.keySet());
+        logger.debug("Recommending courses for level {}, issues: {}", levelRequired, commonIssues.keySet());
 
         // Sắp xếp các vấn đề theo tần suất để ưu tiên recommendations
         List<Map.Entry<String, Long>> sortedIssues = commonIssues.entrySet().stream()
                 .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
                 .collect(Collectors.toList());
 
-        // Lọc khóa học dựa trên vấn đề kỹ thuật (nếu có lessons liên kết)
+        // Lọc khóa học dựa trên vấn đề kỹ thuật qua chỉ mục (level, skill) trong bộ nhớ
         for (Map.Entry<String, Long> issue : sortedIssues) {
             if (issue.getValue() >= 1) { // Xem xét mọi vấn đề, kể cả xuất hiện 1 lần
                 Lesson.SkillType skillType = mapIssueToSkillType(issue.getKey());
                 if (skillType != null) {
-                    List<Course> matchingCourses = courses.stream()
-                            .filter(course -> course.getLessons().stream()
-                                    .anyMatch(lesson -> lesson.getSkillType() == skillType))
-                            .collect(Collectors.toList());
-                    recommendations.addAll(matchingCourses.stream()
-                            .map(course -> Map.of(
-                                    "title", course.getTitle(),
-                                    "description",
-                                    course.getDescription() != null ? course.getDescription()
-                                            : "Khóa học cải thiện kỹ năng " + userLevel.toLowerCase(),
-                                    "url",
-                                    course.getCourseUrl() != null ? course.getCourseUrl()
-                                            : (course.getThumbnailUrl() != null ? course.getThumbnailUrl() : "")))
-                            .collect(Collectors.toList()));
+                    for (CourseSkillIndex.CourseSummary course : courseSkillIndex
+                            .coursesForLevelAndSkill(levelRequired, skillType)) {
+                        recommendations.putIfAbsent(course.title(), toRecommendation(course,
+                                "Khóa học cải thiện kỹ năng " + userLevel.toLowerCase()));
+                    }
                 }
             }
         }
 
         // Đề xuất từ shot analysis
-        if (shotAnalysis.containsKey("weakestShots")) {
-            List<String> weakestShots = (List<String>) shotAnalysis.get("weakestShots");
+        if (weakestShots != null) {
             for (String shot : weakestShots) {
                 Lesson.SkillType skillType = mapShotToSkillType(shot);
                 if (skillType != null) {
-                    List<Course> matchingCourses = courses.stream()
-                            .filter(course -> course.getLessons().stream()
-                                    .anyMatch(lesson -> lesson.getSkillType() == skillType))
-                            .collect(Collectors.toList());
-                    recommendations.addAll(matchingCourses.stream()
-                            .map(course -> Map.of(
-                                    "title", course.getTitle(),
-                                    "description",
-                                    course.getDescription() != null ? course.getDescription()
-                                            : "Khóa học cải thiện cú " + shot,
-                                    "url",
-                                    course.getCourseUrl() != null ? course.getCourseUrl()
-                                            : (course.getThumbnailUrl() != null ? course.getThumbnailUrl() : "")))
-                            .collect(Collectors.toList()));
+                    for (CourseSkillIndex.CourseSummary course : courseSkillIndex
+                            .coursesForLevelAndSkill(levelRequired, skillType)) {
+                        recommendations.putIfAbsent(course.title(),
+                                toRecommendation(course, "Khóa học cải thiện cú " + shot));
+                    }
                 }
             }
         }
 
         // Thêm tất cả khóa học phù hợp với levelRequired
-        recommendations.addAll(courses.stream()
-                .filter(course -> !recommendations.stream()
-                        .anyMatch(rec -> rec.get("title").equals(course.getTitle())))
-                .map(course -> Map.of(
-                        "title", course.getTitle(),
-                        "description",
-                        course.getDescription() != null ? course.getDescription()
-                                : "Khóa học nâng cao kỹ năng " + userLevel.toLowerCase(),
-                        "url",
-                        course.getCourseUrl() != null ? course.getCourseUrl()
-                                : (course.getThumbnailUrl() != null ? course.getThumbnailUrl() : "")))
-                .collect(Collectors.toList()));
+        for (CourseSkillIndex.CourseSummary course : courseSkillIndex.coursesForLevel(levelRequired)) {
+            recommendations.putIfAbsent(course.title(),
+                    toRecommendation(course, "Khóa học nâng cao kỹ năng " + userLevel.toLowerCase()));
+        }
 
-        // Loại bỏ trùng lặp, trả về tất cả recommendations
-        return recommendations.stream()
-                .distinct()
-                .collect(Collectors.toList());
+        return new ArrayList<>(recommendations.values());
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Long> analyzeCommonIssues(List<Map<String, Object>> detailedFeedbacks) {
+    private Map<String, String> toRecommendation(CourseSkillIndex.CourseSummary course, String defaultDescription) {
+        return Map.of(
+                "title", course.title(),
+                "description", course.description() != null ? course.description() : defaultDescription,
+                "url", course.courseUrl() != null ? course.courseUrl()
+                        : (course.thumbnailUrl() != null ? course.thumbnailUrl() : ""));
+    }
+
+    private Map<String, Long> analyzeCommonIssues(List<FeedbackFrame> detailedFeedbacks) {
         Map<String, Long> issueCount = new HashMap<>();
 
-        for (Map<String, Object> feedback : detailedFeedbacks) {
-            Map<String, Object> grip = (Map<String, Object>) feedback.get("grip");
-            if (grip != null && !grip.get("type").equals("eastern_grip")) {
+        for (FeedbackFrame feedback : detailedFeedbacks) {
+            if (feedback.gripType() != null && !feedback.gripType().equals("eastern_grip")) {
                 issueCount.merge("grip_issue", 1L, Long::sum);
             }
 
-            Map<String, Object> balance = (Map<String, Object>) feedback.get("balance");
-            if (balance != null && (balance.get("status").equals("unstable")
-                    || balance.get("status").equals("slightly_unstable"))) {
+            String balanceStatus = feedback.balanceStatus();
+            if ("unstable".equals(balanceStatus) || "slightly_unstable".equals(balanceStatus)) {
                 issueCount.merge("balance_issue", 1L, Long::sum);
             }
 
-            Map<String, Object> shot = (Map<String, Object>) feedback.get("shot");
-            if (shot != null) {
-                String shotType = (String) shot.get("type");
-                if (!shotType.equals("unknown")) {
-                    issueCount.merge(shotType + "_issue", 1L, Long::sum);
-                }
+            String shotType = feedback.shotType();
+            if (shotType != null && !shotType.equals("unknown")) {
+                issueCount.merge(shotType + "_issue", 1L, Long::sum);
             }
 
-            Object scoreObj = feedback.get("overall_score");
-            if (scoreObj instanceof Number) {
-                int score = ((Number) scoreObj).intValue();
-                if (score < 50) {
-                    issueCount.merge("low_technique_score", 1L, Long::sum);
-                }
+            if (feedback.overallScore() != null && feedback.overallScore() < 50) {
+                issueCount.merge("low_technique_score", 1L, Long::sum);
             }
         }
 
@@ -454,6 +627,9 @@ public class FullAnalysisService {
     }
 
     private String generateAnalysisSummary(Double averageScore, int totalFrames) {
+        if (averageScore == null) {
+            return String.format("Phân tích %d khung hình, chưa đủ dữ liệu để chấm điểm.", totalFrames);
+        }
         return String.format("Phân tích %d khung hình với điểm trung bình %.1f/100. %s",
                 totalFrames,
                 averageScore,
@@ -462,64 +638,45 @@ public class FullAnalysisService {
                                 : "Nên tập trung vào các kỹ năng cơ bản.");
     }
 
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> buildAnalysisResult(VideoAnalysis analysis, Learner learner) throws IOException {
+    // Dựng kết quả trả về từ response đã parse, không đọc lại các cột JSON vừa ghi
+    private Map<String, Object> buildAnalysisResult(AnalysisResponse analysisResponse, ProcessedAnalysis processed,
+            Learner learner) {
+        if (analysisResponse == null || processed == null) {
+            throw new IllegalArgumentException("Không có dữ liệu phân tích video");
+        }
         Map<String, Object> learningPath = new HashMap<>();
 
-        // Lấy dữ liệu từ analysis
-        List<Map<String, Object>> detailedFeedbacks = objectMapper.readValue(
-                analysis.getDetailedFeedbacks(), new TypeReference<List<Map<String, Object>>>() {
-                });
-
-        Map<String, Object> shotAnalysis = objectMapper.readValue(
-                analysis.getShotAnalysis(), new TypeReference<Map<String, Object>>() {
-                });
-
-        Map<String, Object> analysisResult = objectMapper.readValue(
-                analysis.getAnalysisResult(), new TypeReference<Map<String, Object>>() {
-                });
-
-        List<Map<String, String>> recommendations = objectMapper.readValue(
-                analysis.getRecommendations(), new TypeReference<List<Map<String, String>>>() {
-                });
-
-        // Lấy averageScore từ performanceMetrics
-        Map<String, Object> performanceMetrics = (Map<String, Object>) analysisResult.get("performanceMetrics");
-        Double averageScore = performanceMetrics != null ? (Double) performanceMetrics.get("averageScore") : null;
-
         // Xây dựng learningPath
         learningPath.put("skillLevel", learner.getSkillLevel());
-        learningPath.put("summary", analysisResult.get("summary"));
-        learningPath.put("averageScore", averageScore);
-        learningPath.put("shotAnalysis", shotAnalysis);
-        learningPath.put("detailedFeedbacks", detailedFeedbacks);
-        learningPath.put("recommendations", recommendations);
+        learningPath.put("summary", processed.summary());
+        learningPath.put("averageScore", analysisResponse.performanceMetrics().averageScore());
+        learningPath.put("shotAnalysis", analysisResponse.shotAnalysis().raw());
+        learningPath.put("detailedFeedbacks", analysisResponse.detailedFeedbacks().stream()
+                .map(FeedbackFrame::raw)
+                .collect(Collectors.toList()));
+        learningPath.put("recommendations", processed.recommendations());
 
         return learningPath;
     }
 
     /**
-     * Lưu bài học đề xuất dựa trên kết quả phân tích video
+     * Chuẩn bị bài học đề xuất dựa trên kết quả phân tích video. Chỉ đọc dữ liệu;
+     * bản ghi được lưu trong transaction ghi của analyzeStaged.
      */
-    @SuppressWarnings("unchecked")
-    private void saveVideoLessonRecommendations(String userId, Map<String, Object> analysisResponse,
-            String videoAnalysisId) {
+    private VideoLessonRecommendation buildVideoLessonRecommendation(String userId,
+            AnalysisResponse analysisResponse, String videoAnalysisId, String skillLevel,
+            List<String> weakestShots) {
         try {
             // Lấy thông tin từ kết quả phân tích
-            String skillLevel = (String) analysisResponse.get("skill_level");
-            Double averageScore = (Double) analysisResponse.get("average_score");
-
-            Map<String, Object> shotAnalysis = (Map<String, Object>) analysisResponse.get("shotAnalysis");
-            List<String> weakestShots = shotAnalysis != null ? (List<String>) shotAnalysis.get("weakest_shots")
-                    : new ArrayList<>();
+            Double averageScore = analysisResponse.averageScore() != null ? analysisResponse.averageScore()
+                    : analysisResponse.performanceMetrics().averageScore();
 
             // Lấy bài học đề xuất
             List<Lesson> recommendedLessons = curriculumService.getRecommendedLessonsBasedOnAnalysis(
                     userId, skillLevel, weakestShots);
 
-            // Chuyển đổi thành JSON strings
-            List<String> lessonIds = recommendedLessons.stream()
-                    .map(lesson -> lesson.getId().toString())
+            List<UUID> lessonIds = recommendedLessons.stream()
+                    .map(Lesson::getId)
                     .collect(Collectors.toList());
 
             // Tạo hoặc cập nhật VideoLessonRecommendation
@@ -532,15 +689,16 @@ public class FullAnalysisService {
             recommendation.setSkillLevel(skillLevel);
             recommendation.setAverageScore(averageScore);
             recommendation.setWeakestShots(objectMapper.writeValueAsString(weakestShots));
-            recommendation.setRecommendedLessonIds(objectMapper.writeValueAsString(lessonIds));
-
-            videoLessonRecommendationRepository.save(recommendation);
+            recommendation.setLessonIds(lessonIds);
+            recommendation.setRecommendedLessonIds(null);
 
-            logger.info("Đã lưu {} bài học đề xuất cho user {} dựa trên phân tích video",
+            logger.info("Đã chuẩn bị {} bài học đề xuất cho user {} dựa trên phân tích video",
                     recommendedLessons.size(), userId);
+            return recommendation;
 
         } catch (Exception e) {
-            logger.error("Lỗi khi lưu bài học đề xuất cho user {}: {}", userId, e.getMessage(), e);
+            logger.error("Lỗi khi chuẩn bị bài học đề xuất cho user {}: {}", userId, e.getMessage(), e);
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.test.Question;
+import com.pickle.backend.repository.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chọn ngẫu nhiên câu hỏi cho /api/questions/quiz mà không ORDER BY RAND() trên
+ * cả bảng. Danh sách id câu hỏi được giữ trong bộ nhớ (8 byte mỗi câu), chọn
+ * ngẫu nhiên k id trong O(k) rồi lấy câu hỏi cùng đáp án bằng một truy vấn theo
+ * khóa chính. Danh sách id được nạp lại khi câu hỏi được thêm/xóa qua API và
+ * định kỳ để nhận thay đổi từ instance khác.
+ */
+@Service
+public class QuestionSampler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSampler.class);
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private volatile long[] ids;
+
+    /**
+     * Tối đa count câu hỏi khác nhau, ngẫu nhiên, kèm đáp án.
+     */
+    public List<Question> sample(int count) {
+        long[] current = currentIds();
+        if (count <= 0 || current.length == 0) {
+            return List.of();
+        }
+        Set<Long> picked = new LinkedHashSet<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (count >= current.length) {
+            for (long id : current) {
+                picked.add(id);
+            }
+        } else {
+            // Lấy mẫu loại trùng: số lần thử kỳ vọng < 2k khi k <= n/2
+            while (picked.size() < count) {
+                picked.add(current[random.nextInt(current.length)]);
+            }
+        }
+
+        Map<Long, Question> byId = new HashMap<>();
+        for (Question question : questionRepository.findWithOptionsByIdIn(picked)) {
+            byId.put(question.getId(), question);
+        }
+        List<Question> questions = new ArrayList<>(picked.size());
+        for (Long id : picked) {
+            Question question = byId.get(id);
+            // Câu hỏi có thể vừa bị xóa ở instance khác
+            if (question != null) {
+                questions.add(question);
+            }
+        }
+        if (count >= current.length) {
+            Collections.shuffle(questions, random);
+        }
+        return questions;
+    }
+
+    public void invalidate() {
+        ids = null;
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.question-sampler.refresh-interval-ms:600000}",
+            initialDelayString = "${quiz.question-sampler.refresh-interval-ms:600000}")
+    public void refresh() {
+        try {
+            ids = load();
+        } catch (Exception e) {
+            logger.warn("Could not refresh question ids: {}", e.getMessage());
+        }
+    }
+
+    private long[] currentIds() {
+        long[] current = ids;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (ids == null) {
+                ids = load();
+            }
+            return ids;
+        }
+    }
+
+    private long[] load() {
+        List<Long> all = questionRepository.findAllIds();
+        long[] loaded = new long[all.size()];
+        for (int i = 0; i < loaded.length; i++) {
+            loaded[i] = all.get(i);
+        }
+        logger.debug("Loaded {} question ids for random sampling", loaded.length);
+        return loaded;
+    }
+}
@@ -1,24 +1,35 @@
 
 package com.pickle.backend.service;
 
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.entity.LearnerSkillModel;
 import com.pickle.backend.entity.QuizResult;
 import com.pickle.backend.dto.QuizResponseDTO;
 import com.pickle.backend.dto.QuizRequestDTO;
 import com.pickle.backend.dto.QuizQuestionDTO;
 import com.pickle.backend.dto.QuizOptionDTO;
+import com.pickle.backend.dto.AnswerDTO;
+import com.pickle.backend.dto.QuizAttemptDTO;
+import com.pickle.backend.dto.QuizScoreDTO;
+import com.pickle.backend.dto.QuizResultDTO;
+import com.pickle.backend.exception.DownstreamUnavailableException;
+import com.pickle.backend.repository.OptionRepository;
+import com.pickle.backend.repository.QuizResultBatchRepository;
 import com.pickle.backend.repository.QuizResultsRepository;
+import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Service
@@ -29,7 +40,26 @@ public class QuestionService {
     private QuizResultsRepository quizResultsRepository;
 
     @Autowired
-    private RestTemplate restTemplate;
+    private SkillModelService skillModelService;
+
+    @Autowired
+    private QuizStatsService quizStatsService;
+
+    @Autowired
+    private QuizResultBatchRepository quizResultBatchRepository;
+
+    @Autowired
+    private OptionRepository optionRepository;
+
+    @Autowired
+    private QuizCache quizCache;
+
+    @Autowired
+    private QuizPool quizPool;
+
+    @Autowired
+    @Qualifier("quizClient")
+    private DownstreamClient quizClient;
 
     @Value("${ai.service.url}")
     private String aiServiceUrl;
@@ -43,12 +73,9 @@ public class QuestionService {
                 request.getLearnerId(), request.getTopic(), request.getLevel());
 
         try {
-            // 1. Lấy lịch sử từ bảng quiz_results (10 kết quả gần nhất để phân tích tốt hơn)
+            // 1. Lấy 10 kết quả gần nhất từ bảng quiz_results (LIMIT trong truy vấn)
             List<QuizResult> recentResults = quizResultsRepository
-                    .findByLearnerIdOrderByCreatedAtDesc(request.getLearnerId())
-                    .stream()
-                    .limit(10)
-                    .toList();
+                    .findTop10ByLearnerIdOrderByCreatedAtDesc(request.getLearnerId());
 
             logger.info("Found {} quiz results from quiz_results table for learner {}",
                     recentResults.size(), request.getLearnerId());
@@ -56,34 +83,29 @@ public class QuestionService {
             // 2. Chuẩn bị data chi tiết cho AI service
             Map<String, Object> aiRequest = buildAIRequest(request, recentResults);
 
-            // 3. Gọi AI service
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(aiRequest, headers);
-
-            String aiEndpoint = aiServiceUrl + "/generate-quiz";
-            logger.info("Calling AI service at: {} with {} historical results",
-                    aiEndpoint, recentResults.size());
-
-            // Fixed: Proper generic type handling
-            ResponseEntity<Map<String, Object>> response = restTemplate.postForEntity(
-                    aiEndpoint,
-                    entity,
-                    (Class<Map<String, Object>>) (Class<?>) Map.class);
-
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                Map<String, Object> aiResponse = response.getBody();
-
-                // Log thông tin phân tích từ AI
-                logQuizGenerationInfo(aiResponse, request.getLearnerId());
-
-                QuizResponseDTO quizResponse = convertAIResponseToQuizResponseDTO(aiResponse, request);
-                logger.info("Adaptive quiz generated successfully for learnerId: {}", request.getLearnerId());
+            // 3. Ưu tiên quiz sinh sẵn trong kho, chỉ chọn và sắp xếp câu hỏi theo learner
+            Optional<QuizResponseDTO> pooled = quizPool.take(request.getTopic(), request.getLevel(), recentResults);
+            if (pooled.isPresent()) {
+                QuizResponseDTO quizResponse = pooled.get();
+                quizResponse.setLearnerAnalysis(localLearnerAnalysis(aiRequest));
+                logger.info("Served pooled quiz for learnerId: {}", request.getLearnerId());
                 return quizResponse;
-            } else {
-                throw new RuntimeException("AI service returned invalid response");
             }
 
+            // 4. Kho trống: lấy từ cache theo (topic, level, chữ ký điểm yếu), chỉ gọi AI service khi chưa có
+            QuizCache.Key cacheKey = new QuizCache.Key(normalize(request.getTopic()), normalize(request.getLevel()),
+                    weaknessSignature(recentResults));
+            QuizResponseDTO quizResponse = quizCache.get(cacheKey, () -> requestQuiz(request, aiRequest));
+            if (quizResponse.getLearnerAnalysis() == null) {
+                // Quiz lấy từ cache không kèm phân tích của learner khác
+                quizResponse.setLearnerAnalysis(localLearnerAnalysis(aiRequest));
+            }
+            logger.info("Adaptive quiz ready for learnerId: {}", request.getLearnerId());
+            return quizResponse;
+
+        } catch (DownstreamUnavailableException e) {
+            logger.warn("Quiz AI service unavailable for learnerId {}: {}", request.getLearnerId(), e.getMessage());
+            throw e;
         } catch (HttpClientErrorException e) {
             logger.error("HTTP error calling AI service: Status: {}, Body: {}",
                     e.getStatusCode(), e.getResponseBodyAsString());
@@ -94,6 +116,98 @@ public class QuestionService {
         }
     }
 
+    private QuizResponseDTO requestQuiz(QuizRequestDTO request, Map<String, Object> aiRequest) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(aiRequest, headers);
+
+        String aiEndpoint = aiServiceUrl + "/generate-quiz";
+        logger.info("Calling AI service at: {} for learner {}", aiEndpoint, request.getLearnerId());
+
+        // Không retry: mỗi lần sinh quiz có thể chạy tới hết read-timeout, retry sẽ giữ
+        // permit bulkhead qua nhiều lần chờ và backoff. Lỗi được trả về ngay; QuizPoolRefiller
+        // và phần làm mới nền của QuizCache tự thử lại ở lượt sau
+        ResponseEntity<Map<String, Object>> response = quizClient.execute("generate-quiz", false,
+                rest -> rest.postForEntity(
+                        aiEndpoint,
+                        entity,
+                        (Class<Map<String, Object>>) (Class<?>) Map.class));
+
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            Map<String, Object> aiResponse = response.getBody();
+
+            // Log thông tin phân tích từ AI
+            logQuizGenerationInfo(aiResponse, request.getLearnerId());
+
+            QuizResponseDTO quizResponse = convertAIResponseToQuizResponseDTO(aiResponse, request);
+            logger.info("Adaptive quiz generated successfully for learnerId: {}", request.getLearnerId());
+            return quizResponse;
+        } else {
+            throw new RuntimeException("AI service returned invalid response");
+        }
+    }
+
+    /**
+     * Chữ ký điểm yếu từ các kết quả gần nhất: nhóm tỉ lệ đúng (4 mức) và tối đa 3
+     * topic trả lời sai, để các learner có hồ sơ gần giống nhau dùng chung quiz.
+     */
+    static String weaknessSignature(List<QuizResult> recentResults) {
+        if (recentResults.isEmpty()) {
+            return "new";
+        }
+        long correct = recentResults.stream().filter(r -> Boolean.TRUE.equals(r.getIsCorrect())).count();
+        int bucket = (int) Math.min(3, correct * 4 / recentResults.size());
+        String weakTopics = recentResults.stream()
+                .filter(r -> !Boolean.TRUE.equals(r.getIsCorrect()) && r.getTopic() != null)
+                .map(r -> normalize(r.getTopic()))
+                .distinct()
+                .sorted()
+                .limit(3)
+                .reduce((a, b) -> a + "," + b)
+                .orElse("");
+        return "r" + bucket + ":" + weakTopics;
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * Sinh một quiz chung cho (topic, level), không gắn với learner nào. Dùng để
+     * bổ sung kho quiz sinh sẵn.
+     */
+    public QuizResponseDTO generatePoolQuiz(String topic, String level) {
+        QuizRequestDTO request = new QuizRequestDTO();
+        request.setLearnerId("quiz-pool");
+        request.setTopic(topic);
+        request.setLevel(level);
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("total_questions", 0);
+        statistics.put("correct_answers", 0);
+        statistics.put("correct_rate", 0.0);
+        statistics.put("has_history", false);
+
+        Map<String, Object> aiRequest = new HashMap<>();
+        aiRequest.put("learner_id", request.getLearnerId());
+        aiRequest.put("topic", topic);
+        aiRequest.put("level", level);
+        aiRequest.put("last_results", List.of());
+        aiRequest.put("learner_statistics", statistics);
+        return requestQuiz(request, aiRequest);
+    }
+
+    // Phân tích learner dựng từ thống kê cục bộ, cho quiz không do AI sinh riêng cho learner này
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> localLearnerAnalysis(Map<String, Object> aiRequest) {
+        Map<String, Object> statistics = (Map<String, Object>) aiRequest.get("learner_statistics");
+        Map<String, Object> analysis = new HashMap<>();
+        analysis.put("correct_rate", statistics.get("correct_rate"));
+        analysis.put("weak_topics", statistics.get("weak_skills"));
+        analysis.put("cached", true);
+        return analysis;
+    }
+
     private Map<String, Object> buildAIRequest(QuizRequestDTO request, List<QuizResult> recentResults) {
         Map<String, Object> aiRequest = new HashMap<>();
         aiRequest.put("learner_id", request.getLearnerId());
@@ -116,16 +230,24 @@ public class QuestionService {
 
         aiRequest.put("last_results", lastResultsMap);
 
-        // Thêm thống kê tổng quan để AI hiểu rõ hơn về learner
-        long totalQuestions = recentResults.size();
-        long correctAnswers = recentResults.stream().mapToLong(r -> r.getIsCorrect() ? 1 : 0).sum();
-        double correctRate = totalQuestions > 0 ? (double) correctAnswers / totalQuestions : 0.0;
+        // Thống kê tổng quan lấy từ mô hình kỹ năng (cập nhật sau mỗi câu trả lời),
+        // không quét lại toàn bộ lịch sử quiz
+        Map<String, LearnerSkillModel> skillModel = skillModelService.getModel(request.getLearnerId());
+        LearnerSkillModel quiz = skillModel.get(LearnerSkillModel.QUIZ);
+        long totalQuestions = quiz != null ? quiz.getSamples() : recentResults.size();
+        double correctRate = quiz != null ? quiz.getScore() / 100
+                : recentResults.isEmpty() ? 0.0
+                        : recentResults.stream().filter(r -> Boolean.TRUE.equals(r.getIsCorrect())).count()
+                                / (double) recentResults.size();
 
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("total_questions", totalQuestions);
-        statistics.put("correct_answers", correctAnswers);
+        statistics.put("correct_answers", Math.round(correctRate * totalQuestions));
         statistics.put("correct_rate", correctRate);
         statistics.put("has_history", totalQuestions > 0);
+        statistics.put("trend", quiz != null ? quiz.getTrend() / 100 : 0.0);
+        statistics.put("skill_model", SkillModelService.summarize(skillModel));
+        statistics.put("weak_skills", SkillModelService.weakestSkills(skillModel, 3));
 
         aiRequest.put("learner_statistics", statistics);
 
@@ -200,37 +322,82 @@ public class QuestionService {
         return quizResponse;
     }
 
-    // Thêm method để lấy thống kê learner cho dashboard (optional)
-    public Map<String, Object> getLearnerStatistics(String learnerId) {
-        List<QuizResult> allResults = quizResultsRepository.findByLearnerIdOrderByCreatedAtDesc(learnerId);
-
-        long totalQuestions = allResults.size();
-        long correctAnswers = allResults.stream().mapToLong(r -> r.getIsCorrect() ? 1 : 0).sum();
-        double overallCorrectRate = totalQuestions > 0 ? (double) correctAnswers / totalQuestions : 0.0;
-
-        // Phân tích theo topic
-        Map<String, Long> topicStats = new HashMap<>();
-        Map<String, Long> topicCorrectStats = new HashMap<>();
-
-        for (QuizResult result : allResults) {
-            String topic = result.getTopic() != null ? result.getTopic() : "general";
-            topicStats.put(topic, topicStats.getOrDefault(topic, 0L) + 1);
-            if (result.getIsCorrect()) {
-                topicCorrectStats.put(topic, topicCorrectStats.getOrDefault(topic, 0L) + 1);
+    /**
+     * Lưu cả một lượt làm quiz trong một transaction: các dòng quiz_results được
+     * ghi bằng một JDBC batch, mô hình kỹ năng và thống kê quiz của learner được
+     * cập nhật cùng lúc.
+     *
+     * @return số câu trả lời đã lưu
+     */
+    @Transactional
+    public int saveQuizAttempt(QuizAttemptDTO attempt) {
+        // Các câu cách nhau 1µs để thứ tự created_at giữ đúng thứ tự trả lời
+        LocalDateTime answeredAt = LocalDateTime.now();
+        List<QuizResult> results = new ArrayList<>(attempt.getResults().size());
+        for (int i = 0; i < attempt.getResults().size(); i++) {
+            QuizResultDTO answer = attempt.getResults().get(i);
+            if (answer == null || answer.getQuestionText() == null || answer.getSelectedOptionText() == null
+                    || answer.getCorrectOptionText() == null) {
+                throw new IllegalArgumentException("results[" + i + "]: questionText, selectedOptionText and "
+                        + "correctOptionText are required");
             }
+            QuizResult result = new QuizResult();
+            result.setLearnerId(attempt.getLearnerId());
+            result.setQuestionText(answer.getQuestionText());
+            result.setSelectedOptionText(answer.getSelectedOptionText());
+            result.setCorrectOptionText(answer.getCorrectOptionText());
+            result.setExplanation(answer.getExplanation());
+            result.setTopic(answer.getTopic() != null ? answer.getTopic() : attempt.getTopic());
+            result.setLevel(answer.getLevel() != null ? answer.getLevel() : attempt.getLevel());
+            result.setIsCorrect(answer.getIsCorrect());
+            result.setCreatedAt(answeredAt.plusNanos(i * 1000L));
+            results.add(result);
         }
+        quizResultBatchRepository.insertAll(results);
+        skillModelService.recordQuizResults(attempt.getLearnerId(), results);
+        quizStatsService.record(attempt.getLearnerId(), results);
+        logger.info("Saved quiz attempt of {} answers for learner {}", results.size(), attempt.getLearnerId());
+        return results.size();
+    }
 
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("total_questions", totalQuestions);
-        stats.put("correct_answers", correctAnswers);
-        stats.put("overall_correct_rate", overallCorrectRate);
-        stats.put("topic_statistics", topicStats);
-        stats.put("topic_correct_statistics", topicCorrectStats);
-        stats.put("last_quiz_date", allResults.isEmpty() ? null : allResults.get(0).getCreatedAt());
+    /**
+     * Chấm bài quiz từ ngân hàng câu hỏi bằng một truy vấn IN trên các option đã
+     * chọn. Câu trả lời chỉ đúng khi option là đáp án đúng và thuộc đúng câu hỏi
+     * được gửi kèm (nếu có questionId).
+     */
+    public QuizScoreDTO scoreQuiz(List<AnswerDTO> answers) {
+        Set<Long> optionIds = new HashSet<>();
+        for (AnswerDTO answer : answers) {
+            if (answer != null && answer.getOptionId() != null) {
+                optionIds.add(answer.getOptionId());
+            }
+        }
+        Map<Long, OptionRepository.AnswerKey> keys = new HashMap<>();
+        if (!optionIds.isEmpty()) {
+            for (OptionRepository.AnswerKey key : optionRepository.findAnswerKeys(optionIds)) {
+                keys.put(key.getOptionId(), key);
+            }
+        }
 
-        logger.info("Learner {} statistics: {}/{} correct ({:.1f}%)",
-                learnerId, correctAnswers, totalQuestions, overallCorrectRate * 100);
+        int score = 0;
+        List<QuizScoreDTO.AnswerResult> results = new ArrayList<>(answers.size());
+        for (AnswerDTO answer : answers) {
+            if (answer == null) {
+                continue;
+            }
+            OptionRepository.AnswerKey key = keys.get(answer.getOptionId());
+            boolean correct = key != null && Boolean.TRUE.equals(key.getCorrect())
+                    && (answer.getQuestionId() == null || answer.getQuestionId().equals(key.getQuestionId()));
+            if (correct) {
+                score++;
+            }
+            results.add(new QuizScoreDTO.AnswerResult(answer.getQuestionId(), answer.getOptionId(), correct));
+        }
+        return new QuizScoreDTO(score, results.size(), results);
+    }
 
-        return stats;
+    // Thống kê learner cho dashboard, đọc từ bộ đếm learner_quiz_stats
+    public Map<String, Object> getLearnerStatistics(String learnerId) {
+        return quizStatsService.getStatistics(learnerId);
     }
 }
\ No newline at end of file
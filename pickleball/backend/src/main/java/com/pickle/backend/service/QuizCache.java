@@ -0,0 +1,256 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.QuizResponseDTO;
+import com.pickle.backend.entity.QuizCacheEntry;
+import com.pickle.backend.repository.QuizCacheEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache hai tầng cho quiz do AI sinh, theo (topic, level, chữ ký điểm yếu): tầng
+ * trong bộ nhớ (LRU, giới hạn số mục) và tầng DB dùng chung giữa các instance.
+ * Mục còn hạn (ttl) được trả ngay; mục đã quá ttl nhưng còn trong cửa sổ
+ * stale-while-revalidate vẫn được trả ngay, đồng thời một quiz mới được sinh ở
+ * nền để thay thế. Quiz được lưu không kèm learner_analysis vì phần đó riêng
+ * cho từng learner.
+ */
+@Service
+public class QuizCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizCache.class);
+
+    public record Key(String topic, String level, String weaknessSignature) {
+
+        String hash() {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                        (topic + "\n" + level + "\n" + weaknessSignature).getBytes(StandardCharsets.UTF_8));
+                return HexFormat.of().formatHex(digest);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private record Entry(String payload, long createdAtMillis) {
+    }
+
+    @Autowired
+    private QuizCacheEntryRepository cacheEntryRepository;
+
+    @Autowired
+    @Qualifier("quizRefreshExecutor")
+    private TaskExecutor refreshExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${quiz.cache.local.max-entries:500}")
+    private int maxLocalEntries;
+
+    @Value("${quiz.cache.ttl:6h}")
+    private Duration ttl;
+
+    @Value("${quiz.cache.stale-while-revalidate:24h}")
+    private Duration staleWhileRevalidate;
+
+    // DTO có getter phụ (vd correctAnswer) được ghi ra JSON nhưng không có setter
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    Clock clock = Clock.systemUTC();
+
+    // LinkedHashMap theo thứ tự truy cập: mục ít dùng nhất bị bỏ khi vượt giới hạn
+    private final Map<String, Entry> local = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxLocalEntries;
+        }
+    };
+
+    // Các khóa đang được sinh lại ở nền, mỗi khóa tối đa một lần cùng lúc
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Trả quiz từ cache nếu có, nếu không thì gọi generator (lời gọi AI) và lưu
+     * kết quả vào cả hai tầng.
+     */
+    public QuizResponseDTO get(Key key, Supplier<QuizResponseDTO> generator) {
+        if (!enabled) {
+            return generator.get();
+        }
+        String hash = key.hash();
+        long now = clock.millis();
+
+        String tier = "local";
+        Entry entry = localGet(hash);
+        if (entry == null || !isFresh(entry, now)) {
+            // Instance khác có thể đã sinh quiz mới hơn
+            Entry stored = loadFromDb(hash);
+            if (stored != null && (entry == null || stored.createdAtMillis() > entry.createdAtMillis())) {
+                entry = stored;
+                tier = "db";
+                localPut(hash, entry);
+            }
+        }
+
+        if (entry != null && now - entry.createdAtMillis() < ttl.toMillis() + staleWhileRevalidate.toMillis()) {
+            QuizResponseDTO cached = read(entry);
+            if (cached != null) {
+                boolean fresh = isFresh(entry, now);
+                count(tier, fresh ? "fresh" : "stale");
+                if (!fresh) {
+                    refreshInBackground(key, hash, generator);
+                }
+                return cached;
+            }
+        }
+
+        count("none", "miss");
+        QuizResponseDTO generated = generator.get();
+        store(key, hash, generated);
+        return generated;
+    }
+
+    /**
+     * Xóa các mục đã quá cả cửa sổ stale-while-revalidate.
+     */
+    @Scheduled(fixedDelayString = "${quiz.cache.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        long cutoff = clock.millis() - ttl.toMillis() - staleWhileRevalidate.toMillis();
+        synchronized (local) {
+            local.values().removeIf(entry -> entry.createdAtMillis() < cutoff);
+        }
+        try {
+            int deleted = cacheEntryRepository.deleteCreatedBefore(new Timestamp(cutoff));
+            if (deleted > 0) {
+                logger.info("Deleted {} expired cached quizzes", deleted);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not delete expired cached quizzes: {}", e.getMessage());
+        }
+    }
+
+    private boolean isFresh(Entry entry, long now) {
+        return now - entry.createdAtMillis() < ttl.toMillis();
+    }
+
+    private void refreshInBackground(Key key, String hash, Supplier<QuizResponseDTO> generator) {
+        if (!refreshing.add(hash)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    store(key, hash, generator.get());
+                    meterRegistry.counter("quiz.cache.refreshes", "outcome", "success").increment();
+                } catch (Exception e) {
+                    meterRegistry.counter("quiz.cache.refreshes", "outcome", "error").increment();
+                    logger.warn("Background quiz refresh failed for topic {} level {}: {}",
+                            key.topic(), key.level(), e.getMessage());
+                } finally {
+                    refreshing.remove(hash);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Pool làm mới đang đầy: giữ bản cũ, lần truy cập sau sẽ thử lại
+            refreshing.remove(hash);
+            meterRegistry.counter("quiz.cache.refreshes", "outcome", "rejected").increment();
+        }
+    }
+
+    private void store(Key key, String hash, QuizResponseDTO quiz) {
+        if (quiz == null || quiz.getQuestions() == null || quiz.getQuestions().isEmpty()) {
+            return;
+        }
+        String payload;
+        try {
+            ObjectNode node = objectMapper.valueToTree(quiz);
+            node.remove("learner_analysis");
+            payload = objectMapper.writeValueAsString(node);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not serialize quiz for cache: {}", e.getMessage());
+            return;
+        }
+        long now = clock.millis();
+        localPut(hash, new Entry(payload, now));
+
+        QuizCacheEntry row = new QuizCacheEntry();
+        row.setCacheKey(hash);
+        row.setTopic(key.topic());
+        row.setLevel(key.level());
+        row.setWeaknessSignature(key.weaknessSignature());
+        row.setPayload(payload);
+        row.setCreatedAt(new Timestamp(now));
+        try {
+            cacheEntryRepository.save(row);
+        } catch (Exception e) {
+            // Tầng DB chỉ là tối ưu, lỗi ghi không làm hỏng request
+            logger.warn("Could not store quiz in DB cache: {}", e.getMessage());
+        }
+    }
+
+    private Entry loadFromDb(String hash) {
+        try {
+            return cacheEntryRepository.findById(hash)
+                    .map(row -> new Entry(row.getPayload(), row.getCreatedAt().getTime()))
+                    .orElse(null);
+        } catch (Exception e) {
+            logger.warn("Could not read quiz DB cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private QuizResponseDTO read(Entry entry) {
+        try {
+            return objectMapper.readValue(entry.payload(), QuizResponseDTO.class);
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cached quiz: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private Entry localGet(String hash) {
+        synchronized (local) {
+            return local.get(hash);
+        }
+    }
+
+    private void localPut(String hash, Entry entry) {
+        synchronized (local) {
+            local.put(hash, entry);
+        }
+    }
+
+    private void count(String tier, String result) {
+        meterRegistry.counter("quiz.cache.lookups", "tier", tier, "result", result).increment();
+    }
+}
@@ -0,0 +1,211 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.QuizQuestionDTO;
+import com.pickle.backend.dto.QuizResponseDTO;
+import com.pickle.backend.entity.QuizPoolEntry;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.repository.QuizPoolEntryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Kho quiz AI sinh sẵn theo (topic, level), lưu ở bảng quiz_pool_entries. Request
+ * sinh quiz lấy một quiz từ kho rồi chỉ cá nhân hóa việc chọn và thứ tự câu hỏi
+ * theo các kết quả gần nhất của learner; kho được QuizPoolRefiller bổ sung ở nền
+ * cho các cặp (topic, level) đang được dùng.
+ */
+@Service
+public class QuizPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizPool.class);
+
+    public record PoolKey(String topic, String level) {
+    }
+
+    @Autowired
+    private QuizPoolEntryRepository poolEntryRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.pool.enabled:true}")
+    private boolean enabled;
+
+    // Số quiz cũ nhất được xem xét khi chọn quiz cho learner
+    @Value("${quiz.pool.candidates:5}")
+    private int candidates;
+
+    // Cặp (topic, level) không được yêu cầu trong khoảng này thì thôi bổ sung
+    @Value("${quiz.pool.demand-ttl:24h}")
+    private Duration demandTtl;
+
+    // Các cặp luôn được giữ sẵn, dạng "topic:level" phân tách bởi dấu phẩy
+    @Value("${quiz.pool.warm-keys:}")
+    private String[] warmKeys;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    // Lần yêu cầu gần nhất của mỗi cặp (topic, level) trên instance này
+    private final Map<PoolKey, Long> demand = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static PoolKey keyOf(String topic, String level) {
+        return new PoolKey(normalize(topic), normalize(level));
+    }
+
+    /**
+     * Lấy một quiz sinh sẵn cho learner. Trong các quiz cũ nhất của kho, chọn quiz
+     * có ít câu learner đã trả lời đúng gần đây nhất; câu hỏi được xếp: câu từng
+     * sai trước, câu mới tiếp theo, câu đã đúng cuối cùng.
+     */
+    public Optional<QuizResponseDTO> take(String topic, String level, List<QuizResult> recentResults) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        PoolKey key = keyOf(topic, level);
+        demand.put(key, System.currentTimeMillis());
+
+        Map<String, Boolean> answered = new HashMap<>();
+        for (QuizResult result : recentResults) {
+            // recentResults mới nhất trước: giữ kết quả gần nhất của mỗi câu
+            answered.putIfAbsent(normalize(result.getQuestionText()), Boolean.TRUE.equals(result.getIsCorrect()));
+        }
+
+        List<QuizPoolEntry> entries = poolEntryRepository.findByTopicAndLevelOrderByCreatedAtAsc(key.topic(),
+                key.level(), PageRequest.of(0, Math.max(1, candidates)));
+        List<Map.Entry<QuizPoolEntry, QuizResponseDTO>> ranked = new ArrayList<>();
+        for (QuizPoolEntry entry : entries) {
+            QuizResponseDTO quiz = read(entry);
+            if (quiz != null) {
+                ranked.add(Map.entry(entry, quiz));
+            } else {
+                poolEntryRepository.claim(entry.getId());
+            }
+        }
+        // List.sort ổn định nên các quiz bằng điểm vẫn theo thứ tự cũ trước
+        ranked.sort(Comparator.comparingLong(candidate -> countAnsweredCorrectly(candidate.getValue(), answered)));
+
+        for (Map.Entry<QuizPoolEntry, QuizResponseDTO> candidate : ranked) {
+            if (poolEntryRepository.claim(candidate.getKey().getId()) == 1) {
+                QuizResponseDTO quiz = candidate.getValue();
+                quiz.setTopic(topic);
+                quiz.setLevel(level);
+                quiz.setQuestions(personalizeOrder(quiz.getQuestions(), answered));
+                meterRegistry.counter("quiz.pool.requests", "result", "hit").increment();
+                return Optional.of(quiz);
+            }
+        }
+        meterRegistry.counter("quiz.pool.requests", "result", "miss").increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Thêm các quiz vừa sinh vào kho (không kèm learner_analysis).
+     */
+    public void add(PoolKey key, List<QuizResponseDTO> quizzes) {
+        List<QuizPoolEntry> rows = new ArrayList<>(quizzes.size());
+        long now = System.currentTimeMillis();
+        for (QuizResponseDTO quiz : quizzes) {
+            if (quiz.getQuestions() == null || quiz.getQuestions().isEmpty()) {
+                continue;
+            }
+            ObjectNode node = objectMapper.valueToTree(quiz);
+            node.remove("learner_analysis");
+            QuizPoolEntry row = new QuizPoolEntry();
+            row.setId(UUID.randomUUID().toString());
+            row.setTopic(key.topic());
+            row.setLevel(key.level());
+            row.setPayload(node.toString());
+            row.setCreatedAt(new Timestamp(now));
+            rows.add(row);
+        }
+        poolEntryRepository.saveAll(rows);
+    }
+
+    /**
+     * Số quiz còn thiếu so với mức cần giữ của từng cặp đang được dùng (cặp có
+     * trong warm-keys hoặc được yêu cầu trong demand-ttl gần đây).
+     */
+    public Map<PoolKey, Integer> shortfall(int watermark) {
+        long cutoff = System.currentTimeMillis() - demandTtl.toMillis();
+        demand.values().removeIf(lastRequested -> lastRequested < cutoff);
+
+        Map<PoolKey, Integer> missing = new LinkedHashMap<>();
+        List<PoolKey> active = new ArrayList<>();
+        if (warmKeys != null) {
+            for (String warmKey : warmKeys) {
+                int separator = warmKey.lastIndexOf(':');
+                if (separator > 0) {
+                    active.add(keyOf(warmKey.substring(0, separator), warmKey.substring(separator + 1)));
+                }
+            }
+        }
+        active.addAll(demand.keySet());
+        for (PoolKey key : active) {
+            if (missing.containsKey(key)) {
+                continue;
+            }
+            long available = poolEntryRepository.countByTopicAndLevel(key.topic(), key.level());
+            if (available < watermark) {
+                missing.put(key, (int) (watermark - available));
+            }
+        }
+        return missing;
+    }
+
+    private static long countAnsweredCorrectly(QuizResponseDTO quiz, Map<String, Boolean> answered) {
+        return quiz.getQuestions().stream()
+                .filter(question -> Boolean.TRUE.equals(answered.get(normalize(question.getQuestionText()))))
+                .count();
+    }
+
+    private static List<QuizQuestionDTO> personalizeOrder(List<QuizQuestionDTO> questions,
+            Map<String, Boolean> answered) {
+        List<QuizQuestionDTO> ordered = new ArrayList<>(questions);
+        ordered.sort(Comparator.comparingInt(question -> {
+            Boolean correct = answered.get(normalize(question.getQuestionText()));
+            return correct == null ? 1 : correct ? 2 : 0;
+        }));
+        return ordered;
+    }
+
+    private QuizResponseDTO read(QuizPoolEntry entry) {
+        try {
+            QuizResponseDTO quiz = objectMapper.readValue(entry.getPayload(), QuizResponseDTO.class);
+            return quiz.getQuestions() != null && !quiz.getQuestions().isEmpty() ? quiz : null;
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable pooled quiz {}: {}", entry.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+}
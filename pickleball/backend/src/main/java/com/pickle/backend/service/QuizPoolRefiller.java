@@ -0,0 +1,88 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.QuizResponseDTO;
+import com.pickle.backend.exception.DownstreamUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Định kỳ bổ sung kho quiz lên mức watermark cho từng cặp (topic, level) đang
+ * được dùng, mỗi lượt sinh tối đa refill-batch quiz cho một cặp.
+ */
+@Component
+public class QuizPoolRefiller {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizPoolRefiller.class);
+
+    @Autowired
+    private QuizPool quizPool;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.pool.watermark:10}")
+    private int watermark;
+
+    @Value("${quiz.pool.refill-batch:5}")
+    private int refillBatch;
+
+    @Scheduled(fixedDelayString = "${quiz.pool.refill-interval-ms:60000}",
+            initialDelayString = "${quiz.pool.refill-initial-delay-ms:30000}")
+    public void refill() {
+        if (!quizPool.isEnabled()) {
+            return;
+        }
+        Map<QuizPool.PoolKey, Integer> shortfall;
+        try {
+            shortfall = quizPool.shortfall(watermark);
+        } catch (Exception e) {
+            logger.warn("Could not check quiz pool levels: {}", e.getMessage());
+            return;
+        }
+        for (Map.Entry<QuizPool.PoolKey, Integer> missing : shortfall.entrySet()) {
+            QuizPool.PoolKey key = missing.getKey();
+            int batch = Math.min(missing.getValue(), refillBatch);
+            List<QuizResponseDTO> generated = new ArrayList<>(batch);
+            boolean downstreamUnavailable = false;
+            for (int i = 0; i < batch; i++) {
+                try {
+                    generated.add(questionService.generatePoolQuiz(key.topic(), key.level()));
+                } catch (DownstreamUnavailableException e) {
+                    // Dịch vụ AI quá tải/đang ngắt: dừng lượt này, để dành cho request trực tiếp
+                    downstreamUnavailable = true;
+                    break;
+                } catch (Exception e) {
+                    logger.warn("Could not generate pooled quiz for topic {} level {}: {}",
+                            key.topic(), key.level(), e.getMessage());
+                    break;
+                }
+            }
+            if (!generated.isEmpty()) {
+                try {
+                    quizPool.add(key, generated);
+                    meterRegistry.counter("quiz.pool.refilled").increment(generated.size());
+                    logger.info("Added {} quizzes to pool for topic {} level {}",
+                            generated.size(), key.topic(), key.level());
+                } catch (Exception e) {
+                    logger.warn("Could not store pooled quizzes: {}", e.getMessage());
+                }
+            }
+            if (downstreamUnavailable) {
+                logger.info("Quiz service unavailable, stopping pool refill until next run");
+                return;
+            }
+        }
+    }
+}
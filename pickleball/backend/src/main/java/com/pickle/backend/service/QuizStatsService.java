@@ -0,0 +1,160 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.LearnerQuizStat;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.repository.LearnerQuizStatRepository;
+import com.pickle.backend.repository.QuizResultsRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Thống kê quiz của learner (bảng learner_quiz_stats). Bộ đếm được cộng dồn khi
+ * lưu kết quả nên đọc thống kê chỉ tốn vài dòng, không phụ thuộc độ dài lịch sử.
+ */
+@Service
+public class QuizStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizStatsService.class);
+
+    // Giới hạn độ dài khóa bucket theo cột learner_quiz_stats.bucket
+    private static final int MAX_BUCKET_LENGTH = 191;
+
+    @Autowired
+    private LearnerQuizStatRepository statRepository;
+
+    @Autowired
+    private QuizResultsRepository quizResultsRepository;
+
+    /**
+     * Cộng các kết quả vừa được ghi vào quiz_results (cùng transaction hoặc đã
+     * commit) vào bộ đếm của learner. Learner chưa có bộ đếm thì được dựng lại một
+     * lần từ quiz_results, vốn đã gồm các kết quả này. Dòng ALL được tạo trước để
+     * luôn có một dòng để khóa: lượt lưu đồng thời của cùng learner chờ lượt dựng
+     * lại commit rồi cộng dồn, thay vì cũng dựng lại và trùng khóa chính.
+     */
+    @Transactional
+    public void record(String learnerId, List<QuizResult> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        statRepository.insertAllRowIfAbsent(learnerId);
+        Map<LearnerQuizStat.Key, LearnerQuizStat> stats = new HashMap<>();
+        for (LearnerQuizStat stat : statRepository.findForUpdate(learnerId)) {
+            stats.put(keyOf(stat), stat);
+        }
+        LearnerQuizStat all = stats.get(new LearnerQuizStat.Key(learnerId, LearnerQuizStat.ALL,
+                LearnerQuizStat.ALL_BUCKET));
+        if (all == null || all.getTotal() == 0) {
+            Collection<LearnerQuizStat> rebuilt = rebuild(learnerId);
+            statRepository.saveAll(rebuilt);
+            logger.info("Built quiz statistics for learner {} from quiz history ({} rows)", learnerId, rebuilt.size());
+            return;
+        }
+        for (QuizResult result : results) {
+            long correct = Boolean.TRUE.equals(result.getIsCorrect()) ? 1 : 0;
+            for (LearnerQuizStat.Key key : keysOf(learnerId, result.getTopic(), result.getLevel())) {
+                stats.computeIfAbsent(key, k -> new LearnerQuizStat(learnerId, k.getDimension(), k.getBucket()))
+                        .add(1, correct, result.getCreatedAt());
+            }
+        }
+        statRepository.saveAll(stats.values());
+    }
+
+    public Map<String, Object> getStatistics(String learnerId) {
+        Collection<LearnerQuizStat> rows = statRepository.findByLearnerId(learnerId);
+        if (rows.isEmpty()) {
+            // Learner có lịch sử từ trước khi có bảng thống kê: tính tạm, lần lưu kế tiếp sẽ ghi lại
+            rows = rebuild(learnerId);
+        }
+
+        long totalQuestions = 0;
+        long correctAnswers = 0;
+        LocalDateTime lastQuizDate = null;
+        Map<String, Long> topicStats = new HashMap<>();
+        Map<String, Long> topicCorrectStats = new HashMap<>();
+        Map<String, Long> levelStats = new HashMap<>();
+        Map<String, Long> levelCorrectStats = new HashMap<>();
+        for (LearnerQuizStat row : rows) {
+            switch (row.getDimension()) {
+                case LearnerQuizStat.ALL -> {
+                    totalQuestions = row.getTotal();
+                    correctAnswers = row.getCorrect();
+                    lastQuizDate = row.getLastAnsweredAt();
+                }
+                case LearnerQuizStat.TOPIC -> {
+                    topicStats.put(row.getBucket(), row.getTotal());
+                    if (row.getCorrect() > 0) {
+                        topicCorrectStats.put(row.getBucket(), row.getCorrect());
+                    }
+                }
+                case LearnerQuizStat.LEVEL -> {
+                    levelStats.put(row.getBucket(), row.getTotal());
+                    if (row.getCorrect() > 0) {
+                        levelCorrectStats.put(row.getBucket(), row.getCorrect());
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        double overallCorrectRate = totalQuestions > 0 ? (double) correctAnswers / totalQuestions : 0.0;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("total_questions", totalQuestions);
+        stats.put("correct_answers", correctAnswers);
+        stats.put("overall_correct_rate", overallCorrectRate);
+        stats.put("topic_statistics", topicStats);
+        stats.put("topic_correct_statistics", topicCorrectStats);
+        stats.put("level_statistics", levelStats);
+        stats.put("level_correct_statistics", levelCorrectStats);
+        stats.put("last_quiz_date", lastQuizDate);
+
+        logger.info("Learner {} statistics: {}/{} correct", learnerId, correctAnswers, totalQuestions);
+        return stats;
+    }
+
+    // Dựng bộ đếm từ tổng theo (topic, level) do DB tính sẵn
+    private Collection<LearnerQuizStat> rebuild(String learnerId) {
+        Map<LearnerQuizStat.Key, LearnerQuizStat> stats = new LinkedHashMap<>();
+        for (QuizResultsRepository.TopicLevelTotals totals : quizResultsRepository.sumByTopicAndLevel(learnerId)) {
+            long total = totals.getTotal() != null ? totals.getTotal() : 0;
+            long correct = totals.getCorrect() != null ? totals.getCorrect() : 0;
+            for (LearnerQuizStat.Key key : keysOf(learnerId, totals.getTopic(), totals.getLevel())) {
+                stats.computeIfAbsent(key, k -> new LearnerQuizStat(learnerId, k.getDimension(), k.getBucket()))
+                        .add(total, correct, totals.getLastAnsweredAt());
+            }
+        }
+        return stats.values();
+    }
+
+    private static List<LearnerQuizStat.Key> keysOf(String learnerId, String topic, String level) {
+        return List.of(
+                new LearnerQuizStat.Key(learnerId, LearnerQuizStat.ALL, LearnerQuizStat.ALL_BUCKET),
+                new LearnerQuizStat.Key(learnerId, LearnerQuizStat.TOPIC, bucket(topic, "general")),
+                new LearnerQuizStat.Key(learnerId, LearnerQuizStat.LEVEL, bucket(level, "unknown")));
+    }
+
+    private static LearnerQuizStat.Key keyOf(LearnerQuizStat stat) {
+        return new LearnerQuizStat.Key(stat.getLearnerId(), stat.getDimension(), stat.getBucket());
+    }
+
+    // Chuẩn hóa như cột varchar không phân biệt hoa thường để khóa trong Java khớp khóa trong DB
+    private static String bucket(String value, String fallback) {
+        String normalized = value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+        if (normalized.isEmpty()) {
+            return fallback;
+        }
+        return normalized.length() > MAX_BUCKET_LENGTH ? normalized.substring(0, MAX_BUCKET_LENGTH) : normalized;
+    }
+}
@@ -0,0 +1,8 @@
+package com.pickle.backend.service;
+
+/**
+ * Phát ra khi một job phân tích trên dịch vụ vision kết thúc (thành công hoặc
+ * thất bại) để AnalysisJobService cập nhật trạng thái và báo cho client SSE.
+ */
+public record RemoteAnalysisFinishedEvent(String jobId, String status, String message, Object result) {
+}
@@ -0,0 +1,331 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.dto.AnalysisJobDTO;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.entity.RemoteAnalysisJob;
+import com.pickle.backend.exception.DownstreamUnavailableException;
+import com.pickle.backend.repository.RemoteAnalysisJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Theo dõi các job phân tích chạy bất đồng bộ trên dịch vụ vision: lưu job_id
+ * phía Python vào bảng remote_analysis_jobs rồi poll GET /status/{job_id} trên
+ * một scheduler riêng với khoảng chờ tăng dần, thay vì giữ một lời gọi HTTP chờ
+ * suốt quá trình phân tích. Khi có kết quả, phần còn lại của phân tích (lưu
+ * VideoAnalysis, đề xuất bài học) được hoàn tất qua FullAnalysisService. Các job
+ * chưa xong được poll tiếp sau khi backend khởi động lại. Nhiều instance có thể
+ * cùng poll một job; job chỉ được kết thúc bởi lượt poll chuyển được nó từ POLLING
+ * sang COMPLETING.
+ */
+@Service
+public class RemoteAnalysisTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteAnalysisTracker.class);
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+
+    @Autowired
+    private RemoteAnalysisJobRepository jobRepository;
+
+    @Autowired
+    @Qualifier("visionClient")
+    private DownstreamClient visionClient;
+
+    @Autowired
+    private AnalysisResponseParser analysisResponseParser;
+
+    @Autowired
+    private FullAnalysisService fullAnalysisService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${video.analysis.api.status-url:${ai.service.url}/status/{jobId}}")
+    private String statusUrl;
+
+    @Value("${video.analysis.poll.initial-delay:2s}")
+    private Duration initialDelay;
+
+    @Value("${video.analysis.poll.max-delay:30s}")
+    private Duration maxDelay;
+
+    @Value("${video.analysis.poll.max-wait:30m}")
+    private Duration maxWait;
+
+    // Job ở COMPLETING lâu hơn mức này coi như bị bỏ dở (node dừng khi đang hoàn tất)
+    @Value("${video.analysis.poll.completing-timeout:10m}")
+    private Duration completingTimeout;
+
+    @Value("${video.analysis.poll.threads:2}")
+    private int pollThreads;
+
+    @Value("${analysis.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Scheduler riêng, không khai báo bean để không thay scheduler mặc định của @Scheduled
+    private ThreadPoolTaskScheduler scheduler;
+
+    @PostConstruct
+    void initScheduler() {
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(pollThreads);
+        scheduler.setThreadNamePrefix("remote-analysis-");
+        scheduler.initialize();
+    }
+
+    @PreDestroy
+    void shutdownScheduler() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Bắt đầu theo dõi một job đã được dịch vụ vision nhận. File tạm được giữ lại
+     * tới khi job kết thúc.
+     *
+     * @param jobId mã job phía backend, null để tự sinh
+     * @return mã job phía backend
+     */
+    public String track(String jobId, String userId, StagedVideo video, String remoteJobId) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        RemoteAnalysisJob job = new RemoteAnalysisJob();
+        job.setId(jobId != null ? jobId : UUID.randomUUID().toString());
+        job.setRemoteJobId(remoteJobId);
+        job.setUserId(userId);
+        job.setStatus(RemoteAnalysisJob.Status.POLLING);
+        job.setVideoPath(video.path().toString());
+        job.setOriginalFilename(video.originalFilename());
+        job.setContentType(video.contentType());
+        job.setVideoSize(video.size());
+        job.setContentHash(video.sha256());
+        job.setMessage("Đang phân tích video");
+        job.setNextPollAt(new Timestamp(now.getTime() + initialDelay.toMillis()));
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        jobRepository.save(job);
+
+        logger.info("Tracking remote analysis job {} (remote {}) for user {}", job.getId(), remoteJobId, userId);
+        schedule(job.getId(), job.getNextPollAt().toInstant());
+        return job.getId();
+    }
+
+    public Optional<AnalysisJobDTO> findJob(String jobId) {
+        return jobRepository.findById(jobId).map(this::toDTO);
+    }
+
+    /**
+     * Poll tiếp các job chưa kết thúc từ lần chạy trước; dịch vụ vision vẫn giữ
+     * job nếu nó không khởi động lại.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        try {
+            Instant now = Instant.now();
+            int abandoned = jobRepository.failStaleCompleting(Timestamp.from(now.minus(completingTimeout)),
+                    "Phân tích video không thành công: quá trình lưu kết quả bị gián đoạn",
+                    Timestamp.from(now));
+            if (abandoned > 0) {
+                logger.warn("Marked {} interrupted remote analysis jobs as failed", abandoned);
+            }
+            List<RemoteAnalysisJob> jobs = jobRepository.findByStatus(RemoteAnalysisJob.Status.POLLING);
+            for (RemoteAnalysisJob job : jobs) {
+                Instant next = job.getNextPollAt() != null ? job.getNextPollAt().toInstant() : now;
+                schedule(job.getId(), next.isBefore(now) ? now : next);
+            }
+            if (!jobs.isEmpty()) {
+                logger.info("Resumed polling for {} remote analysis jobs", jobs.size());
+            }
+        } catch (Exception e) {
+            logger.warn("Could not resume remote analysis jobs: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analysis.jobs.cleanup-interval-ms:60000}")
+    public void deleteFinishedJobs() {
+        jobRepository.deleteFinishedBefore(
+                new Timestamp(System.currentTimeMillis() - Duration.ofMinutes(retentionMinutes).toMillis()));
+    }
+
+    private void schedule(String jobId, Instant at) {
+        scheduler.schedule(() -> poll(jobId), at);
+    }
+
+    void poll(String jobId) {
+        RemoteAnalysisJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != RemoteAnalysisJob.Status.POLLING) {
+            return;
+        }
+        try {
+            if (System.currentTimeMillis() - job.getCreatedAt().getTime() > maxWait.toMillis()) {
+                fail(job, "Phân tích video không thành công: quá thời gian chờ kết quả");
+                return;
+            }
+            JsonNode status;
+            try {
+                status = visionClient.execute("status", true,
+                        rest -> rest.getForObject(statusUrl, JsonNode.class, job.getRemoteJobId()));
+            } catch (HttpClientErrorException.NotFound e) {
+                // Dịch vụ vision giữ job trong bộ nhớ nên mất job khi nó khởi động lại
+                fail(job, "Phân tích video không thành công: dịch vụ phân tích không còn job này");
+                return;
+            } catch (RestClientException | DownstreamUnavailableException e) {
+                logger.warn("Polling remote analysis job {} failed: {}", jobId, e.getMessage());
+                reschedule(job);
+                return;
+            }
+            String state = status != null ? status.path("status").asText() : "";
+            switch (state) {
+                case "success" -> complete(job, status.path("result"));
+                case "error" -> fail(job, "Phân tích video không thành công: "
+                        + status.path("message").asText("lỗi không xác định"));
+                default -> reschedule(job);
+            }
+        } catch (Exception e) {
+            logger.error("Error polling remote analysis job {}: {}", jobId, e.getMessage(), e);
+            if (job.getStatus() == RemoteAnalysisJob.Status.POLLING) {
+                reschedule(job);
+            }
+        }
+    }
+
+    /**
+     * Giành quyền kết thúc job bằng một UPDATE có điều kiện. Chỉ lượt poll đổi được
+     * trạng thái POLLING sang COMPLETING mới lưu kết quả, nên hai instance (hoặc lượt
+     * poll cũ còn chạy khi backend khởi động lại) không lưu cùng một kết quả hai lần.
+     */
+    private boolean claim(RemoteAnalysisJob job) {
+        int claimed = jobRepository.transition(job.getId(), RemoteAnalysisJob.Status.POLLING,
+                RemoteAnalysisJob.Status.COMPLETING, new Timestamp(System.currentTimeMillis()));
+        if (claimed != 1) {
+            logger.info("Remote analysis job {} is already being finished elsewhere", job.getId());
+            return false;
+        }
+        job.setStatus(RemoteAnalysisJob.Status.COMPLETING);
+        return true;
+    }
+
+    // Trả job về POLLING khi chưa lưu được kết quả, để lượt poll sau thử lại
+    private void release(RemoteAnalysisJob job) {
+        jobRepository.transition(job.getId(), RemoteAnalysisJob.Status.COMPLETING, RemoteAnalysisJob.Status.POLLING,
+                new Timestamp(System.currentTimeMillis()));
+        job.setStatus(RemoteAnalysisJob.Status.POLLING);
+    }
+
+    private void complete(RemoteAnalysisJob job, JsonNode result) throws IOException {
+        AnalysisResponse response = analysisResponseParser.fromVisionJobResult(result);
+        StagedVideo video = new StagedVideo(Path.of(job.getVideoPath()), job.getOriginalFilename(),
+                job.getContentType(), job.getVideoSize(), job.getContentHash());
+        if (!claim(job)) {
+            return;
+        }
+        Map<String, Object> outcome;
+        try {
+            outcome = fullAnalysisService.completeAnalysis(job.getUserId(), video, response);
+        } catch (RuntimeException e) {
+            release(job);
+            throw e;
+        }
+        Object analysisResult = outcome.get("result");
+        String message = String.valueOf(outcome.getOrDefault("message", ""));
+        finish(job, analysisResult != null ? RemoteAnalysisJob.Status.SUCCEEDED : RemoteAnalysisJob.Status.FAILED,
+                message, analysisResult);
+    }
+
+    private void fail(RemoteAnalysisJob job, String message) {
+        if (!claim(job)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Path.of(job.getVideoPath()));
+        } catch (IOException e) {
+            logger.warn("Could not delete temp video {}: {}", job.getVideoPath(), e.getMessage());
+        }
+        finish(job, RemoteAnalysisJob.Status.FAILED, message, null);
+    }
+
+    private void finish(RemoteAnalysisJob job, RemoteAnalysisJob.Status status, String message, Object result) {
+        job.setStatus(status);
+        job.setMessage(message);
+        job.setNextPollAt(null);
+        job.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+        if (result != null) {
+            try {
+                job.setResultJson(objectMapper.writeValueAsString(result));
+            } catch (JsonProcessingException e) {
+                logger.warn("Could not serialize result of remote analysis job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+        jobRepository.save(job);
+        logger.info("Remote analysis job {} finished with status {}", job.getId(), status);
+        eventPublisher.publishEvent(new RemoteAnalysisFinishedEvent(job.getId(), toJobStatus(status), message,
+                result));
+    }
+
+    private void reschedule(RemoteAnalysisJob job) {
+        int pollCount = job.getPollCount() + 1;
+        long delay = (long) Math.min(initialDelay.toMillis() * Math.pow(BACKOFF_MULTIPLIER, pollCount),
+                maxDelay.toMillis());
+        job.setPollCount(pollCount);
+        job.setNextPollAt(new Timestamp(System.currentTimeMillis() + delay));
+        job.setUpdatedAt(new Timestamp(System.currentTimeMillis()));
+        try {
+            if (jobRepository.updatePollState(job.getId(), pollCount, job.getNextPollAt(), job.getUpdatedAt()) == 0) {
+                // Job đã được kết thúc ở nơi khác trong lúc poll
+                return;
+            }
+        } catch (Exception e) {
+            logger.warn("Could not save poll state of remote analysis job {}: {}", job.getId(), e.getMessage());
+        }
+        schedule(job.getId(), job.getNextPollAt().toInstant());
+    }
+
+    private AnalysisJobDTO toDTO(RemoteAnalysisJob job) {
+        Object result = null;
+        if (job.getResultJson() != null) {
+            try {
+                result = objectMapper.readTree(job.getResultJson());
+            } catch (JsonProcessingException e) {
+                logger.warn("Stored result of remote analysis job {} is not valid JSON", job.getId());
+            }
+        }
+        return new AnalysisJobDTO(job.getId(), job.getUserId(), toJobStatus(job.getStatus()), job.getMessage(),
+                result, job.getCreatedAt().toLocalDateTime(), job.getUpdatedAt().toLocalDateTime());
+    }
+
+    // Trạng thái theo AnalysisJobService.JobStatus để client chỉ thấy một bộ trạng thái
+    private static String toJobStatus(RemoteAnalysisJob.Status status) {
+        return status == RemoteAnalysisJob.Status.POLLING || status == RemoteAnalysisJob.Status.COMPLETING
+                ? AnalysisJobService.JobStatus.RUNNING.name()
+                : status.name();
+    }
+}
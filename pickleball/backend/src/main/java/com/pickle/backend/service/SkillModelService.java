@@ -0,0 +1,261 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
+import com.pickle.backend.entity.LearnerSkillModel;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.LearnerSkillModelRepository;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Mô hình kỹ năng trượt của learner (bảng learner_skill_models). Mỗi bản phân tích
+ * video và mỗi câu trả lời quiz chỉ cập nhật vài dòng của learner đó, nên đề xuất
+ * bài học và sinh quiz đọc thẳng mô hình thay vì quét lại toàn bộ lịch sử.
+ */
+@Service
+public class SkillModelService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SkillModelService.class);
+
+    // Kỹ năng có điểm dưới ngưỡng này được coi là điểm yếu khi đề xuất
+    private static final double WEAK_SKILL_SCORE = 60;
+
+    @Autowired
+    private LearnerSkillModelRepository skillModelRepository;
+
+    /**
+     * Các quan sát (kỹ năng -> điểm 0-100) rút ra từ một bản phân tích video:
+     * OVERALL là điểm trung bình, mỗi loại cú đánh là trung bình điểm các khung hình
+     * của cú đó, GRIP/BALANCE là tỉ lệ khung hình cầm vợt đúng/đứng vững.
+     */
+    public Map<String, Double> observationsFrom(AnalysisResponse response) {
+        Map<String, Double> observations = new LinkedHashMap<>();
+        if (response == null) {
+            return observations;
+        }
+        if (response.performanceMetrics() != null && response.performanceMetrics().averageScore() != null) {
+            observations.put(LearnerSkillModel.OVERALL, response.performanceMetrics().averageScore());
+        }
+        if (response.detailedFeedbacks() == null) {
+            return observations;
+        }
+        Map<String, double[]> shotScores = new LinkedHashMap<>();
+        int gripFrames = 0;
+        int goodGrip = 0;
+        int balanceFrames = 0;
+        double balancePoints = 0;
+        for (FeedbackFrame frame : response.detailedFeedbacks()) {
+            Lesson.SkillType skill = mapShotToSkillType(frame.shotType());
+            if (skill != null && frame.overallScore() != null) {
+                double[] sum = shotScores.computeIfAbsent(skill.name(), key -> new double[2]);
+                sum[0] += frame.overallScore();
+                sum[1]++;
+            }
+            if (frame.gripType() != null) {
+                gripFrames++;
+                if ("eastern_grip".equals(frame.gripType())) {
+                    goodGrip++;
+                }
+            }
+            if (frame.balanceStatus() != null) {
+                balanceFrames++;
+                balancePoints += switch (frame.balanceStatus()) {
+                    case "unstable" -> 0;
+                    case "slightly_unstable" -> 50;
+                    default -> 100;
+                };
+            }
+        }
+        shotScores.forEach((skill, sum) -> observations.put(skill, sum[0] / sum[1]));
+        if (gripFrames > 0) {
+            observations.put(Lesson.SkillType.GRIP.name(), 100.0 * goodGrip / gripFrames);
+        }
+        if (balanceFrames > 0) {
+            observations.put(Lesson.SkillType.BALANCE.name(), balancePoints / balanceFrames);
+        }
+        return observations;
+    }
+
+    /**
+     * Mô hình của learner sau khi áp các quan sát, không ghi xuống DB. Dùng trong
+     * pha chỉ đọc để tính skill level và điểm yếu trước transaction ghi.
+     */
+    public Map<String, LearnerSkillModel> preview(String learnerId, Map<String, Double> observations) {
+        Map<String, LearnerSkillModel> models = new HashMap<>();
+        for (LearnerSkillModel stored : skillModelRepository.findByLearnerId(learnerId)) {
+            models.put(stored.getSkill(), copyOf(stored));
+        }
+        observations.forEach((skill, value) -> models
+                .computeIfAbsent(skill, key -> new LearnerSkillModel(learnerId, key))
+                .observe(value));
+        return models;
+    }
+
+    /**
+     * Ghi các quan sát vào mô hình. Các dòng liên quan được khóa để hai kết quả
+     * cùng learner ghi song song không làm mất cập nhật của nhau.
+     */
+    @Transactional
+    public void record(String learnerId, Map<String, Double> observations) {
+        apply(learnerId, new ArrayList<>(observations.entrySet()));
+    }
+
+    /**
+     * Ghi một câu trả lời quiz: cập nhật QUIZ và kỹ năng trùng với topic (nếu có).
+     */
+    @Transactional
+    public void recordQuizResult(String learnerId, String topic, boolean correct) {
+        List<Map.Entry<String, Double>> observations = new ArrayList<>(2);
+        addQuizObservations(observations, topic, correct);
+        apply(learnerId, observations);
+        logger.debug("Updated skill model of learner {} from quiz result (topic {}, correct {})",
+                learnerId, topic, correct);
+    }
+
+    /**
+     * Ghi cả một lượt làm quiz: các câu được áp theo thứ tự, mỗi dòng mô hình chỉ
+     * khóa và ghi một lần.
+     */
+    @Transactional
+    public void recordQuizResults(String learnerId, List<QuizResult> results) {
+        List<Map.Entry<String, Double>> observations = new ArrayList<>(results.size() * 2);
+        for (QuizResult result : results) {
+            addQuizObservations(observations, result.getTopic(), Boolean.TRUE.equals(result.getIsCorrect()));
+        }
+        apply(learnerId, observations);
+    }
+
+    private void addQuizObservations(List<Map.Entry<String, Double>> observations, String topic, boolean correct) {
+        double value = correct ? 100 : 0;
+        observations.add(Map.entry(LearnerSkillModel.QUIZ, value));
+        Lesson.SkillType skill = mapTopicToSkillType(topic);
+        if (skill != null) {
+            observations.add(Map.entry(skill.name(), value));
+        }
+    }
+
+    private void apply(String learnerId, List<Map.Entry<String, Double>> observations) {
+        if (observations.isEmpty()) {
+            return;
+        }
+        // Thứ tự cố định để hai transaction cùng learner khóa các dòng theo cùng thứ tự
+        Set<String> skills = new TreeSet<>();
+        observations.forEach(observation -> skills.add(observation.getKey()));
+        // Dòng chưa có thì tạo trước, để findForUpdate luôn khóa được mọi dòng sẽ ghi
+        for (String skill : skills) {
+            skillModelRepository.insertIfAbsent(learnerId, skill);
+        }
+        Map<String, LearnerSkillModel> models = new HashMap<>();
+        for (LearnerSkillModel model : skillModelRepository.findForUpdate(learnerId, skills)) {
+            models.put(model.getSkill(), model);
+        }
+        for (Map.Entry<String, Double> observation : observations) {
+            models.computeIfAbsent(observation.getKey(), key -> new LearnerSkillModel(learnerId, key))
+                    .observe(observation.getValue());
+        }
+        skillModelRepository.saveAll(models.values());
+    }
+
+    public Map<String, LearnerSkillModel> getModel(String learnerId) {
+        Map<String, LearnerSkillModel> models = new LinkedHashMap<>();
+        for (LearnerSkillModel model : skillModelRepository.findByLearnerId(learnerId)) {
+            models.put(model.getSkill(), model);
+        }
+        return models;
+    }
+
+    /**
+     * Các kỹ năng (Lesson.SkillType, chữ thường) có điểm thấp nhất dưới ngưỡng yếu,
+     * điểm thấp trước.
+     */
+    public static List<String> weakestSkills(Map<String, LearnerSkillModel> models, int limit) {
+        return models.values().stream()
+                .filter(model -> isSkillType(model.getSkill()))
+                .filter(model -> model.getSamples() > 0 && model.getScore() < WEAK_SKILL_SCORE)
+                .sorted(Comparator.comparingDouble(LearnerSkillModel::getScore))
+                .limit(limit)
+                .map(model -> model.getSkill().toLowerCase(Locale.ROOT))
+                .toList();
+    }
+
+    /**
+     * Tóm tắt mô hình dạng map (skill -> score/confidence/trend/samples) để gửi cho
+     * dịch vụ AI hoặc trả về client.
+     */
+    public static Map<String, Object> summarize(Map<String, LearnerSkillModel> models) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        models.values().forEach(model -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("score", round(model.getScore()));
+            entry.put("confidence", Math.round(model.getConfidence() * 100) / 100.0);
+            entry.put("trend", round(model.getTrend()));
+            entry.put("samples", model.getSamples());
+            summary.put(model.getSkill(), entry);
+        });
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static LearnerSkillModel copyOf(LearnerSkillModel stored) {
+        LearnerSkillModel copy = new LearnerSkillModel(stored.getLearnerId(), stored.getSkill());
+        copy.setScore(stored.getScore());
+        copy.setVariance(stored.getVariance());
+        copy.setTrend(stored.getTrend());
+        copy.setSamples(stored.getSamples());
+        copy.setUpdatedAt(stored.getUpdatedAt());
+        return copy;
+    }
+
+    private static boolean isSkillType(String skill) {
+        for (Lesson.SkillType type : Lesson.SkillType.values()) {
+            if (type.name().equals(skill)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Lesson.SkillType mapShotToSkillType(String shot) {
+        if (shot == null) {
+            return null;
+        }
+        return switch (shot.toLowerCase(Locale.ROOT)) {
+            case "forehand" -> Lesson.SkillType.FOREHAND;
+            case "backhand" -> Lesson.SkillType.BACKHAND;
+            case "serve" -> Lesson.SkillType.SERVE;
+            case "dink", "half_volley" -> Lesson.SkillType.DINK;
+            default -> null;
+        };
+    }
+
+    private static Lesson.SkillType mapTopicToSkillType(String topic) {
+        if (topic == null) {
+            return null;
+        }
+        String normalized = topic.trim().toUpperCase(Locale.ROOT);
+        for (Lesson.SkillType type : Lesson.SkillType.values()) {
+            if (type.name().equals(normalized)) {
+                return type;
+            }
+        }
+        return mapShotToSkillType(topic.trim());
+    }
+}
@@ -0,0 +1,116 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.repository.VideoAnalysisRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Ghi hai cột average_score/skill_level (dùng cho danh sách lịch sử) từ
+ * performanceMetrics trong analysis_result.
+ */
+@Service
+public class VideoAnalysisScoreIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoAnalysisScoreIndexer.class);
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    @Autowired
+    private VideoAnalysisRepository videoAnalysisRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("maintenanceExecutor")
+    private TaskExecutor maintenanceExecutor;
+
+    @Value("${video.analysis.score-index.backfill:true}")
+    private boolean backfillEnabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Tách điểm từ analysis_result (dùng khi tạo/sửa qua CRUD API và khi backfill).
+     * Giống FullAnalysisService: không có điểm thì average_score = null và skill
+     * level mặc định, nên mỗi bản ghi chỉ cần xử lý một lần.
+     */
+    public void apply(VideoAnalysis analysis) {
+        if (analysis.getAnalysisResult() == null) {
+            analysis.setAverageScore(null);
+            analysis.setSkillLevel(null);
+            return;
+        }
+        Double averageScore = null;
+        try {
+            JsonNode score = objectMapper.readTree(analysis.getAnalysisResult())
+                    .path("performanceMetrics").path("averageScore");
+            if (score.isNumber()) {
+                averageScore = score.doubleValue();
+            }
+        } catch (IOException e) {
+            logger.debug("Unreadable analysis_result for video {}", analysis.getVideoId());
+        }
+        analysis.setAverageScore(averageScore);
+        analysis.setSkillLevel(FullAnalysisService.mapScoreToSkillLevel(averageScore));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleBackfill() {
+        if (backfillEnabled) {
+            maintenanceExecutor.execute(this::backfill);
+        }
+    }
+
+    /**
+     * Tách điểm cho các bản phân tích có từ trước khi có hai cột này, mỗi batch
+     * trong một transaction ngắn. Bản ghi đã xử lý có skill_level nên lần khởi
+     * động sau không quét lại.
+     */
+    void backfill() {
+        int scored = 0;
+        String afterVideoId = "";
+        try {
+            while (true) {
+                List<String> videoIds = videoAnalysisRepository.findUnscoredVideoIds(afterVideoId,
+                        PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                if (videoIds.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> videoAnalysisRepository.findAllById(videoIds)
+                        .forEach(this::apply));
+                scored += videoIds.size();
+                afterVideoId = videoIds.get(videoIds.size() - 1);
+            }
+        } catch (Exception e) {
+            logger.warn("Score backfill stopped after {} analyses: {}", scored, e.getMessage());
+            return;
+        }
+        if (scored > 0) {
+            logger.info("Backfilled average score for {} video analyses", scored);
+        }
+    }
+}
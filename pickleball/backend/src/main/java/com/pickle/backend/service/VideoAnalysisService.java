@@ -1,12 +1,18 @@
 package com.pickle.backend.service;
 
+import com.pickle.backend.dto.CursorPageDTO;
+import com.pickle.backend.dto.VideoAnalysisSummaryDTO;
 import com.pickle.backend.entity.VideoAnalysis;
 import com.pickle.backend.repository.VideoAnalysisRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
 import org.slf4j.Logger;
@@ -18,6 +24,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class VideoAnalysisService {
 
     private static final Logger logger = LoggerFactory.getLogger(VideoAnalysisService.class);
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final RestTemplate restTemplate;
     private final EntityManager entityManager;
@@ -26,6 +33,12 @@ public class VideoAnalysisService {
     @Autowired
     private VideoAnalysisRepository videoAnalysisRepository;
 
+    @Autowired
+    private VideoAnalysisShotIndexer shotIndexer;
+
+    @Autowired
+    private VideoAnalysisScoreIndexer scoreIndexer;
+
     public VideoAnalysisService(RestTemplate restTemplate, EntityManager entityManager) {
         this.restTemplate = restTemplate;
         this.entityManager = entityManager;
@@ -46,7 +59,13 @@ public class VideoAnalysisService {
         validateJson(videoAnalysis.getAnalysisResult());
         validateJson(videoAnalysis.getRecommendations());
         videoAnalysis.setVideoId(UUID.randomUUID().toString());
-        return videoAnalysisRepository.save(videoAnalysis);
+        if (videoAnalysis.getCreatedAt() == null) {
+            videoAnalysis.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        }
+        scoreIndexer.apply(videoAnalysis);
+        VideoAnalysis saved = videoAnalysisRepository.save(videoAnalysis);
+        shotIndexer.reindex(saved);
+        return saved;
     }
 
     public VideoAnalysis updateVideoAnalysis(String id, VideoAnalysis analysis) {
@@ -59,7 +78,10 @@ public class VideoAnalysisService {
             existing.setRecommendations(analysis.getRecommendations());
             existing.setVideoPath(analysis.getVideoPath());
             existing.setCreatedAt(analysis.getCreatedAt());
-            return videoAnalysisRepository.save(existing);
+            scoreIndexer.apply(existing);
+            VideoAnalysis saved = videoAnalysisRepository.save(existing);
+            shotIndexer.reindex(saved);
+            return saved;
         }
         return null;
     }
@@ -67,6 +89,7 @@ public class VideoAnalysisService {
     public void deleteVideoAnalysis(String id) {
         VideoAnalysis analysis = entityManager.find(VideoAnalysis.class, id);
         if (analysis != null) {
+            shotIndexer.remove(id);
             entityManager.remove(analysis);
         }
     }
@@ -77,10 +100,121 @@ public class VideoAnalysisService {
                 .getResultList();
     }
 
+    // Tra qua bảng video_analysis_shots thay vì LIKE trên cột shot_analysis
     public List<VideoAnalysis> findByShotType(String shotType) {
-        return entityManager.createQuery("SELECT v FROM VideoAnalysis v WHERE v.shotAnalysis LIKE :shotType", VideoAnalysis.class)
-                .setParameter("shotType", "%" + shotType + "%")
-                .getResultList();
+        String normalizedShot = VideoAnalysisShotIndexer.normalizeShotType(shotType);
+        if (normalizedShot == null) {
+            return List.of();
+        }
+        return videoAnalysisRepository.findByShotType(normalizedShot);
+    }
+
+    /**
+     * Danh sách rút gọn, mới nhất trước, phân trang theo keyset (created_at, video_id)
+     * nên chi phí mỗi trang không tăng theo số trang đã đọc. userId = null để lấy
+     * của mọi người dùng. Bản ghi không có created_at nằm cuối danh sách (MySQL và
+     * H2 đều coi NULL là nhỏ nhất).
+     */
+    public CursorPageDTO<VideoAnalysisSummaryDTO> getSummaries(String userId, String cursor, int size) {
+        return searchSummaries(null, userId, null, null, false, cursor, size);
+    }
+
+    /**
+     * Tìm bản phân tích theo cú đánh, người dùng và khoảng thời gian [from, to).
+     * Khi có shotType, truy vấn đi từ bảng video_analysis_shots (đã có index theo
+     * shot_type/user_id/created_at) rồi mới join sang video_analyses.
+     */
+    public CursorPageDTO<VideoAnalysisSummaryDTO> searchSummaries(String shotType, String userId, Timestamp from,
+            Timestamp to, boolean weakestOnly, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String normalizedShot = null;
+        if (shotType != null) {
+            normalizedShot = VideoAnalysisShotIndexer.normalizeShotType(shotType);
+            if (normalizedShot == null) {
+                throw new IllegalArgumentException("Invalid shot type: " + shotType);
+            }
+        }
+        // k là bảng chứa khóa phân trang và các cột lọc
+        String k = normalizedShot != null ? "s" : "v";
+        StringBuilder jpql = new StringBuilder("SELECT new com.pickle.backend.dto.VideoAnalysisSummaryDTO("
+                + "v.videoId, v.userId, v.createdAt, v.averageScore, v.skillLevel) ");
+        if (normalizedShot != null) {
+            jpql.append("FROM VideoAnalysisShot s JOIN VideoAnalysis v ON v.videoId = s.videoId"
+                    + " WHERE s.shotType = :shotType");
+            if (weakestOnly) {
+                jpql.append(" AND s.weakest = true");
+            }
+        } else {
+            jpql.append("FROM VideoAnalysis v WHERE 1 = 1");
+        }
+        if (userId != null) {
+            jpql.append(" AND ").append(k).append(".userId = :userId");
+        }
+        if (from != null) {
+            jpql.append(" AND ").append(k).append(".createdAt >= :from");
+        }
+        if (to != null) {
+            jpql.append(" AND ").append(k).append(".createdAt < :to");
+        }
+        Cursor after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : null;
+        if (after != null && after.createdAt() != null) {
+            jpql.append(String.format(" AND (%1$s.createdAt < :createdAt OR (%1$s.createdAt = :createdAt"
+                    + " AND %1$s.videoId < :videoId) OR %1$s.createdAt IS NULL)", k));
+        } else if (after != null) {
+            jpql.append(String.format(" AND %1$s.createdAt IS NULL AND %1$s.videoId < :videoId", k));
+        }
+        jpql.append(String.format(" ORDER BY %1$s.createdAt DESC, %1$s.videoId DESC", k));
+
+        TypedQuery<VideoAnalysisSummaryDTO> query = entityManager.createQuery(jpql.toString(),
+                VideoAnalysisSummaryDTO.class);
+        if (normalizedShot != null) {
+            query.setParameter("shotType", normalizedShot);
+        }
+        if (userId != null) {
+            query.setParameter("userId", userId);
+        }
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        if (after != null) {
+            if (after.createdAt() != null) {
+                query.setParameter("createdAt", after.createdAt());
+            }
+            query.setParameter("videoId", after.videoId());
+        }
+        // Lấy thêm một bản ghi để biết còn trang sau hay không
+        List<VideoAnalysisSummaryDTO> items = query.setMaxResults(pageSize + 1).getResultList();
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            VideoAnalysisSummaryDTO last = items.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getVideoId());
+        }
+        return new CursorPageDTO<>(items, nextCursor);
+    }
+
+    private record Cursor(Timestamp createdAt, String videoId) {
+    }
+
+    // Cursor dạng base64url của "<createdAt millis>:<videoId>", "-" khi createdAt null
+    private static String encodeCursor(Timestamp createdAt, String videoId) {
+        String raw = (createdAt != null ? String.valueOf(createdAt.getTime()) : "-") + ":" + videoId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String createdAt = raw.substring(0, separator);
+            return new Cursor("-".equals(createdAt) ? null : new Timestamp(Long.parseLong(createdAt)),
+                    raw.substring(separator + 1));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
     }
 
     private void validateJson(String json) {
@@ -0,0 +1,204 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.entity.VideoAnalysisShot;
+import com.pickle.backend.repository.VideoAnalysisRepository;
+import com.pickle.backend.repository.VideoAnalysisShotRepository;
+import com.pickle.backend.util.FeedbackFrameCodec;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ghi bảng video_analysis_shots (các loại cú đánh của mỗi bản phân tích) để tìm
+ * kiếm theo cú đánh dùng index thay vì LIKE trên cột shot_analysis.
+ */
+@Service
+public class VideoAnalysisShotIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoAnalysisShotIndexer.class);
+    private static final int MAX_SHOT_TYPE_LENGTH = 50;
+    private static final int BACKFILL_BATCH_SIZE = 100;
+
+    @Autowired
+    private VideoAnalysisShotRepository shotRepository;
+
+    @Autowired
+    private VideoAnalysisRepository videoAnalysisRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("maintenanceExecutor")
+    private TaskExecutor maintenanceExecutor;
+
+    @Value("${video.analysis.shot-index.backfill:true}")
+    private boolean backfillEnabled;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void initTransactionTemplate() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ghi các cú đánh của một bản phân tích mới. Gọi trong transaction ghi bản
+     * phân tích để hai bảng luôn khớp nhau.
+     */
+    public void index(VideoAnalysis analysis, Collection<String> shotTypes, Collection<String> weakestShots) {
+        Map<String, Boolean> shots = new LinkedHashMap<>();
+        if (shotTypes != null) {
+            shotTypes.forEach(shot -> addShot(shots, shot, false));
+        }
+        if (weakestShots != null) {
+            weakestShots.forEach(shot -> addShot(shots, shot, true));
+        }
+        List<VideoAnalysisShot> rows = new ArrayList<>(shots.size());
+        shots.forEach((shotType, weakest) -> rows.add(new VideoAnalysisShot(analysis, shotType, weakest)));
+        shotRepository.saveAll(rows);
+        analysis.setShotsIndexed(true);
+    }
+
+    /**
+     * Ghi lại index từ các cột JSON của bản phân tích (dùng khi tạo/sửa qua CRUD
+     * API và khi backfill).
+     */
+    public void reindex(VideoAnalysis analysis) {
+        shotRepository.deleteByVideoId(analysis.getVideoId());
+        index(analysis, extractShotTypes(analysis), extractWeakestShots(analysis.getShotAnalysis()));
+    }
+
+    public void remove(String videoId) {
+        shotRepository.deleteByVideoId(videoId);
+    }
+
+    public static String normalizeShotType(String shot) {
+        if (shot == null) {
+            return null;
+        }
+        String normalized = shot.trim().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty() || normalized.equals("unknown") || normalized.length() > MAX_SHOT_TYPE_LENGTH) {
+            return null;
+        }
+        return normalized;
+    }
+
+    private static void addShot(Map<String, Boolean> shots, String shot, boolean weakest) {
+        String shotType = normalizeShotType(shot);
+        if (shotType != null) {
+            shots.merge(shotType, weakest, Boolean::logicalOr);
+        }
+    }
+
+    private List<String> extractShotTypes(VideoAnalysis analysis) {
+        List<String> shotTypes = new ArrayList<>();
+        List<FeedbackFrame> frames;
+        if (analysis.getFeedbackFrames() != null) {
+            frames = FeedbackFrameCodec.decode(analysis.getFeedbackFrames());
+        } else {
+            JsonNode legacy = readJson(analysis.getLegacyDetailedFeedbacks());
+            frames = new ArrayList<>();
+            if (legacy != null && legacy.isArray()) {
+                legacy.forEach(frame -> {
+                    if (frame.isObject()) {
+                        frames.add(FeedbackFrame.of((ObjectNode) frame));
+                    }
+                });
+            }
+        }
+        for (FeedbackFrame frame : frames) {
+            // Chỉ shot.type dạng chuỗi (đã được tách khỏi residual)
+            String type = frame.storedShotType();
+            if (type != null) {
+                shotTypes.add(type);
+            }
+        }
+        return shotTypes;
+    }
+
+    private List<String> extractWeakestShots(String shotAnalysisJson) {
+        List<String> weakestShots = new ArrayList<>();
+        JsonNode shotAnalysis = readJson(shotAnalysisJson);
+        if (shotAnalysis != null && shotAnalysis.isObject()) {
+            JsonNode shots = shotAnalysis.has("weakestShots") ? shotAnalysis.get("weakestShots")
+                    : shotAnalysis.get("weakest_shots");
+            if (shots != null && shots.isArray()) {
+                shots.forEach(shot -> weakestShots.add(shot.asText()));
+            }
+        }
+        return weakestShots;
+    }
+
+    private JsonNode readJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(json);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleBackfill() {
+        if (backfillEnabled) {
+            maintenanceExecutor.execute(this::backfill);
+        }
+    }
+
+    /**
+     * Đánh index cho các bản phân tích có từ trước khi có bảng video_analysis_shots,
+     * mỗi batch trong một transaction ngắn. Bản ghi đã xử lý được đánh dấu
+     * shots_indexed nên lần khởi động sau không quét lại, kể cả khi không có cú đánh.
+     */
+    void backfill() {
+        int indexed = 0;
+        String afterVideoId = "";
+        try {
+            while (true) {
+                List<String> videoIds = shotRepository.findUnindexedVideoIds(afterVideoId,
+                        PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                if (videoIds.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> videoAnalysisRepository.findAllById(videoIds)
+                        .forEach(this::reindex));
+                indexed += videoIds.size();
+                afterVideoId = videoIds.get(videoIds.size() - 1);
+            }
+        } catch (Exception e) {
+            logger.warn("Shot index backfill stopped after {} analyses: {}", indexed, e.getMessage());
+            return;
+        }
+        if (indexed > 0) {
+            logger.info("Backfilled shot index for {} video analyses", indexed);
+        }
+    }
+}
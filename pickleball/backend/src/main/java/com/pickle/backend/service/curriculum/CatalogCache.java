@@ -0,0 +1,110 @@
+package com.pickle.backend.service.curriculum;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bộ nhớ đệm cho các trang duyệt catalog công khai (danh sách khóa học, khóa học
+ * nổi bật, chi tiết khóa học, bài học của khóa học). Mỗi view được giữ dưới dạng
+ * JSON đã serialize sẵn kèm ETag mạnh tính từ chính các byte đó, nên request lặp
+ * lại không chạm DB và client đã có bản mới nhất chỉ nhận 304.
+ * <p>
+ * Catalog chỉ đổi qua các endpoint admin; mỗi CurriculumChangedEvent tăng version
+ * và thay toàn bộ snapshot. View đang được nạp dở trong lúc đó chỉ được ghi vào
+ * snapshot cũ đã bị bỏ nên không thể sống sót qua lần đổi version.
+ */
+@Component
+public class CatalogCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogCache.class);
+
+    public record View(byte[] body, String etag) {
+    }
+
+    private record Snapshot(long version, Map<String, View> views) {
+    }
+
+    // ObjectMapper của Spring để JSON giống hệt khi controller tự serialize entity
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${curriculum.catalog.cache.enabled:true}")
+    private boolean enabled;
+
+    private volatile Snapshot snapshot = new Snapshot(1, new ConcurrentHashMap<>());
+
+    /**
+     * Trả view đã cache theo key, nếu chưa có thì gọi loader và serialize kết quả.
+     * Loader trả null (vd khóa học không tồn tại) thì trả null và không cache.
+     */
+    public View get(String key, Supplier<?> loader) {
+        Snapshot current = snapshot;
+        if (enabled) {
+            View cached = current.views().get(key);
+            if (cached != null) {
+                count("hit");
+                return cached;
+            }
+        }
+        count("miss");
+        Object value = loader.get();
+        if (value == null) {
+            return null;
+        }
+        View view = serialize(value);
+        if (enabled) {
+            current.views().putIfAbsent(key, view);
+        }
+        return view;
+    }
+
+    public long version() {
+        return snapshot.version();
+    }
+
+    @EventListener
+    public void onCurriculumChanged(CurriculumChangedEvent event) {
+        // Tên, số bài học... của khóa học xuất hiện ở nhiều view nên bỏ hết
+        synchronized (this) {
+            snapshot = new Snapshot(snapshot.version() + 1, new ConcurrentHashMap<>());
+        }
+        logger.debug("Catalog cache invalidated, now at version {}", snapshot.version());
+    }
+
+    private View serialize(Object value) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog view: " + e.getOriginalMessage(), e);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            // ETag chỉ phụ thuộc nội dung: đổi version mà view không đổi vẫn được 304
+            return new View(body, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("curriculum.catalog.cache.lookups", "result", result).increment();
+    }
+}
@@ -4,6 +4,7 @@ package com.pickle.backend.service.curriculum;
 import com.pickle.backend.entity.curriculum.Course;
 import com.pickle.backend.repository.curriculum.CourseRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,6 +14,9 @@ public class CourseService {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<Course> getAllCourses() {
         return courseRepository.findAll();
     }
@@ -21,12 +25,19 @@ public class CourseService {
         return courseRepository.findById(id);
     }
 
+    public boolean existsById(Long id) {
+        return courseRepository.existsById(id);
+    }
+
     public Course saveCourse(Course course) {
-        return courseRepository.save(course);
+        Course saved = courseRepository.save(course);
+        eventPublisher.publishEvent(CurriculumChangedEvent.course(saved.getId()));
+        return saved;
     }
 
     public void deleteCourse(Long id) {
         courseRepository.deleteById(id);
+        eventPublisher.publishEvent(CurriculumChangedEvent.course(id));
     }
 
     public List<Course> getCoursesByTitles(List<String> titles) {
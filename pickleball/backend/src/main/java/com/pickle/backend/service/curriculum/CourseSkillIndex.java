@@ -0,0 +1,122 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Course;
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.CourseRepository;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chỉ mục (LevelRequired, SkillType) -> khóa học trong bộ nhớ dùng cho việc đề
+ * xuất khóa học sau phân tích video. Được dựng lúc khởi động bằng hai truy vấn
+ * và dựng lại (lười) sau khi khóa học/bài học thay đổi. Mỗi snapshot mang
+ * generation lúc bắt đầu dựng; thay đổi xảy ra trong lúc đang dựng làm snapshot
+ * đó hết hiệu lực ngay nên không bị giữ lại tới lần sửa sau.
+ */
+@Component
+public class CourseSkillIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseSkillIndex.class);
+
+    // Bản sao bất biến của các trường khóa học cần cho đề xuất, không giữ entity
+    public record CourseSummary(Long id, String title, String description, String courseUrl,
+            String thumbnailUrl) {
+    }
+
+    private record Snapshot(long generation, Map<Course.LevelRequired, List<CourseSummary>> byLevel,
+            Map<Course.LevelRequired, Map<Lesson.SkillType, List<CourseSummary>>> byLevelAndSkill) {
+    }
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    private volatile Snapshot snapshot;
+
+    // Tăng mỗi lần curriculum thay đổi; snapshot dựng ở generation cũ không được dùng
+    private final AtomicLong generation = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            current();
+        } catch (Exception e) {
+            logger.warn("Could not build course skill index at startup: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onCurriculumChanged(CurriculumChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    public List<CourseSummary> coursesForLevel(Course.LevelRequired level) {
+        return current().byLevel().getOrDefault(level, List.of());
+    }
+
+    public List<CourseSummary> coursesForLevelAndSkill(Course.LevelRequired level, Lesson.SkillType skillType) {
+        return current().byLevelAndSkill().getOrDefault(level, Map.of()).getOrDefault(skillType, List.of());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.generation() == generation.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            long expected = generation.get();
+            if (current == null || current.generation() != expected) {
+                current = build(expected);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private Snapshot build(long builtAt) {
+        Map<Long, CourseSummary> coursesById = new HashMap<>();
+        Map<Long, Course.LevelRequired> levelById = new HashMap<>();
+        Map<Course.LevelRequired, List<CourseSummary>> byLevel = new EnumMap<>(Course.LevelRequired.class);
+        for (Course course : courseRepository.findAll()) {
+            CourseSummary summary = new CourseSummary(course.getId(), course.getTitle(), course.getDescription(),
+                    course.getCourseUrl(), course.getThumbnailUrl());
+            coursesById.put(course.getId(), summary);
+            if (course.getLevelRequired() != null) {
+                levelById.put(course.getId(), course.getLevelRequired());
+                byLevel.computeIfAbsent(course.getLevelRequired(), k -> new ArrayList<>()).add(summary);
+            }
+        }
+
+        Map<Course.LevelRequired, Map<Lesson.SkillType, List<CourseSummary>>> byLevelAndSkill =
+                new EnumMap<>(Course.LevelRequired.class);
+        for (Object[] row : lessonRepository.findCourseSkillPairs()) {
+            Long courseId = (Long) row[0];
+            Lesson.SkillType skillType = (Lesson.SkillType) row[1];
+            Course.LevelRequired level = levelById.get(courseId);
+            if (level == null) {
+                continue;
+            }
+            byLevelAndSkill.computeIfAbsent(level, k -> new EnumMap<>(Lesson.SkillType.class))
+                    .computeIfAbsent(skillType, k -> new ArrayList<>())
+                    .add(coursesById.get(courseId));
+        }
+
+        logger.info("Built course skill index: {} courses, {} levels", coursesById.size(), byLevel.size());
+        return new Snapshot(builtAt, byLevel, byLevelAndSkill);
+    }
+}
@@ -0,0 +1,19 @@
+package com.pickle.backend.service.curriculum;
+
+import java.util.UUID;
+
+/**
+ * Phát ra khi khóa học hoặc bài học được tạo, sửa hoặc xóa để các bộ nhớ đệm
+ * curriculum trong bộ nhớ biết cần làm mới. courseId/lessonId có thể null nếu
+ * không xác định được.
+ */
+public record CurriculumChangedEvent(Long courseId, UUID lessonId) {
+
+    public static CurriculumChangedEvent course(Long courseId) {
+        return new CurriculumChangedEvent(courseId, null);
+    }
+
+    public static CurriculumChangedEvent lesson(Long courseId, UUID lessonId) {
+        return new CurriculumChangedEvent(courseId, lessonId);
+    }
+}
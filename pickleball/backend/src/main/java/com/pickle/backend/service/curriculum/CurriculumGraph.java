@@ -0,0 +1,193 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Cấu trúc curriculum trong bộ nhớ: khóa học -> bài học theo thứ tự, kèm các danh
+ * sách bài học theo level và (level, skill) để chọn bài học đề xuất và bài học
+ * đầu tiên mà không quét bảng lessons. Chỉ giữ id và các trường xếp thứ tự; nội
+ * dung bài học lấy qua LessonCache.
+ *
+ * Mỗi lần khóa học/bài học thay đổi chỉ khóa học liên quan được đọc lại, rồi một
+ * snapshot bất biến mới (version tăng dần) thay thế snapshot cũ.
+ */
+@Component
+public class CurriculumGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurriculumGraph.class);
+
+    public record LessonNode(UUID id, Long courseId, Lesson.LevelRequired level, Lesson.SkillType skillType,
+            Integer orderInCourse, Integer orderInModule) {
+    }
+
+    private record Snapshot(long version, Map<Long, List<LessonNode>> lessonsByCourse, List<LessonNode> ordered,
+            Map<Lesson.LevelRequired, List<LessonNode>> byLevel,
+            Map<Lesson.LevelRequired, Map<Lesson.SkillType, List<LessonNode>>> byLevelAndSkill) {
+    }
+
+    // Thứ tự trong khóa học; giữa các khóa học thì theo thứ tự bài rồi id khóa học
+    private static final Comparator<LessonNode> ORDER = Comparator
+            .comparing(LessonNode::orderInCourse, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(LessonNode::courseId, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(LessonNode::orderInModule, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(LessonNode::id);
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    private volatile Snapshot snapshot;
+
+    private long version;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            current();
+        } catch (Exception e) {
+            logger.warn("Could not build curriculum graph at startup: {}", e.getMessage());
+        }
+    }
+
+    @EventListener
+    public synchronized void onCurriculumChanged(CurriculumChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Chưa dựng: lần đọc tới sẽ dựng toàn bộ với dữ liệu mới
+            return;
+        }
+        if (event.courseId() == null) {
+            snapshot = null;
+            return;
+        }
+        try {
+            Map<Long, List<LessonNode>> lessonsByCourse = new HashMap<>(current.lessonsByCourse());
+            if (event.lessonId() != null) {
+                // Bài học có thể vừa chuyển sang khóa học khác
+                lessonsByCourse.replaceAll((courseId, lessons) -> lessons.stream()
+                        .filter(lesson -> !lesson.id().equals(event.lessonId()))
+                        .toList());
+            }
+            List<LessonNode> reloaded = toNodes(lessonRepository.findOutlineByCourseId(event.courseId()));
+            if (reloaded.isEmpty()) {
+                lessonsByCourse.remove(event.courseId());
+            } else {
+                lessonsByCourse.put(event.courseId(), reloaded);
+            }
+            lessonsByCourse.values().removeIf(List::isEmpty);
+            snapshot = index(++version, lessonsByCourse);
+            logger.debug("Curriculum graph updated to version {} for course {}", version, event.courseId());
+        } catch (Exception e) {
+            logger.warn("Could not update curriculum graph for course {}: {}", event.courseId(), e.getMessage());
+            snapshot = null;
+        }
+    }
+
+    public long version() {
+        return current().version();
+    }
+
+    public List<UUID> courseLessons(Long courseId) {
+        return ids(current().lessonsByCourse().getOrDefault(courseId, List.of()));
+    }
+
+    public List<UUID> lessonsForLevel(Lesson.LevelRequired level) {
+        return ids(current().byLevel().getOrDefault(level, List.of()));
+    }
+
+    public List<UUID> lessonsForLevelAndSkill(Lesson.LevelRequired level, Lesson.SkillType skillType) {
+        return ids(current().byLevelAndSkill().getOrDefault(level, Map.of()).getOrDefault(skillType, List.of()));
+    }
+
+    /**
+     * Bài học đầu tiên của toàn bộ curriculum, dùng cho learner chưa có tiến độ.
+     */
+    public Optional<UUID> entryLesson() {
+        return first(current().ordered());
+    }
+
+    public Optional<UUID> entryLesson(Long courseId) {
+        return first(current().lessonsByCourse().getOrDefault(courseId, List.of()));
+    }
+
+    public Optional<UUID> entryLesson(Lesson.LevelRequired level) {
+        return first(current().byLevel().getOrDefault(level, List.of()));
+    }
+
+    public Optional<UUID> entryLesson(Lesson.LevelRequired level, Lesson.SkillType skillType) {
+        return first(current().byLevelAndSkill().getOrDefault(level, Map.of()).getOrDefault(skillType, List.of()));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                Map<Long, List<LessonNode>> lessonsByCourse = new HashMap<>();
+                for (LessonNode lesson : toNodes(lessonRepository.findOutline())) {
+                    lessonsByCourse.computeIfAbsent(lesson.courseId(), k -> new ArrayList<>()).add(lesson);
+                }
+                lessonsByCourse.replaceAll((courseId, lessons) -> List.copyOf(lessons));
+                snapshot = index(++version, lessonsByCourse);
+                logger.info("Built curriculum graph version {}: {} courses, {} lessons", version,
+                        lessonsByCourse.size(), snapshot.ordered().size());
+            }
+            return snapshot;
+        }
+    }
+
+    private static Snapshot index(long version, Map<Long, List<LessonNode>> lessonsByCourse) {
+        List<LessonNode> ordered = new ArrayList<>();
+        lessonsByCourse.values().forEach(ordered::addAll);
+        ordered.sort(ORDER);
+
+        Map<Lesson.LevelRequired, List<LessonNode>> byLevel = new EnumMap<>(Lesson.LevelRequired.class);
+        Map<Lesson.LevelRequired, Map<Lesson.SkillType, List<LessonNode>>> byLevelAndSkill =
+                new EnumMap<>(Lesson.LevelRequired.class);
+        for (LessonNode lesson : ordered) {
+            if (lesson.level() == null) {
+                continue;
+            }
+            byLevel.computeIfAbsent(lesson.level(), k -> new ArrayList<>()).add(lesson);
+            if (lesson.skillType() != null) {
+                byLevelAndSkill.computeIfAbsent(lesson.level(), k -> new EnumMap<>(Lesson.SkillType.class))
+                        .computeIfAbsent(lesson.skillType(), k -> new ArrayList<>())
+                        .add(lesson);
+            }
+        }
+        return new Snapshot(version, Map.copyOf(lessonsByCourse), List.copyOf(ordered), byLevel, byLevelAndSkill);
+    }
+
+    private static List<LessonNode> toNodes(List<LessonRepository.OutlineRow> rows) {
+        return rows.stream()
+                .map(row -> new LessonNode(row.getId(), row.getCourseId(), row.getLevel(), row.getSkillType(),
+                        row.getOrderInCourse(), row.getOrderInModule()))
+                .sorted(ORDER)
+                .toList();
+    }
+
+    private static List<UUID> ids(List<LessonNode> lessons) {
+        return lessons.stream().map(LessonNode::id).toList();
+    }
+
+    private static Optional<UUID> first(List<LessonNode> lessons) {
+        return lessons.isEmpty() ? Optional.empty() : Optional.of(lessons.get(0).id());
+    }
+}
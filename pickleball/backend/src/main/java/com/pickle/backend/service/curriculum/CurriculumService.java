@@ -4,7 +4,6 @@ import com.pickle.backend.entity.curriculum.LearnerProgress;
 import com.pickle.backend.entity.curriculum.Lesson;
 
 import com.pickle.backend.repository.curriculum.LearnerProgressRepository;
-import com.pickle.backend.repository.curriculum.LessonRepository;
 
 import com.pickle.backend.repository.curriculum.VideoLessonRecommendationRepository;
 import com.pickle.backend.entity.curriculum.VideoLessonRecommendation;
@@ -16,12 +15,14 @@ import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 
 import java.util.List;
 import java.util.UUID;
 import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 import java.util.Optional;
 
@@ -34,10 +35,16 @@ public class CurriculumService {
     private LearnerProgressRepository learnerProgressRepository;
 
     @Autowired
-    private LessonRepository lessonRepository;
+    private VideoLessonRecommendationRepository videoLessonRecommendationRepository;
 
     @Autowired
-    private VideoLessonRecommendationRepository videoLessonRecommendationRepository;
+    private LessonCache lessonCache;
+
+    @Autowired
+    private CurriculumGraph curriculumGraph;
+
+    @Autowired
+    private ProgressHeartbeatBuffer heartbeatBuffer;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -55,19 +62,11 @@ public class CurriculumService {
                     "Khong tim thay tien do hoc tap chua hoan thanh cho learnerId: {}. Chuyen sang de xuat bai hoc dau tien.",
                     learnerId);
         } else {
-            for (LearnerProgress progress : progressList) {
-                // Su dung progress.getLearnerId() thay vi progress.getLearner().getId()
-                logger.debug("Xu ly tien do cho Lesson ID: {} va Learner ID: {}", progress.getLesson().getId(),
-                        progress.getLearnerId());
-
-                lessonRepository.findById(progress.getLesson().getId())
-                        .ifPresent(lesson -> {
-                            recommendedLessons.add(lesson);
-                            logger.info(
-                                    "Da them bai hoc de xuat tu tien do chua hoan thanh: Lesson ID = {}, Tieu de = {}",
-                                    lesson.getId(), lesson.getTitle());
-                        });
-            }
+            // Id bai hoc co san tren proxy cua progress, khong can nap Lesson; nap tat ca qua LessonCache
+            List<UUID> lessonIds = progressList.stream()
+                    .map(progress -> progress.getLesson().getId())
+                    .toList();
+            recommendedLessons.addAll(lessonCache.getAll(lessonIds));
         }
 
         // Neu khong co bai hoc chua hoan thanh duoc de xuat (tu danh sach progressList
@@ -75,9 +74,9 @@ public class CurriculumService {
         if (recommendedLessons.isEmpty()) {
             logger.info(
                     "recommendedLessons rong sau khi kiem tra tien do. Tim kiem bai hoc dau tien trong bat ky khoa hoc nao.");
-            lessonRepository.findAll().stream()
-                    .filter(lesson -> lesson.getOrderInCourse() == 1)
-                    .findFirst()
+            curriculumGraph.entryLesson()
+                    .map(lessonId -> lessonCache.getAll(List.of(lessonId)))
+                    .flatMap(lessons -> lessons.stream().findFirst())
                     .ifPresent(lesson -> {
                         recommendedLessons.add(lesson);
                         logger.info("Da them bai hoc dau tien cua khoa hoc lam de xuat: Lesson ID = {}, Tieu de = {}",
@@ -105,32 +104,51 @@ public class CurriculumService {
         return learnerProgressRepository.existsByLearnerIdAndLessonId(learnerId, lessonId);
     }
 
-    @Transactional
+    // Tra cứu theo unique key (learner_id, lesson_id), không sửa dữ liệu
     public long getIdProgressByLessonId(UUID lessonId, String learnerId) {
-        // Lấy tất cả các id khớp với lessonId và learnerId
-        List<Long> ids = learnerProgressRepository.findIdsByLessonIdAndLearnerId(lessonId, learnerId);
+        Long id = learnerProgressRepository.findIdByLessonIdAndLearnerId(lessonId, learnerId);
+        return id != null ? id : -1L;
+    }
 
-        if (ids.isEmpty()) {
-            return -1L;
+    /**
+     * Ghi tiến độ của learner cho bài học bằng một câu upsert: gọi lại nhiều lần
+     * vẫn chỉ có một dòng cho mỗi (learner, lesson).
+     */
+    @Transactional
+    public LearnerProgress saveProgress(String learnerId, UUID lessonId, Boolean isCompleted,
+            Integer watchedDurationSeconds) {
+        if (learnerId == null || lessonId == null) {
+            throw new IllegalArgumentException("learnerId and lessonId are required");
         }
-
-        if (ids.size() == 1) {
-            return ids.get(0);
+        if (lessonCache.getAll(List.of(lessonId)).isEmpty()) {
+            throw new IllegalArgumentException("Lesson not found: " + lessonId);
         }
+        learnerProgressRepository.upsert(learnerId, lessonId, isCompleted, watchedDurationSeconds,
+                LocalDateTime.now());
+        return learnerProgressRepository.findFirstByLearnerIdAndLessonIdOrderByIdDesc(learnerId, lessonId)
+                .map(heartbeatBuffer::overlay)
+                .orElseThrow(() -> new IllegalStateException("Progress not found after upsert"));
+    }
 
-        Long idToKeep = ids.stream()
-                .max(Long::compare)
-                .orElseThrow(() -> new RuntimeException("No valid id found"));
-
-        List<Long> idsToDelete = ids.stream()
-                .filter(id -> !id.equals(idToKeep))
-                .toList();
-
-        if (!idsToDelete.isEmpty()) {
-            learnerProgressRepository.deleteByIds(idsToDelete);
+    /**
+     * Báo cáo tiến độ xem video định kỳ: gom trong ProgressHeartbeatBuffer và ghi
+     * theo lô, trừ khi báo cáo đánh dấu hoàn thành.
+     */
+    public void recordHeartbeat(String learnerId, UUID lessonId, Boolean isCompleted,
+            Integer watchedDurationSeconds) {
+        if (learnerId == null || lessonId == null) {
+            throw new IllegalArgumentException("learnerId and lessonId are required");
         }
+        if (lessonCache.getAll(List.of(lessonId)).isEmpty()) {
+            throw new IllegalArgumentException("Lesson not found: " + lessonId);
+        }
+        heartbeatBuffer.record(learnerId, lessonId, watchedDurationSeconds, Boolean.TRUE.equals(isCompleted));
+    }
 
-        return idToKeep; // Trả về id của hàng được giữ lại
+    public List<LearnerProgress> getLearnerProgress(String learnerId) {
+        List<LearnerProgress> progress = learnerProgressRepository.findByLearnerId(learnerId);
+        progress.forEach(heartbeatBuffer::overlay);
+        return progress;
     }
 
     public boolean checkCompleted(Long id) {
@@ -146,8 +164,8 @@ public class CurriculumService {
                 "Bat dau lay bai hoc de xuat dua tren phan tich video cho learnerId: {}, skillLevel: {}, weakestShots: {}",
                 learnerId, skillLevel, weakestShots);
 
-        List<Lesson> recommendedLessons = new ArrayList<>();
-        Set<UUID> addedLessonIds = new HashSet<>();
+        // Chọn id theo CurriculumGraph, chỉ nạp nội dung bài học một lần ở cuối
+        Set<UUID> addedLessonIds = new LinkedHashSet<>();
 
         // Chuyển đổi skill level thành level required
         Lesson.LevelRequired levelRequired = mapSkillLevelToLevelRequired(skillLevel);
@@ -157,44 +175,33 @@ public class CurriculumService {
             for (String shot : weakestShots) {
                 Lesson.SkillType skillType = mapShotToSkillType(shot);
                 if (skillType != null) {
-                    List<Lesson> lessonsForSkill = lessonRepository.findBySkillTypeAndLevel(skillType, levelRequired);
-                    for (Lesson lesson : lessonsForSkill) {
-                        if (!addedLessonIds.contains(lesson.getId())) {
-                            recommendedLessons.add(lesson);
-                            addedLessonIds.add(lesson.getId());
-                            logger.info("Da them bai hoc de xuat cho skill {}: Lesson ID = {}, Tieu de = {}",
-                                    skillType, lesson.getId(), lesson.getTitle());
-                        }
-                    }
+                    List<UUID> lessonsForSkill = curriculumGraph.lessonsForLevelAndSkill(levelRequired, skillType);
+                    addedLessonIds.addAll(lessonsForSkill);
+                    logger.info("Da them {} bai hoc de xuat cho skill {}", lessonsForSkill.size(), skillType);
                 }
             }
         }
 
         // 2. Đề xuất bài học phù hợp với skill level
-        List<Lesson> levelBasedLessons = lessonRepository.findByLevelOrderByOrderInCourse(levelRequired);
-        for (Lesson lesson : levelBasedLessons) {
-            if (!addedLessonIds.contains(lesson.getId()) && recommendedLessons.size() < 6) {
-                recommendedLessons.add(lesson);
-                addedLessonIds.add(lesson.getId());
-                logger.info("Da them bai hoc de xuat theo level: Lesson ID = {}, Tieu de = {}",
-                        lesson.getId(), lesson.getTitle());
+        for (UUID lessonId : curriculumGraph.lessonsForLevel(levelRequired)) {
+            if (addedLessonIds.size() >= 6) {
+                break;
             }
+            addedLessonIds.add(lessonId);
         }
 
         // 3. Nếu vẫn chưa đủ, thêm bài học cơ bản
-        if (recommendedLessons.size() < 3) {
-            List<Lesson> beginnerLessons = lessonRepository
-                    .findByLevelOrderByOrderInCourse(Lesson.LevelRequired.BEGINNER);
-            for (Lesson lesson : beginnerLessons) {
-                if (!addedLessonIds.contains(lesson.getId()) && recommendedLessons.size() < 6) {
-                    recommendedLessons.add(lesson);
-                    addedLessonIds.add(lesson.getId());
-                    logger.info("Da them bai hoc co ban: Lesson ID = {}, Tieu de = {}",
-                            lesson.getId(), lesson.getTitle());
+        if (addedLessonIds.size() < 3) {
+            for (UUID lessonId : curriculumGraph.lessonsForLevel(Lesson.LevelRequired.BEGINNER)) {
+                if (addedLessonIds.size() >= 6) {
+                    break;
                 }
+                addedLessonIds.add(lessonId);
             }
         }
 
+        List<Lesson> recommendedLessons = lessonCache.getAll(new ArrayList<>(addedLessonIds));
+
         logger.info(
                 "Ket thuc lay bai hoc de xuat dua tren phan tich video cho learnerId: {}. Tong so bai hoc de xuat: {}",
                 learnerId, recommendedLessons.size());
@@ -215,23 +222,14 @@ public class CurriculumService {
             if (latestRecommendation.isPresent()) {
                 VideoLessonRecommendation recommendation = latestRecommendation.get();
 
-                // Parse lesson IDs từ JSON string
-                List<String> lessonIds = objectMapper.readValue(
-                        recommendation.getRecommendedLessonIds(),
-                        new TypeReference<List<String>>() {
-                        });
-
-                // Lấy lessons theo IDs
-                List<Lesson> lessons = new ArrayList<>();
-                for (String lessonIdStr : lessonIds) {
-                    try {
-                        UUID lessonId = UUID.fromString(lessonIdStr);
-                        lessonRepository.findById(lessonId).ifPresent(lessons::add);
-                    } catch (IllegalArgumentException e) {
-                        logger.warn("Invalid lesson ID format: {}", lessonIdStr);
-                    }
+                List<UUID> lessonIds = videoLessonRecommendationRepository.findLessonIds(recommendation.getId());
+                if (lessonIds.isEmpty() && recommendation.getRecommendedLessonIds() != null) {
+                    lessonIds = parseLegacyLessonIds(recommendation.getRecommendedLessonIds());
                 }
 
+                // Lấy lessons theo IDs, giữ thứ tự đề xuất
+                List<Lesson> lessons = lessonCache.getAll(lessonIds);
+
                 logger.info("Đã lấy {} bài học đề xuất từ video analysis cho learnerId: {}",
                         lessons.size(), learnerId);
                 return lessons;
@@ -245,6 +243,20 @@ public class CurriculumService {
         return getRecommendedLessons(learnerId);
     }
 
+    // Bản ghi đề xuất cũ lưu danh sách id dạng JSON string
+    private List<UUID> parseLegacyLessonIds(String json) throws IOException {
+        List<UUID> lessonIds = new ArrayList<>();
+        for (String lessonIdStr : objectMapper.readValue(json, new TypeReference<List<String>>() {
+        })) {
+            try {
+                lessonIds.add(UUID.fromString(lessonIdStr));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Invalid lesson ID format: {}", lessonIdStr);
+            }
+        }
+        return lessonIds;
+    }
+
     private Lesson.LevelRequired mapSkillLevelToLevelRequired(String skillLevel) {
         return switch (skillLevel) {
             case "Advanced" -> Lesson.LevelRequired.ADVANCED;
@@ -0,0 +1,84 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.LearnerProgress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Trước khi có unique key (learner_id, lesson_id), mỗi lần lưu tiến độ đều thêm
+ * dòng mới nên bảng learner_progress cũ có thể có dòng trùng; khi đó ddl-auto
+ * không thêm được unique key. Lúc khởi động, nếu key chưa có thì xóa các dòng
+ * trùng (giữ dòng mới nhất, như cách dọn cũ khi đọc) rồi thêm key.
+ */
+@Component
+public class LearnerProgressDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LearnerProgressDeduplicator.class);
+
+    private static final String TABLE = "learner_progress";
+
+    // Bảng tạm dẫn xuất để MySQL cho phép đọc chính bảng đang xóa
+    private static final String DELETE_DUPLICATES_SQL = "DELETE FROM learner_progress WHERE id NOT IN"
+            + " (SELECT keep_id FROM (SELECT MAX(id) AS keep_id FROM learner_progress"
+            + " GROUP BY learner_id, lesson_id) latest)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${curriculum.progress.dedupe:true}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void deduplicate() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (hasUniqueKey()) {
+                return;
+            }
+            int deleted = jdbcTemplate.update(DELETE_DUPLICATES_SQL);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + LearnerProgress.LEARNER_LESSON_KEY
+                    + " UNIQUE (learner_id, lesson_id)");
+            logger.info("Removed {} duplicate learner progress rows and added unique key {}", deleted,
+                    LearnerProgress.LEARNER_LESSON_KEY);
+        } catch (Exception e) {
+            logger.warn("Could not deduplicate learner progress: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasUniqueKey() {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // MySQL giữ tên bảng chữ thường, H2 chuyển sang chữ hoa
+            return hasIndex(metaData, connection.getCatalog(), TABLE)
+                    || hasIndex(metaData, connection.getCatalog(), TABLE.toUpperCase(Locale.ROOT));
+        });
+        return Boolean.TRUE.equals(found);
+    }
+
+    private static boolean hasIndex(DatabaseMetaData metaData, String catalog, String table) throws SQLException {
+        try (ResultSet indexes = metaData.getIndexInfo(catalog, null, table, true, false)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                // H2 đặt tên index theo dạng <tên constraint>_INDEX_<n>
+                if (name != null && name.toLowerCase(Locale.ROOT).startsWith(LearnerProgress.LEARNER_LESSON_KEY)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bộ nhớ đệm bài học theo id, dùng chung cho các đường đề xuất bài học. Các id
+ * chưa có được nạp cùng lúc bằng một truy vấn IN; mục bị bỏ khi bài học (hoặc cả
+ * cache khi khóa học) thay đổi. Số bài học bằng kích thước curriculum nên không
+ * giới hạn số mục. Kết quả của lần nạp trùng với một thay đổi chỉ trả cho người
+ * gọi, không được đưa vào cache.
+ */
+@Component
+public class LessonCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LessonCache.class);
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    private final Map<UUID, Lesson> lessons = new ConcurrentHashMap<>();
+
+    // Tăng mỗi lần curriculum thay đổi (dưới lock), để bỏ kết quả của lần nạp đang chạy dở
+    private long generation;
+
+    /**
+     * Các bài học theo đúng thứ tự ids, bỏ qua id trùng hoặc không còn tồn tại.
+     */
+    public List<Lesson> getAll(List<UUID> ids) {
+        Set<UUID> ordered = new LinkedHashSet<>(ids);
+        ordered.remove(null);
+        Map<UUID, Lesson> found = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID id : ordered) {
+            Lesson cached = lessons.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadedAt = currentGeneration();
+            for (Lesson lesson : lessonRepository.findWithCourseByIdIn(missing)) {
+                // Session đang mở có thể đã giữ proxy của bài học (vd từ LearnerProgress.lesson)
+                Lesson loaded = Hibernate.unproxy(lesson, Lesson.class);
+                found.put(loaded.getId(), loaded);
+            }
+            synchronized (this) {
+                // Bài học có thể vừa bị bỏ khỏi cache trong lúc nạp: khi đó không cache bản đã đọc
+                if (generation == loadedAt) {
+                    for (UUID id : missing) {
+                        Lesson loaded = found.get(id);
+                        if (loaded != null) {
+                            lessons.put(id, loaded);
+                        }
+                    }
+                }
+            }
+            logger.debug("Loaded {} of {} uncached lessons", missing.size(), ordered.size());
+        }
+
+        List<Lesson> result = new ArrayList<>(ordered.size());
+        for (UUID id : ordered) {
+            Lesson lesson = found.get(id);
+            if (lesson != null) {
+                result.add(lesson);
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public synchronized void onCurriculumChanged(CurriculumChangedEvent event) {
+        generation++;
+        if (event.lessonId() != null) {
+            lessons.remove(event.lessonId());
+        } else {
+            lessons.clear();
+        }
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+}
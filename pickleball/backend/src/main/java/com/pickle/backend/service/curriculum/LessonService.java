@@ -4,6 +4,7 @@ package com.pickle.backend.service.curriculum;
 import com.pickle.backend.entity.curriculum.Lesson;
 import com.pickle.backend.repository.curriculum.LessonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.Optional;
@@ -15,6 +16,9 @@ public class LessonService {
     @Autowired
     private LessonRepository lessonRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<Lesson> getAllLessons() {
         return lessonRepository.findAll();
     }
@@ -24,11 +28,18 @@ public class LessonService {
     }
 
     public Lesson saveLesson(Lesson lesson) {
-        return lessonRepository.save(lesson);
+        Lesson saved = lessonRepository.save(lesson);
+        Long courseId = saved.getCourse() != null ? saved.getCourse().getId() : null;
+        eventPublisher.publishEvent(CurriculumChangedEvent.lesson(courseId, saved.getId()));
+        return saved;
     }
 
     public void deleteLesson(UUID id) {
+        Long courseId = lessonRepository.findById(id)
+                .map(lesson -> lesson.getCourse() != null ? lesson.getCourse().getId() : null)
+                .orElse(null);
         lessonRepository.deleteById(id);
+        eventPublisher.publishEvent(CurriculumChangedEvent.lesson(courseId, id));
     }
 
     public List<Lesson> getLessonByIdCourse(long courseId){ return lessonRepository.findByCourseId(courseId);}
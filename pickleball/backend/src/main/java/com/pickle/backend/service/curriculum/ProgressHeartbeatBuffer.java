@@ -0,0 +1,161 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.LearnerProgress;
+import com.pickle.backend.repository.curriculum.LearnerProgressBatchRepository;
+import com.pickle.backend.repository.curriculum.LearnerProgressBatchRepository.ProgressUpdate;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gom các báo cáo tiến độ xem video (gửi mỗi giây khi video đang phát) theo
+ * (learner, lesson) trong bộ nhớ và ghi định kỳ thành một JDBC batch upsert, nên
+ * DB chỉ nhận vài câu lệnh mỗi chu kỳ thay vì một lệnh cho mỗi báo cáo. Đọc tiến
+ * độ thì chồng giá trị chưa ghi lên dòng trong DB. Báo cáo hoàn thành bài học
+ * được ghi ngay để các kiểm tra hoàn thành luôn thấy.
+ */
+@Service
+public class ProgressHeartbeatBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProgressHeartbeatBuffer.class);
+
+    private record Key(String learnerId, UUID lessonId) {
+    }
+
+    public record Heartbeat(Integer watchedDurationSeconds, LocalDateTime watchedAt) {
+
+        // Giữ báo cáo mới nhất; báo cáo thiếu thời lượng không xóa thời lượng đã có
+        Heartbeat merge(Heartbeat other) {
+            Heartbeat newer = other.watchedAt().isBefore(watchedAt) ? this : other;
+            Heartbeat older = newer == this ? other : this;
+            Integer watched = newer.watchedDurationSeconds() != null ? newer.watchedDurationSeconds()
+                    : older.watchedDurationSeconds();
+            return new Heartbeat(watched, newer.watchedAt());
+        }
+    }
+
+    @Autowired
+    private LearnerProgressBatchRepository batchRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${curriculum.progress.heartbeat.enabled:true}")
+    private boolean enabled;
+
+    // Vượt số cặp (learner, lesson) đang chờ này thì ghi ngay trên luồng gọi
+    @Value("${curriculum.progress.heartbeat.max-pending:10000}")
+    private int maxPending;
+
+    // ConcurrentHashMap khóa theo từng bin nên các cặp khác nhau không tranh nhau
+    private final Map<Key, Heartbeat> pending = new ConcurrentHashMap<>();
+
+    public void record(String learnerId, UUID lessonId, Integer watchedDurationSeconds, boolean completed) {
+        meterRegistry.counter("learner.progress.heartbeats", "stage", "received").increment();
+        Key key = new Key(learnerId, lessonId);
+        Heartbeat heartbeat = new Heartbeat(watchedDurationSeconds, LocalDateTime.now());
+        if (!enabled || completed) {
+            // Giá trị đang chờ chỉ được bỏ sau khi đã ghi, để đọc trong lúc ghi vẫn thấy nó
+            Heartbeat buffered = pending.get(key);
+            write(List.of(toUpdate(key, buffered != null ? buffered.merge(heartbeat) : heartbeat, completed)));
+            if (buffered != null) {
+                pending.remove(key, buffered);
+            }
+            return;
+        }
+        pending.merge(key, heartbeat, Heartbeat::merge);
+        if (pending.size() > maxPending) {
+            flush();
+        }
+    }
+
+    public Optional<Heartbeat> pending(String learnerId, UUID lessonId) {
+        return Optional.ofNullable(pending.get(new Key(learnerId, lessonId)));
+    }
+
+    /**
+     * Áp giá trị chưa ghi (nếu mới hơn) lên một dòng tiến độ vừa đọc từ DB.
+     */
+    public LearnerProgress overlay(LearnerProgress progress) {
+        if (progress.getLesson() == null) {
+            return progress;
+        }
+        Heartbeat heartbeat = pending.get(new Key(progress.getLearnerId(), progress.getLesson().getId()));
+        if (heartbeat != null && (progress.getLastWatchedAt() == null
+                || !heartbeat.watchedAt().isBefore(progress.getLastWatchedAt()))) {
+            if (heartbeat.watchedDurationSeconds() != null) {
+                progress.setWatchedDurationSeconds(heartbeat.watchedDurationSeconds());
+            }
+            progress.setLastWatchedAt(heartbeat.watchedAt());
+        }
+        return progress;
+    }
+
+    @Scheduled(fixedDelayString = "${curriculum.progress.heartbeat.flush-interval-ms:5000}")
+    public void flush() {
+        // Chụp giá trị hiện tại nhưng giữ chúng trong bộ đệm cho tới khi ghi xong, để
+        // overlay() trong lúc ghi vẫn thấy giá trị mới nhất thay vì dòng cũ trong DB
+        Map<Key, Heartbeat> snapshot = new HashMap<>(pending);
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        List<Key> keys = new ArrayList<>(snapshot.keySet());
+        List<ProgressUpdate> updates = new ArrayList<>(keys.size());
+        for (Key key : keys) {
+            updates.add(toUpdate(key, snapshot.get(key), false));
+        }
+        try {
+            write(updates);
+        } catch (DataIntegrityViolationException e) {
+            // Thường do bài học vừa bị xóa: ghi từng dòng để chỉ bỏ các dòng lỗi
+            for (int i = 0; i < keys.size(); i++) {
+                ProgressUpdate update = updates.get(i);
+                try {
+                    write(List.of(update));
+                } catch (DataIntegrityViolationException rowError) {
+                    logger.warn("Dropping progress heartbeat for learner {} lesson {}: {}",
+                            update.learnerId(), update.lessonId(), rowError.getMessage());
+                }
+            }
+        } catch (Exception e) {
+            // DB tạm lỗi: các báo cáo vẫn nằm trong bộ đệm và được ghi ở lần flush sau
+            logger.warn("Could not flush {} progress heartbeats, will retry: {}", updates.size(), e.getMessage());
+            return;
+        }
+        // Chỉ bỏ những giá trị đã ghi; báo cáo mới hơn đến trong lúc ghi được giữ lại
+        snapshot.forEach(pending::remove);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            logger.warn("Lost {} unflushed progress heartbeats at shutdown", pending.size());
+        }
+    }
+
+    private void write(List<ProgressUpdate> updates) {
+        batchRepository.upsertAll(updates);
+        meterRegistry.counter("learner.progress.heartbeats", "stage", "written").increment(updates.size());
+    }
+
+    private static ProgressUpdate toUpdate(Key key, Heartbeat heartbeat, boolean completed) {
+        return new ProgressUpdate(key.learnerId(), key.lessonId(), completed ? Boolean.TRUE : null,
+                heartbeat.watchedDurationSeconds(), heartbeat.watchedAt());
+    }
+}
@@ -0,0 +1,201 @@
+package com.pickle.backend.storage;
+
+import com.pickle.backend.util.VideoFileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Kho video trên đĩa local. Video nằm trong các thư mục con chia theo UUID và được
+ * chuyển vào bằng rename nguyên tử từ vùng tạm. Thời điểm sửa đổi của file được
+ * dùng làm thời điểm dùng gần nhất: video quá thời gian lưu bị xóa, và khi tổng
+ * dung lượng vượt giới hạn thì xóa video ít được dùng nhất cho tới khi còn 90%.
+ * Key là đường dẫn tương đối so với root (vd "Uploads/ab/cd/..._video.mp4"), nên
+ * các key cũ dạng "Uploads/<tên file>" vẫn dùng được.
+ */
+public class LocalVideoStore implements VideoStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalVideoStore.class);
+    private static final double LOW_WATERMARK = 0.9;
+
+    private final Path root;
+    private final Path videosDir;
+    private final String videosPrefix;
+    private final TempVideoArea tempArea;
+    private final long maxBytes;
+    private final Duration retention;
+    private final AtomicLong usedBytes = new AtomicLong(-1);
+
+    public LocalVideoStore(Path root, String videosDir, TempVideoArea tempArea, long maxBytes,
+            Duration retention) {
+        this.root = root.toAbsolutePath().normalize();
+        this.videosDir = this.root.resolve(videosDir).normalize();
+        this.videosPrefix = videosDir;
+        this.tempArea = tempArea;
+        this.maxBytes = maxBytes;
+        this.retention = retention;
+    }
+
+    @Override
+    public Path createTempFile(String originalFilename) throws IOException {
+        return tempArea.newFile(originalFilename);
+    }
+
+    @Override
+    public String store(Path tempFile, String originalFilename) throws IOException {
+        String key = VideoKeys.newKey(videosPrefix, originalFilename);
+        Path target = resolve(key);
+        long size = Files.size(tempFile);
+        VideoFileUtil.moveAtomically(tempFile, target);
+        // Thời điểm chuyển vào kho là lần dùng gần nhất
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        if (usedBytes.get() >= 0 && usedBytes.addAndGet(size) > maxBytes && maxBytes > 0) {
+            enforceLimits();
+        }
+        return key;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        Path path = resolveOrNull(key);
+        return path != null && Files.isRegularFile(path);
+    }
+
+    @Override
+    public void touch(String key) {
+        Path path = resolveOrNull(key);
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            logger.debug("Could not touch video {}: {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path path = resolve(key);
+        long size = Files.exists(path) ? Files.size(path) : 0;
+        if (Files.deleteIfExists(path)) {
+            usedBytes.accumulateAndGet(size, (used, removed) -> used >= 0 ? used - removed : used);
+            deleteEmptyParents(path);
+        }
+    }
+
+    @Override
+    public void sweep() {
+        tempArea.sweep();
+        enforceLimits();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Xóa video quá thời gian lưu, sau đó xóa theo LRU nếu vẫn vượt giới hạn dung
+     * lượng. Đồng thời tính lại dung lượng đang dùng.
+     */
+    synchronized void enforceLimits() {
+        if (!Files.isDirectory(videosDir)) {
+            usedBytes.set(0);
+            return;
+        }
+        List<StoredFile> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(videosDir)) {
+            stream.filter(Files::isRegularFile).forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    files.add(new StoredFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    // File vừa bị xóa trong lúc duyệt
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not scan video store {}: {}", videosDir, e.getMessage());
+            return;
+        }
+        files.sort(Comparator.comparingLong(StoredFile::lastUsed));
+
+        long total = files.stream().mapToLong(StoredFile::size).sum();
+        long expiredBefore = retention.isZero() ? Long.MIN_VALUE
+                : System.currentTimeMillis() - retention.toMillis();
+        long target = maxBytes > 0 ? (long) (maxBytes * LOW_WATERMARK) : Long.MAX_VALUE;
+        boolean overQuota = maxBytes > 0 && total > maxBytes;
+        int expired = 0;
+        int evicted = 0;
+        for (StoredFile file : files) {
+            boolean isExpired = file.lastUsed() < expiredBefore;
+            boolean evict = overQuota && total > target;
+            if (!isExpired && !evict) {
+                break;
+            }
+            try {
+                if (Files.deleteIfExists(file.path())) {
+                    total -= file.size();
+                    deleteEmptyParents(file.path());
+                    if (isExpired) {
+                        expired++;
+                    } else {
+                        evicted++;
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Could not delete video {}: {}", file.path(), e.getMessage());
+            }
+        }
+        usedBytes.set(total);
+        if (expired > 0 || evicted > 0) {
+            logger.info("Video store cleanup: {} expired, {} evicted for quota, {} bytes in use", expired, evicted,
+                    total);
+        }
+    }
+
+    private record StoredFile(Path path, long size, long lastUsed) {
+    }
+
+    // Xóa các thư mục shard đã rỗng, không đi ra ngoài thư mục video
+    private void deleteEmptyParents(Path file) {
+        Path dir = file.getParent();
+        while (dir != null && dir.startsWith(videosDir) && !dir.equals(videosDir)) {
+            try {
+                Files.delete(dir);
+            } catch (IOException e) {
+                // Thư mục còn file khác
+                return;
+            }
+            dir = dir.getParent();
+        }
+    }
+
+    private Path resolve(String key) throws IOException {
+        Path path = resolveOrNull(key);
+        if (path == null) {
+            throw new IOException("Invalid video key: " + key);
+        }
+        return path;
+    }
+
+    // Key lấy từ DB nên chỉ chấp nhận đường dẫn nằm trong thư mục video
+    private Path resolveOrNull(String key) {
+        if (key == null || key.isBlank()) {
+            return null;
+        }
+        Path path = root.resolve(key).normalize();
+        return path.startsWith(videosDir) ? path : null;
+    }
+}
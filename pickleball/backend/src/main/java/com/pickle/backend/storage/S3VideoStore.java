@@ -0,0 +1,97 @@
+package com.pickle.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Kho video trên S3 hoặc dịch vụ tương thích S3 (MinIO, ...). File tạm vẫn nằm
+ * trên đĩa local và bị xóa sau khi upload xong. Thời gian lưu và dung lượng của
+ * bucket nên cấu hình bằng lifecycle rule phía S3 nên touch() không làm gì.
+ */
+public class S3VideoStore implements VideoStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3VideoStore.class);
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String prefix;
+    private final TempVideoArea tempArea;
+
+    public S3VideoStore(S3Client s3Client, String bucket, String prefix, TempVideoArea tempArea) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.tempArea = tempArea;
+    }
+
+    @Override
+    public Path createTempFile(String originalFilename) throws IOException {
+        return tempArea.newFile(originalFilename);
+    }
+
+    @Override
+    public String store(Path tempFile, String originalFilename) throws IOException {
+        String key = VideoKeys.newKey(prefix, originalFilename);
+        String contentType = Files.probeContentType(tempFile);
+        try {
+            s3Client.putObject(PutObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType != null ? contentType : "video/mp4")
+                    .build(), RequestBody.fromFile(tempFile));
+        } catch (S3Exception e) {
+            throw new IOException("Failed to upload video to S3: " + e.getMessage(), e);
+        }
+        Files.deleteIfExists(tempFile);
+        return key;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        if (key == null || key.isBlank()) {
+            return false;
+        }
+        try {
+            s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return false;
+            }
+            logger.warn("Could not check video {} in S3: {}", key, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void touch(String key) {
+        // Thời gian lưu do lifecycle rule của bucket quản lý
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (S3Exception e) {
+            throw new IOException("Failed to delete video from S3: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void sweep() {
+        tempArea.sweep();
+    }
+}
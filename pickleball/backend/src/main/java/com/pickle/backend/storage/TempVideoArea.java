@@ -0,0 +1,71 @@
+package com.pickle.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Vùng tạm local nhận file upload trước khi phân tích. Tên file có UUID nên không
+ * trùng nhau giữa các request đồng thời.
+ */
+public class TempVideoArea {
+
+    private static final Logger logger = LoggerFactory.getLogger(TempVideoArea.class);
+
+    private final Path dir;
+    private final Duration maxAge;
+
+    public TempVideoArea(Path dir, Duration maxAge) {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.maxAge = maxAge;
+    }
+
+    public Path newFile(String originalFilename) throws IOException {
+        Files.createDirectories(dir);
+        return dir.resolve(UUID.randomUUID() + "_" + VideoKeys.safeFilename(originalFilename));
+    }
+
+    /**
+     * Xóa các file tạm cũ hơn maxAge.
+     *
+     * @return số file đã xóa
+     */
+    public int sweep() {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(maxAge);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Could not list temp video directory {}: {}", dir, e.getMessage());
+            return 0;
+        }
+        int deleted = 0;
+        for (Path file : files) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                if (attributes.lastModifiedTime().toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not sweep temp video {}: {}", file, e.getMessage());
+            }
+        }
+        if (deleted > 0) {
+            logger.info("Swept {} stale temp videos from {}", deleted, dir);
+        }
+        return deleted;
+    }
+}
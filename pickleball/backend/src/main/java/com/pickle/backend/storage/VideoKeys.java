@@ -0,0 +1,32 @@
+package com.pickle.backend.storage;
+
+import java.util.UUID;
+
+/**
+ * Sinh key cho video trong kho: "<prefix>/<ab>/<cd>/<uuid>_<tên file>". Hai cấp
+ * thư mục theo UUID giúp mỗi thư mục chỉ chứa ít file.
+ */
+final class VideoKeys {
+
+    private static final int MAX_FILENAME_LENGTH = 100;
+
+    private VideoKeys() {
+    }
+
+    static String newKey(String prefix, String originalFilename) {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        String base = prefix == null || prefix.isEmpty() ? "" : (prefix.endsWith("/") ? prefix : prefix + "/");
+        return base + id.substring(0, 2) + "/" + id.substring(2, 4) + "/" + id + "_" + safeFilename(originalFilename);
+    }
+
+    // Chỉ giữ ký tự an toàn cho tên file và key S3
+    static String safeFilename(String originalFilename) {
+        String name = originalFilename == null || originalFilename.isBlank() ? "video.mp4" : originalFilename;
+        int slash = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+        name = name.substring(slash + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.length() > MAX_FILENAME_LENGTH) {
+            name = name.substring(name.length() - MAX_FILENAME_LENGTH);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,40 @@
+package com.pickle.backend.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Nơi lưu video upload. Video luôn được nhận vào vùng tạm trên đĩa local (cần
+ * file local để tính hash và stream sang dịch vụ vision), sau khi phân tích hợp
+ * lệ mới được chuyển vào kho lâu dài. Key trả về từ store() được lưu vào
+ * VideoAnalysis.videoPath.
+ */
+public interface VideoStore {
+
+    /**
+     * Tạo đường dẫn mới trong vùng tạm để ghi file upload (file chưa được tạo).
+     */
+    Path createTempFile(String originalFilename) throws IOException;
+
+    /**
+     * Chuyển file tạm vào kho lâu dài; file tạm không còn sau khi gọi.
+     *
+     * @return key của video trong kho
+     */
+    String store(Path tempFile, String originalFilename) throws IOException;
+
+    boolean exists(String key);
+
+    /**
+     * Đánh dấu video vừa được dùng lại (để không bị xóa trước theo LRU).
+     */
+    void touch(String key);
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Dọn file tạm bị bỏ lại (vd do crash) và áp dụng giới hạn dung lượng/thời gian
+     * lưu của kho. Được gọi định kỳ bởi VideoStoreSweeper.
+     */
+    void sweep();
+}
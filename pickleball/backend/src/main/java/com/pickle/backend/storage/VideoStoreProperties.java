@@ -0,0 +1,46 @@
+package com.pickle.backend.storage;
+
+import lombok.Data;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình kho video (video.store.*). type = local hoặc s3.
+ */
+@Data
+public class VideoStoreProperties {
+
+    private String type = "local";
+
+    // Vùng tạm local, dùng cho cả hai loại kho
+    private String tempDir = "TempUploads";
+    // File tạm cũ hơn thời gian này bị coi là bị bỏ lại và bị xóa
+    private Duration tempMaxAge = Duration.ofHours(2);
+
+    private Local local = new Local();
+    private S3 s3 = new S3();
+
+    @Data
+    public static class Local {
+        private String root = ".";
+        private String videosDir = "Uploads";
+        // Tổng dung lượng tối đa của kho; vượt thì xóa video ít được dùng nhất trước
+        private DataSize maxSize = DataSize.ofGigabytes(20);
+        // Video không được dùng lại trong thời gian này bị xóa (0 = giữ mãi)
+        private Duration retention = Duration.ofDays(30);
+    }
+
+    @Data
+    public static class S3 {
+        private String bucket;
+        private String prefix = "videos/";
+        private String region = "us-east-1";
+        // Endpoint cho dịch vụ tương thích S3 (MinIO, ...), để trống với AWS
+        private String endpoint;
+        private boolean pathStyleAccess = true;
+        // Để trống để dùng default credentials provider của AWS SDK
+        private String accessKey;
+        private String secretKey;
+    }
+}
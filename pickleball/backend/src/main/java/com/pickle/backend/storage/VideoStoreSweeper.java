@@ -0,0 +1,29 @@
+package com.pickle.backend.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chạy VideoStore.sweep() định kỳ (và một lần khi khởi động) để dọn file tạm bị
+ * bỏ lại và giữ dung lượng kho trong giới hạn.
+ */
+@Component
+public class VideoStoreSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(VideoStoreSweeper.class);
+
+    @Autowired
+    private VideoStore videoStore;
+
+    @Scheduled(fixedDelayString = "${video.store.sweep-interval-ms:600000}")
+    public void sweep() {
+        try {
+            videoStore.sweep();
+        } catch (Exception e) {
+            logger.warn("Video store sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
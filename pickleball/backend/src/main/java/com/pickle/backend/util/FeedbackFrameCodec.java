@@ -0,0 +1,258 @@
+package com.pickle.backend.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Mã hóa detailed_feedbacks (mỗi khung hình một object) thành dạng cột nén.
+ * timestamp, overall_score, grip.type, balance.status và shot.type được tách
+ * thành các cột số nguyên (chuỗi dùng bảng từ điển); phần còn lại của mỗi khung
+ * hình giữ dạng JSON. Toàn bộ được nén deflate nên các đoạn text lặp lại giữa
+ * các khung hình chỉ tốn vài byte. Giải mã cho lại cùng dữ liệu (cùng khóa và
+ * giá trị) nhưng không giữ thứ tự khóa: các trường tách cột được thêm lại vào
+ * cuối object chứa chúng.
+ *
+ * Định dạng: 1 byte version, sau đó là luồng deflate gồm số khung hình, bảng từ
+ * điển, các cột (varint, 0 = không có giá trị) và phần JSON còn lại.
+ */
+public final class FeedbackFrameCodec {
+
+    public static final byte FORMAT_VERSION = 1;
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FeedbackFrameCodec() {
+    }
+
+    /**
+     * Mã hóa chuỗi JSON. Trả về null nếu không phải mảng các object (khi đó nên
+     * giữ nguyên JSON).
+     */
+    public static byte[] encodeJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+        if (node == null || !node.isArray()) {
+            return null;
+        }
+        List<FeedbackFrame> frames = new ArrayList<>(node.size());
+        for (JsonNode frame : node) {
+            if (!frame.isObject()) {
+                return null;
+            }
+            frames.add(FeedbackFrame.of((ObjectNode) frame));
+        }
+        return encode(frames);
+    }
+
+    /**
+     * Mã hóa các khung hình đã tách: trường đã tách đi vào cột, residual được ghi
+     * nguyên dạng JSON.
+     */
+    public static byte[] encode(List<FeedbackFrame> frames) {
+        int count = frames.size();
+        long[] scores = new long[count];
+        long[] timestamps = new long[count];
+        long[] grips = new long[count];
+        long[] balances = new long[count];
+        long[] shots = new long[count];
+        byte[][] residuals = new byte[count][];
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> dictionaryValues = new ArrayList<>();
+
+        long previousTimestamp = 0;
+        for (int i = 0; i < count; i++) {
+            FeedbackFrame frame = frames.get(i);
+            Integer score = frame.storedOverallScore();
+            if (score != null) {
+                scores[i] = score + 1L;
+            }
+            if (frame.timestamp() != null) {
+                long value = frame.timestamp();
+                timestamps[i] = zigZag(value - previousTimestamp) + 1;
+                previousTimestamp = value;
+            }
+            grips[i] = dictionaryCode(frame.storedGripType(), dictionary, dictionaryValues);
+            balances[i] = dictionaryCode(frame.storedBalanceStatus(), dictionary, dictionaryValues);
+            shots[i] = dictionaryCode(frame.storedShotType(), dictionary, dictionaryValues);
+            try {
+                residuals[i] = objectMapper.writeValueAsBytes(frame.residual());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(FORMAT_VERSION);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+            writeVarLong(out, count);
+            writeVarLong(out, dictionaryValues.size());
+            for (String value : dictionaryValues) {
+                writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+            }
+            writeColumn(out, scores);
+            writeColumn(out, timestamps);
+            writeColumn(out, grips);
+            writeColumn(out, balances);
+            writeColumn(out, shots);
+            for (byte[] residual : residuals) {
+                writeBytes(out, residual);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<FeedbackFrame> decode(byte[] data) {
+        if (data.length == 0 || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported feedback frame format");
+        }
+        try (DataInputStream in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(data, 1, data.length - 1)))) {
+            int count = (int) readVarLong(in);
+            int dictionarySize = (int) readVarLong(in);
+            String[] dictionary = new String[dictionarySize];
+            for (int i = 0; i < dictionarySize; i++) {
+                dictionary[i] = new String(readBytes(in), StandardCharsets.UTF_8);
+            }
+            long[] scores = readColumn(in, count);
+            long[] timestamps = readColumn(in, count);
+            long[] grips = readColumn(in, count);
+            long[] balances = readColumn(in, count);
+            long[] shots = readColumn(in, count);
+
+            List<FeedbackFrame> frames = new ArrayList<>(count);
+            long previousTimestamp = 0;
+            for (int i = 0; i < count; i++) {
+                ObjectNode residual = (ObjectNode) objectMapper.readTree(readBytes(in));
+                Long timestamp = null;
+                if (timestamps[i] != 0) {
+                    previousTimestamp += unZigZag(timestamps[i] - 1);
+                    timestamp = previousTimestamp;
+                }
+                frames.add(FeedbackFrame.of(timestamp,
+                        scores[i] != 0 ? (int) (scores[i] - 1) : null,
+                        dictionaryValue(grips[i], dictionary),
+                        dictionaryValue(balances[i], dictionary),
+                        dictionaryValue(shots[i], dictionary),
+                        residual));
+            }
+            return frames;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String decodeToJson(byte[] data) {
+        ArrayNode array = objectMapper.createArrayNode();
+        decode(data).forEach(frame -> array.add(frame.raw()));
+        try {
+            return objectMapper.writeValueAsString(array);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long dictionaryCode(String value, Map<String, Integer> dictionary,
+            List<String> dictionaryValues) {
+        if (value == null) {
+            return 0;
+        }
+        Integer index = dictionary.computeIfAbsent(value, key -> {
+            dictionaryValues.add(key);
+            return dictionaryValues.size() - 1;
+        });
+        return index + 1L;
+    }
+
+    private static String dictionaryValue(long code, String[] dictionary) {
+        return code != 0 ? dictionary[(int) (code - 1)] : null;
+    }
+
+    private static void writeColumn(OutputStream out, long[] column) throws IOException {
+        for (long value : column) {
+            writeVarLong(out, value);
+        }
+    }
+
+    private static long[] readColumn(InputStream in, int count) throws IOException {
+        long[] column = new long[count];
+        for (int i = 0; i < count; i++) {
+            column[i] = readVarLong(in);
+        }
+        return column;
+    }
+
+    private static void writeBytes(OutputStream out, byte[] value) throws IOException {
+        writeVarLong(out, value.length);
+        out.write(value);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] value = new byte[(int) readVarLong(in)];
+        in.readFully(value);
+        return value;
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Truncated feedback frame data");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in feedback frame data");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -1,29 +1,36 @@
 package com.pickle.backend.util;
 
+import com.pickle.backend.storage.VideoStore;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @Component
 @RequiredArgsConstructor
 public class S3Util {
-    private static final String UPLOAD_DIR = "D:/LTJAVA/Project/PickleCoach-AI/pickleball/backend/uploads/";
 
+    private final VideoStore videoStore;
+
+    // Lưu file qua VideoStore (local hoặc S3 theo video.store.type), trả về key của file
     public String uploadFile(MultipartFile file) {
+        Path tempFile = null;
         try {
-            File uploadDir = new File(UPLOAD_DIR);
-            if (!uploadDir.exists()) {
-                uploadDir.mkdirs();
-            }
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            File dest = new File(UPLOAD_DIR + fileName);
-            file.transferTo(dest);
-            return dest.getAbsolutePath();
+            tempFile = videoStore.createTempFile(file.getOriginalFilename());
+            file.transferTo(tempFile.toAbsolutePath().toFile());
+            return videoStore.store(tempFile, file.getOriginalFilename());
         } catch (IOException e) {
-            throw new RuntimeException("Failed to upload file locally", e);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // File tạm sẽ được VideoStoreSweeper dọn
+                }
+            }
+            throw new RuntimeException("Failed to upload file", e);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,106 @@
+package com.pickle.backend.util;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.StreamingHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Body multipart/form-data gồm các field text và một file, được ghi thẳng từ
+ * FileChannel ra output stream của HTTP request bằng transferTo thay vì nạp file
+ * vào heap. Content-Length được tính trước để client dùng fixed-length streaming.
+ */
+public class StreamingMultipartBody implements StreamingHttpOutputMessage.Body {
+
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.UTF_8);
+
+    private final String boundary = "----pickle-" + UUID.randomUUID();
+    private final Map<String, String> fields = new LinkedHashMap<>();
+    private final String fileField;
+    private final Path file;
+    private final String filename;
+    private final String fileContentType;
+
+    public StreamingMultipartBody(String fileField, Path file, String filename, String fileContentType) {
+        this.fileField = fileField;
+        this.file = file;
+        this.filename = headerParam(filename != null ? filename : file.getFileName().toString());
+        this.fileContentType = fileContentType != null ? fileContentType : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    public StreamingMultipartBody field(String name, String value) {
+        fields.put(name, value);
+        return this;
+    }
+
+    public MediaType getContentType() {
+        return new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary));
+    }
+
+    public long getContentLength() throws IOException {
+        return preamble().length + Files.size(file) + epilogue().length;
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        outputStream.write(preamble());
+        // Không đóng channel đích: output stream thuộc về HTTP client
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            long size = source.size();
+            while (position < size) {
+                position += source.transferTo(position, Math.min(VideoFileUtil.CHUNK_SIZE, size - position), target);
+            }
+        }
+        outputStream.write(epilogue());
+        outputStream.flush();
+    }
+
+    @Override
+    public boolean repeatable() {
+        return true;
+    }
+
+    private byte[] preamble() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            writeLine(out, "--" + boundary);
+            writeLine(out, "Content-Disposition: form-data; name=\"" + headerParam(field.getKey()) + "\"");
+            out.write(CRLF);
+            writeLine(out, field.getValue());
+        }
+        writeLine(out, "--" + boundary);
+        writeLine(out, "Content-Disposition: form-data; name=\"" + headerParam(fileField) + "\"; filename=\""
+                + filename + "\"");
+        writeLine(out, "Content-Type: " + fileContentType);
+        out.write(CRLF);
+        return out.toByteArray();
+    }
+
+    private byte[] epilogue() {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Giá trị trong ngoặc kép của header (tên file do người dùng gửi lên): bỏ CR/LF, dấu " và dấu \
+    private static String headerParam(String value) {
+        return value.replaceAll("[\r\n\"\\\\]", "");
+    }
+
+    private static void writeLine(ByteArrayOutputStream out, String line) throws IOException {
+        out.write(line.getBytes(StandardCharsets.UTF_8));
+        out.write(CRLF);
+    }
+}
@@ -0,0 +1,67 @@
+package com.pickle.backend.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Tiện ích đọc/di chuyển file video theo từng chunk để bộ nhớ dùng cho mỗi
+ * upload không phụ thuộc vào kích thước video.
+ */
+public final class VideoFileUtil {
+
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private VideoFileUtil() {
+    }
+
+    /**
+     * Tính SHA-256 của file bằng FileChannel với một buffer direct cố định.
+     * Ném IOException nếu file vượt quá maxBytes.
+     */
+    public static String sha256(Path file, long maxBytes) throws IOException {
+        MessageDigest digest = newSha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        long total = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                total += buffer.remaining();
+                if (total > maxBytes) {
+                    throw new IOException("Video size exceeds " + (maxBytes / 1024 / 1024) + "MB limit");
+                }
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Di chuyển file bằng rename nguyên tử nếu có thể, tránh copy dữ liệu video.
+     */
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.pickle.backend.client;
+
+import com.pickle.backend.exception.DownstreamUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class DownstreamClientTest {
+
+    private static final String URL = "http://ai/generate-quiz";
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private DownstreamProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new DownstreamProperties();
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(2));
+    }
+
+    private DownstreamClient client() {
+        return new DownstreamClient("quiz", restTemplate, properties, meterRegistry);
+    }
+
+    private static String post(RestTemplate rest) {
+        return rest.postForObject(URL, "{}", String.class);
+    }
+
+    @Test
+    void testExecute_RetriesIdempotentCallOnServerError() {
+        // Arrange
+        server.expect(ExpectedCount.twice(), requestTo(URL)).andExpect(method(HttpMethod.POST))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+        server.expect(requestTo(URL)).andRespond(withSuccess("ok", MediaType.TEXT_PLAIN));
+
+        // Act
+        String result = client().execute("generate-quiz", true, DownstreamClientTest::post);
+
+        // Assert
+        assertEquals("ok", result);
+        server.verify();
+        assertEquals(2.0, meterRegistry.counter("ai.client.retries", "downstream", "quiz",
+                "endpoint", "generate-quiz").count());
+        assertEquals(3, meterRegistry.get("ai.client.requests").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void testExecute_ExposesEndpointNameDuringCall() {
+        // Arrange
+        server.expect(requestTo(URL)).andRespond(withSuccess("ok", MediaType.TEXT_PLAIN));
+
+        // Act
+        String endpoint = client().execute("generate-quiz", false, rest -> {
+            post(rest);
+            return DownstreamClient.currentEndpoint();
+        });
+
+        // Assert
+        assertEquals("generate-quiz", endpoint);
+        assertNull(DownstreamClient.currentEndpoint());
+    }
+
+    @Test
+    void testExecute_DoesNotRetryNonIdempotentOrClientErrors() {
+        // Arrange
+        server.expect(ExpectedCount.once(), requestTo(URL)).andRespond(withStatus(HttpStatus.BAD_GATEWAY));
+        server.expect(ExpectedCount.once(), requestTo(URL)).andRespond(withStatus(HttpStatus.BAD_REQUEST));
+        DownstreamClient client = client();
+
+        // Act & Assert
+        assertThrows(HttpServerErrorException.class,
+                () -> client.execute("generate-quiz", false, DownstreamClientTest::post));
+        assertThrows(HttpClientErrorException.class,
+                () -> client.execute("generate-quiz", true, DownstreamClientTest::post));
+        server.verify();
+    }
+
+    @Test
+    void testExecute_OpensCircuitAfterConsecutiveFailures() {
+        // Arrange
+        properties.setFailureThreshold(2);
+        properties.setMaxAttempts(1);
+        server.expect(ExpectedCount.twice(), requestTo(URL)).andRespond(withStatus(HttpStatus.INTERNAL_SERVER_ERROR));
+        DownstreamClient client = client();
+
+        // Act
+        assertThrows(HttpServerErrorException.class,
+                () -> client.execute("generate-quiz", true, DownstreamClientTest::post));
+        assertThrows(HttpServerErrorException.class,
+                () -> client.execute("generate-quiz", true, DownstreamClientTest::post));
+
+        // Assert: lần gọi thứ ba bị từ chối mà không gửi request
+        assertThrows(DownstreamUnavailableException.class,
+                () -> client.execute("generate-quiz", true, DownstreamClientTest::post));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        server.verify();
+    }
+
+    @Test
+    void testExecute_RejectsWhenBulkheadIsFull() throws Exception {
+        // Arrange
+        properties.setMaxConcurrentCalls(1);
+        properties.setMaxWaitForPermit(Duration.ZERO);
+        DownstreamClient client = client();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread inFlight = new Thread(() -> client.execute("generate-quiz", true, rest -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "done";
+        }));
+        inFlight.start();
+        started.await();
+
+        // Act & Assert
+        assertThrows(DownstreamUnavailableException.class,
+                () -> client.execute("generate-quiz", true, rest -> "second"));
+        release.countDown();
+        inFlight.join();
+        assertEquals("third", client.execute("generate-quiz", true, rest -> "third"));
+    }
+
+    @Test
+    void testCircuitBreaker_HalfOpenAllowsSingleTrial() {
+        // Arrange
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(10), now::get);
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+
+        // Act
+        now.set(Duration.ofSeconds(11).toNanos());
+
+        // Assert
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+}
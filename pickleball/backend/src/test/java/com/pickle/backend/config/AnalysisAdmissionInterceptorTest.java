@@ -0,0 +1,36 @@
+package com.pickle.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisAdmissionInterceptorTest {
+
+    @Test
+    void testUserKey_AuthenticatedRequestIgnoresUserIdQueryParameter() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/ai/full-analysis");
+        request.setQueryString("userId=someone-else");
+        request.setUserPrincipal(() -> "learner-1");
+
+        // Act
+        String key = AnalysisAdmissionInterceptor.userKey(request);
+
+        // Assert
+        assertEquals("principal:learner-1", key);
+    }
+
+    @Test
+    void testUserKey_AnonymousRequestFallsBackToUserIdThenIp() {
+        // Arrange
+        MockHttpServletRequest withUserId = new MockHttpServletRequest("POST", "/api/ai/full-analysis");
+        withUserId.setQueryString("userId=learner%201");
+        MockHttpServletRequest withoutUserId = new MockHttpServletRequest("POST", "/api/ai/full-analysis");
+        withoutUserId.setRemoteAddr("10.0.0.7");
+
+        // Act & Assert
+        assertEquals("user:learner 1", AnalysisAdmissionInterceptor.userKey(withUserId));
+        assertEquals("ip:10.0.0.7", AnalysisAdmissionInterceptor.userKey(withoutUserId));
+    }
+}
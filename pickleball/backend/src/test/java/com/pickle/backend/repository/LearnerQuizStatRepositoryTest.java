@@ -0,0 +1,47 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.LearnerQuizStat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// insertAllRowIfAbsent dùng cú pháp MySQL (ON DUPLICATE KEY UPDATE) nên chạy H2 ở chế độ MySQL
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:quizstats;MODE=MySQL")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class LearnerQuizStatRepositoryTest {
+
+    @Autowired
+    private LearnerQuizStatRepository statRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsertAllRowIfAbsent_CreatesEmptyRowOnceAndKeepsExistingCounters() {
+        // Arrange
+        statRepository.insertAllRowIfAbsent("learner-1");
+        entityManager.clear();
+        LearnerQuizStat all = statRepository.findForUpdate("learner-1").get(0);
+        all.add(5, 3, LocalDateTime.of(2026, 1, 1, 8, 0));
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        statRepository.insertAllRowIfAbsent("learner-1");
+        entityManager.clear();
+
+        // Assert
+        List<LearnerQuizStat> rows = statRepository.findByLearnerId("learner-1");
+        assertEquals(1, rows.size());
+        assertEquals(LearnerQuizStat.ALL_BUCKET, rows.get(0).getBucket());
+        assertEquals(5, rows.get(0).getTotal());
+        assertEquals(3, rows.get(0).getCorrect());
+    }
+}
@@ -0,0 +1,50 @@
+package com.pickle.backend.repository;
+
+import com.pickle.backend.entity.LearnerSkillModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// insertIfAbsent dùng cú pháp MySQL (ON DUPLICATE KEY UPDATE) nên chạy H2 ở chế độ MySQL
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:skillmodels;MODE=MySQL")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class LearnerSkillModelRepositoryTest {
+
+    @Autowired
+    private LearnerSkillModelRepository skillModelRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testInsertIfAbsent_CreatesEmptyRowOnceAndKeepsExistingModel() {
+        // Arrange
+        skillModelRepository.insertIfAbsent("learner-1", "DINK");
+        entityManager.clear();
+        LearnerSkillModel dink = skillModelRepository.findForUpdate("learner-1", Set.of("DINK")).get(0);
+        assertEquals(0, dink.getSamples());
+        dink.observe(70);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        skillModelRepository.insertIfAbsent("learner-1", "DINK");
+        skillModelRepository.insertIfAbsent("learner-1", "SERVE");
+        entityManager.clear();
+
+        // Assert
+        List<LearnerSkillModel> rows = skillModelRepository.findForUpdate("learner-1", Set.of("DINK", "SERVE"));
+        assertEquals(2, rows.size());
+        LearnerSkillModel stored = rows.stream().filter(row -> row.getSkill().equals("DINK")).findFirst()
+                .orElseThrow();
+        assertEquals(70, stored.getScore());
+        assertEquals(1, stored.getSamples());
+    }
+}
@@ -0,0 +1,89 @@
+package com.pickle.backend.repository.curriculum;
+
+import com.pickle.backend.entity.curriculum.Course;
+import com.pickle.backend.entity.curriculum.LearnerProgress;
+import com.pickle.backend.entity.curriculum.Lesson;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Câu upsert dùng cú pháp MySQL (ON DUPLICATE KEY UPDATE) nên chạy H2 ở chế độ MySQL
+@DataJpaTest(showSql = false, properties = "spring.datasource.url=jdbc:h2:mem:progress;MODE=MySQL")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LearnerProgressBatchRepository.class)
+class LearnerProgressRepositoryTest {
+
+    @Autowired
+    private LearnerProgressRepository learnerProgressRepository;
+
+    @Autowired
+    private LearnerProgressBatchRepository batchRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void testUpsert_KeepsOneRowPerLearnerAndLessonAndNeverUncompletes() {
+        // Arrange
+        UUID lessonId = persistLesson();
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 8, 0);
+
+        // Act
+        learnerProgressRepository.upsert("learner-1", lessonId, false, 10, now);
+        learnerProgressRepository.upsert("learner-1", lessonId, true, 20, now.plusMinutes(1));
+        learnerProgressRepository.upsert("learner-1", lessonId, false, null, now.plusMinutes(2));
+        entityManager.clear();
+
+        // Assert
+        List<LearnerProgress> rows = learnerProgressRepository.findByLearnerId("learner-1");
+        assertEquals(1, rows.size());
+        assertTrue(rows.get(0).getIsCompleted());
+        assertEquals(20, rows.get(0).getWatchedDurationSeconds());
+        assertEquals(now.plusMinutes(2), rows.get(0).getLastWatchedAt());
+        assertEquals(rows.get(0).getId(), learnerProgressRepository.findIdByLessonIdAndLearnerId(lessonId, "learner-1"));
+    }
+
+    @Test
+    void testUpsertAll_LateBatchDoesNotRewindNewerProgress() {
+        // Arrange
+        UUID lessonId = persistLesson();
+        LocalDateTime now = LocalDateTime.of(2026, 1, 1, 8, 0);
+        learnerProgressRepository.upsert("learner-1", lessonId, false, 120, now);
+
+        // Act
+        batchRepository.upsertAll(List.of(
+                new LearnerProgressBatchRepository.ProgressUpdate("learner-1", lessonId, null, 90, now.minusSeconds(30)),
+                new LearnerProgressBatchRepository.ProgressUpdate("learner-2", lessonId, null, 15, now)));
+        entityManager.clear();
+
+        // Assert
+        LearnerProgress first = learnerProgressRepository.findByLearnerId("learner-1").get(0);
+        assertEquals(120, first.getWatchedDurationSeconds());
+        assertEquals(now, first.getLastWatchedAt());
+        LearnerProgress second = learnerProgressRepository.findByLearnerId("learner-2").get(0);
+        assertEquals(15, second.getWatchedDurationSeconds());
+        assertFalse(second.getIsCompleted());
+        assertEquals(lessonId, second.getLesson().getId());
+    }
+
+    private UUID persistLesson() {
+        Course course = new Course();
+        course.setTitle("Pickleball basics");
+        entityManager.persist(course);
+        Lesson lesson = new Lesson();
+        lesson.setCourse(course);
+        lesson.setTitle("Serve");
+        entityManager.persist(lesson);
+        entityManager.flush();
+        return lesson.getId();
+    }
+}
@@ -0,0 +1,113 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.exception.AnalysisOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisAdmissionQueueTest {
+
+    private AnalysisAdmissionQueue queue;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        queue = new AnalysisAdmissionQueue();
+        ReflectionTestUtils.setField(queue, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queue, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(queue, "maxQueued", 3);
+        ReflectionTestUtils.setField(queue, "maxQueuedPerUser", 2);
+        ReflectionTestUtils.setField(queue, "maxWait", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(queue, "initialHoldEstimate", Duration.ofSeconds(5));
+        ReflectionTestUtils.invokeMethod(queue, "init");
+    }
+
+    private double queued() {
+        return meterRegistry.get("analysis.admission.queued").gauge().value();
+    }
+
+    // Chờ vào hàng rồi giữ lượt một lúc để thứ tự được cấp lượt rõ ràng
+    private Thread enqueue(String user, List<String> order) throws InterruptedException {
+        double before = queued();
+        Thread thread = new Thread(() -> {
+            try (AnalysisAdmissionQueue.Permit permit = queue.acquire(user)) {
+                order.add(user);
+            }
+        });
+        thread.start();
+        while (queued() == before) {
+            Thread.sleep(5);
+        }
+        return thread;
+    }
+
+    @Test
+    void testAcquire_SharesTurnsRoundRobinBetweenUsers() throws Exception {
+        // Arrange
+        List<String> order = new CopyOnWriteArrayList<>();
+        AnalysisAdmissionQueue.Permit running = queue.acquire("a");
+        Thread a1 = enqueue("a", order);
+        Thread a2 = enqueue("a", order);
+        Thread b1 = enqueue("b", order);
+
+        // Act
+        running.close();
+        a1.join(5000);
+        a2.join(5000);
+        b1.join(5000);
+
+        // Assert
+        assertEquals(List.of("a", "b", "a"), order);
+        assertEquals(0, queued());
+    }
+
+    @Test
+    void testAcquire_RejectsWithQueuePositionWhenUserLimitReached() throws Exception {
+        // Arrange
+        List<String> order = new CopyOnWriteArrayList<>();
+        AnalysisAdmissionQueue.Permit running = queue.acquire("a");
+        Thread a1 = enqueue("a", order);
+        Thread a2 = enqueue("a", order);
+
+        // Act
+        AnalysisOverloadedException ex = assertThrows(AnalysisOverloadedException.class,
+                () -> queue.acquire("a"));
+        running.close();
+        a1.join(5000);
+        a2.join(5000);
+
+        // Assert
+        assertEquals(3, ex.getQueuePosition());
+        assertTrue(ex.getRetryAfterSeconds() >= 1);
+        assertEquals(1.0, meterRegistry.get("analysis.admission.rejected").tag("reason", "user_limit")
+                .counter().count());
+    }
+
+    @Test
+    void testAcquire_NewUserIsPlacedAfterOneTurnOfEachWaitingUser() throws Exception {
+        // Arrange
+        List<String> order = new CopyOnWriteArrayList<>();
+        ReflectionTestUtils.setField(queue, "maxQueued", 2);
+        AnalysisAdmissionQueue.Permit running = queue.acquire("a");
+        Thread a1 = enqueue("a", order);
+        Thread a2 = enqueue("a", order);
+
+        // Act
+        AnalysisOverloadedException ex = assertThrows(AnalysisOverloadedException.class,
+                () -> queue.acquire("b"));
+        running.close();
+        a1.join(5000);
+        a2.join(5000);
+
+        // Assert
+        assertEquals(2, ex.getQueuePosition());
+    }
+}
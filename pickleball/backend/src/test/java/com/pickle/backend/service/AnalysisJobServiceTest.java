@@ -0,0 +1,207 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.AnalysisJobDTO;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.exception.AnalysisQueueFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AnalysisJobServiceTest {
+
+    @Mock
+    private FullAnalysisService fullAnalysisService;
+
+    @Mock
+    private RemoteAnalysisTracker remoteAnalysisTracker;
+
+    @Mock
+    private ThreadPoolTaskExecutor analysisExecutor;
+
+    @InjectMocks
+    private AnalysisJobService analysisJobService;
+
+    @TempDir
+    Path tempDir;
+
+    private StagedVideo stagedVideo;
+
+    private final MockMultipartFile upload = new MockMultipartFile("video", "clip.mp4", "video/mp4",
+            new byte[] { 1, 2, 3 });
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(analysisJobService, "retentionMinutes", 30L);
+        ReflectionTestUtils.setField(analysisJobService, "sseTimeoutMs", 60_000L);
+        Path video = Files.write(tempDir.resolve("staged.mp4"), new byte[] { 1, 2, 3 });
+        stagedVideo = new StagedVideo(video, "clip.mp4", "video/mp4", 3, "hash");
+        lenient().when(fullAnalysisService.stageVideo(upload)).thenReturn(stagedVideo);
+    }
+
+    @Test
+    void testSubmit_FullQueueThrowsAndDeletesStagedVideo() {
+        // Arrange
+        doThrow(new TaskRejectedException("full")).when(analysisExecutor).execute(any(Runnable.class));
+
+        // Act & Assert
+        assertThrows(AnalysisQueueFullException.class, () -> analysisJobService.submit("learner-1", upload));
+        assertFalse(Files.exists(stagedVideo.path()));
+    }
+
+    @Test
+    void testSubmit_SuccessfulRunSendsTerminalEventToSubscriber() throws Exception {
+        // Arrange
+        when(fullAnalysisService.analyzeStaged(eq("learner-1"), eq(stagedVideo), anyString()))
+                .thenReturn(Map.of("message", "Phân tích thành công", "result", Map.of("summary", "ok")));
+        AnalysisJobDTO queued = analysisJobService.submit("learner-1", upload);
+        SseEmitter emitter = analysisJobService.subscribe(queued.getJobId()).orElseThrow();
+
+        // Act
+        runQueuedJob();
+
+        // Assert
+        AnalysisJobDTO job = analysisJobService.getJob(queued.getJobId()).orElseThrow();
+        assertEquals("PENDING", queued.getStatus());
+        assertEquals("SUCCEEDED", job.getStatus());
+        assertEquals(Map.of("summary", "ok"), job.getResult());
+        assertEquals(List.of("PENDING", "RUNNING", "SUCCEEDED"), sentStatuses(emitter));
+        assertTrue(isComplete(emitter));
+        verify(remoteAnalysisTracker, never()).findJob(anyString());
+    }
+
+    @Test
+    void testSubmit_FailedRunDeletesStagedVideoAndEndsStream() throws Exception {
+        // Arrange
+        when(fullAnalysisService.analyzeStaged(eq("learner-1"), eq(stagedVideo), anyString()))
+                .thenThrow(new IllegalStateException("vision down"));
+        AnalysisJobDTO queued = analysisJobService.submit("learner-1", upload);
+        SseEmitter emitter = analysisJobService.subscribe(queued.getJobId()).orElseThrow();
+
+        // Act
+        runQueuedJob();
+
+        // Assert
+        AnalysisJobDTO job = analysisJobService.getJob(queued.getJobId()).orElseThrow();
+        assertEquals("FAILED", job.getStatus());
+        assertTrue(job.getMessage().endsWith("vision down"));
+        assertFalse(Files.exists(stagedVideo.path()));
+        assertEquals("FAILED", sentStatuses(emitter).get(sentStatuses(emitter).size() - 1));
+        assertTrue(isComplete(emitter));
+    }
+
+    @Test
+    void testEvictFinishedJobs_RemovesOnlyFinishedJobsPastRetention() throws Exception {
+        // Arrange
+        when(fullAnalysisService.analyzeStaged(eq("learner-1"), eq(stagedVideo), anyString()))
+                .thenReturn(Map.of("message", "Phân tích thành công", "result", Map.of("summary", "ok")));
+        AnalysisJobDTO finished = analysisJobService.submit("learner-1", upload);
+        runQueuedJob();
+        clearInvocations(analysisExecutor);
+        AnalysisJobDTO pending = analysisJobService.submit("learner-1", upload);
+        // Mốc cắt nằm sau mọi job hiện có
+        ReflectionTestUtils.setField(analysisJobService, "retentionMinutes", -1L);
+
+        // Act
+        analysisJobService.evictFinishedJobs();
+
+        // Assert
+        assertTrue(analysisJobService.getJob(pending.getJobId()).isPresent());
+        assertTrue(analysisJobService.getJob(finished.getJobId()).isEmpty());
+        verify(remoteAnalysisTracker).findJob(finished.getJobId());
+    }
+
+    @Test
+    void testGetJob_FallsBackToRemoteTracker() {
+        // Arrange
+        AnalysisJobDTO tracked = remoteJob("remote-1", "RUNNING");
+        when(remoteAnalysisTracker.findJob("remote-1")).thenReturn(Optional.of(tracked));
+
+        // Act & Assert
+        assertEquals(Optional.of(tracked), analysisJobService.getJob("remote-1"));
+        assertTrue(analysisJobService.subscribe("unknown").isEmpty());
+    }
+
+    @Test
+    void testSubscribe_RemoteJobFinishedWhileRebuildingStillEndsStream() {
+        // Arrange: job kết thúc (và event đã phát) ngay sau lần đọc đầu tiên
+        when(remoteAnalysisTracker.findJob("remote-1"))
+                .thenReturn(Optional.of(remoteJob("remote-1", "RUNNING")))
+                .thenReturn(Optional.of(remoteJob("remote-1", "SUCCEEDED")));
+
+        // Act
+        SseEmitter emitter = analysisJobService.subscribe("remote-1").orElseThrow();
+
+        // Assert
+        assertEquals(List.of("SUCCEEDED"), sentStatuses(emitter));
+        assertTrue(isComplete(emitter));
+        assertEquals("SUCCEEDED", analysisJobService.getJob("remote-1").orElseThrow().getStatus());
+    }
+
+    @Test
+    void testEvictFinishedJobs_RemovesIdleRunningJobRebuiltFromTracker() {
+        // Arrange
+        when(remoteAnalysisTracker.findJob("remote-1")).thenReturn(Optional.of(remoteJob("remote-1", "RUNNING")));
+        analysisJobService.subscribe("remote-1");
+        Map<?, ?> jobs = (Map<?, ?>) ReflectionTestUtils.getField(analysisJobService, "jobs");
+        // Client đã ngắt kết nối SSE
+        jobs.values().forEach(job -> ((Collection<?>) ReflectionTestUtils.getField(job, "emitters")).clear());
+        ReflectionTestUtils.setField(analysisJobService, "retentionMinutes", -1L);
+
+        // Act
+        analysisJobService.evictFinishedJobs();
+
+        // Assert
+        assertTrue(jobs.isEmpty());
+    }
+
+    private void runQueuedJob() {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(analysisExecutor).execute(task.capture());
+        task.getValue().run();
+    }
+
+    private static AnalysisJobDTO remoteJob(String jobId, String status) {
+        LocalDateTime now = LocalDateTime.now();
+        return new AnalysisJobDTO(jobId, "learner-1", status, "msg", null, now, now);
+    }
+
+    // SseEmitter chưa gắn vào response giữ các lần send trong earlySendAttempts
+    private static List<String> sentStatuses(SseEmitter emitter) {
+        Collection<?> sent = (Collection<?>) ReflectionTestUtils.getField(emitter, "earlySendAttempts");
+        return sent.stream()
+                .map(data -> ((ResponseBodyEmitter.DataWithMediaType) data).getData())
+                .filter(AnalysisJobDTO.class::isInstance)
+                .map(data -> ((AnalysisJobDTO) data).getStatus())
+                .toList();
+    }
+
+    private static boolean isComplete(SseEmitter emitter) {
+        return (boolean) ReflectionTestUtils.getField(emitter, "complete");
+    }
+}
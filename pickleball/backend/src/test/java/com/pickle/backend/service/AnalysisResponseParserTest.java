@@ -0,0 +1,152 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.dto.analysis.FeedbackFrame;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.util.FeedbackFrameCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisResponseParserTest {
+
+    private final AnalysisResponseParser parser = new AnalysisResponseParser();
+
+    private static final String RESPONSE = """
+            {"detailed_feedbacks":[
+               {"frame":1,"overall_score":42,"grip":{"type":"western_grip"},"balance":{"status":"unstable"},
+                "shot":{"type":"dink"}},
+               {"frame":2,"overall_score":75,"shot":{"type":"unknown"}}],
+             "debug":{"ignored":[1,2,3]},
+             "techniqueAnalysis":{"grip":"ok"},
+             "shotAnalysis":{"weakestShots":["dink","serve"]},
+             "performanceMetrics":{"averageScore":58.5},
+             "skill_level":"Intermediate"}
+            """;
+
+    @Test
+    void testParse_ReadsTypedFieldsFromStream() throws Exception {
+        // Act
+        AnalysisResponse response = parser.parse(
+                new ByteArrayInputStream(RESPONSE.getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertEquals(2, response.detailedFeedbacks().size());
+        FeedbackFrame first = response.detailedFeedbacks().get(0);
+        assertEquals(42, first.overallScore());
+        assertEquals("western_grip", first.gripType());
+        assertEquals("unstable", first.balanceStatus());
+        assertEquals("dink", first.shotType());
+        assertNull(response.detailedFeedbacks().get(1).gripType());
+        assertEquals(List.of("dink", "serve"), response.shotAnalysis().weakestShots());
+        assertEquals(58.5, response.performanceMetrics().averageScore());
+        assertEquals("Intermediate", response.skillLevel());
+        assertNull(response.error());
+    }
+
+    @Test
+    void testParse_KeepsOnlyUntypedFieldsInResidual() throws Exception {
+        // Arrange
+        String frame = "{\"timestamp\":1000,\"overall_score\":72.5,\"grip\":{\"type\":\"eastern_grip\","
+                + "\"feedback\":\"ok\"},\"balance\":{\"status\":null},\"swing\":{\"velocity\":0.5}}";
+
+        // Act
+        FeedbackFrame parsed = parser.parse("{\"detailed_feedbacks\":[" + frame + "]}").detailedFeedbacks().get(0);
+
+        // Assert
+        assertEquals(1000L, parsed.timestamp());
+        assertEquals(72, parsed.overallScore());
+        assertEquals("eastern_grip", parsed.gripType());
+        assertNull(parsed.balanceStatus());
+        assertEquals(new ObjectMapper().readTree(
+                "{\"overall_score\":72.5,\"grip\":{\"feedback\":\"ok\"},\"balance\":{\"status\":null},"
+                        + "\"swing\":{\"velocity\":0.5}}"), parsed.residual());
+        assertEquals(new ObjectMapper().readTree(frame), parsed.raw());
+        assertEquals(FeedbackFrame.of((ObjectNode) new ObjectMapper().readTree(frame)), parsed);
+    }
+
+    @Test
+    void testParse_SkipsNonObjectFramesAndKeepsReading() throws Exception {
+        // Act
+        AnalysisResponse response = parser.parse("""
+                {"detailed_feedbacks":[{"overall_score":10},null,[{"overall_score":99}],7,{"overall_score":20}],
+                 "skill_level":"Beginner"}
+                """);
+
+        // Assert
+        assertEquals(List.of(10, 20),
+                response.detailedFeedbacks().stream().map(FeedbackFrame::overallScore).toList());
+        assertEquals("Beginner", response.skillLevel());
+    }
+
+    @Test
+    void testParse_NullErrorKeyIsStillAnError() throws Exception {
+        // Act
+        AnalysisResponse response = parser.parse("{\"error\":null}");
+
+        // Assert
+        assertEquals("", response.error());
+    }
+
+    @Test
+    void testFromStored_ReadsEncodedFrames() throws Exception {
+        // Arrange
+        AnalysisResponse response = parser.parse(RESPONSE);
+        VideoAnalysis stored = new VideoAnalysis();
+        stored.setFeedbackFrames(FeedbackFrameCodec.encode(response.detailedFeedbacks()));
+        stored.setShotAnalysis("{\"weakest_shots\":[\"serve\"]}");
+        stored.setAnalysisResult(
+                "{\"techniqueAnalysis\":{},\"performanceMetrics\":{\"averageScore\":58.5},\"summary\":\"x\"}");
+
+        // Act
+        AnalysisResponse restored = parser.fromStored(stored);
+
+        // Assert
+        assertEquals(response.detailedFeedbacks(), restored.detailedFeedbacks());
+        assertEquals(List.of("serve"), restored.shotAnalysis().weakestShots());
+        assertEquals(58.5, restored.performanceMetrics().averageScore());
+    }
+
+    @Test
+    void testParse_AcceptedJobHasOnlyJobId() throws Exception {
+        // Act
+        AnalysisResponse response = parser.parse("{\"job_id\":\"abc-123\",\"status\":\"pending\"}");
+
+        // Assert
+        assertEquals("abc-123", response.jobId());
+        assertNull(response.detailedFeedbacks());
+        assertNull(response.error());
+    }
+
+    @Test
+    void testFromVisionJobResult_MapsShotsWithoutInventingScore() throws Exception {
+        // Arrange
+        JsonNode result = new ObjectMapper().readTree("""
+                {"status":"success","video_url":"/outputs/1_annotated.mp4",
+                 "details":{"frame_count":120,
+                   "good_points":[{"title":"Tư thế tốt","description":"..."}],
+                   "errors":[{"title":"Khuỷu tay thấp cho Smash","description":"..."}],
+                   "detected_shots":[{"type":"Smash","time":1.25},{"type":"Forehand","time":2.5}]}}
+                """);
+
+        // Act
+        AnalysisResponse response = parser.fromVisionJobResult(result);
+
+        // Assert
+        assertEquals(2, response.detailedFeedbacks().size());
+        assertEquals("smash", response.detailedFeedbacks().get(0).shotType());
+        assertEquals(1250, response.detailedFeedbacks().get(0).raw().get("timestamp").asLong());
+        assertEquals(List.of("smash"), response.shotAnalysis().weakestShots());
+        assertNull(response.performanceMetrics().averageScore());
+        assertNull(response.detailedFeedbacks().get(0).overallScore());
+        assertEquals("/outputs/1_annotated.mp4", response.techniqueAnalysis().get("videoUrl").asText());
+        assertNull(response.error());
+    }
+}
@@ -0,0 +1,230 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.entity.Learner;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.repository.LearnerRepository;
+import com.pickle.backend.repository.VideoAnalysisRepository;
+import com.pickle.backend.repository.curriculum.VideoLessonRecommendationRepository;
+import com.pickle.backend.service.curriculum.CourseSkillIndex;
+import com.pickle.backend.service.curriculum.CurriculumService;
+import com.pickle.backend.storage.VideoStore;
+import com.pickle.backend.util.FeedbackFrameCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FullAnalysisServiceTest {
+
+    private static final String RESPONSE = """
+            {"detailed_feedbacks":[{"overall_score":42,"shot":{"type":"dink"}},{"overall_score":75}],
+             "techniqueAnalysis":{"grip":"ok"},
+             "shotAnalysis":{"weakestShots":["dink"]},
+             "performanceMetrics":{"averageScore":58.5}}
+            """;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private DownstreamClient visionClient;
+
+    @Mock
+    private VideoAnalysisRepository videoAnalysisRepository;
+
+    @Mock
+    private LearnerRepository learnerRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private VideoAnalysisShotIndexer shotIndexer;
+
+    @Mock
+    private VideoStore videoStore;
+
+    @Mock
+    private CourseSkillIndex courseSkillIndex;
+
+    @Mock
+    private CurriculumService curriculumService;
+
+    @Mock
+    private VideoLessonRecommendationRepository videoLessonRecommendationRepository;
+
+    @Mock
+    private SkillModelService skillModelService;
+
+    @InjectMocks
+    private FullAnalysisService fullAnalysisService;
+
+    @TempDir
+    Path tempDir;
+
+    private final AnalysisResponseParser analysisResponseParser = new AnalysisResponseParser();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private StagedVideo stagedVideo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(fullAnalysisService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(fullAnalysisService, "analysisResponseParser", analysisResponseParser);
+        ReflectionTestUtils.setField(fullAnalysisService, "dedupEnabled", true);
+        ReflectionTestUtils.setField(fullAnalysisService, "videoFileField", "video");
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        fullAnalysisService.initTransactionTemplates();
+
+        Learner learner = new Learner();
+        learner.setUserId("learner-1");
+        learner.setSkillLevel("Beginner");
+        when(learnerRepository.findById("learner-1")).thenReturn(Optional.of(learner));
+
+        Path video = Files.write(tempDir.resolve("staged.mp4"), new byte[] { 1, 2, 3 });
+        stagedVideo = new StagedVideo(video, "clip.mp4", "video/mp4", 3, "hash-1");
+    }
+
+    @Test
+    void testAnalyzeStaged_HashHitReusesStoredResultAndVideo() throws Exception {
+        // Arrange
+        when(videoAnalysisRepository.findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc("hash-1"))
+                .thenReturn(Optional.of(storedAnalysis("learner-1", "videos/old.mp4")));
+        when(videoStore.exists("videos/old.mp4")).thenReturn(true);
+
+        // Act
+        Map<String, Object> response = fullAnalysisService.analyzeStaged("learner-1", stagedVideo);
+
+        // Assert
+        assertEquals("Phân tích thành công", response.get("message"));
+        verifyNoInteractions(visionClient);
+        verify(videoStore).touch("videos/old.mp4");
+        verify(videoStore, never()).store(any(), anyString());
+        assertFalse(Files.exists(stagedVideo.path()));
+        VideoAnalysis persisted = persistedAnalysis();
+        assertEquals("videos/old.mp4", persisted.getVideoPath());
+        assertEquals("hash-1", persisted.getContentHash());
+        assertEquals(58.5, persisted.getAverageScore());
+        assertEquals(1.0, meterRegistry.counter("video.analysis.dedup", "result", "hit").count());
+        assertEquals(0.0, meterRegistry.counter("video.analysis.dedup", "result", "miss").count());
+    }
+
+    @Test
+    void testAnalyzeStaged_HashHitOfSameUserDoesNotRecordSkillModelAgain() throws Exception {
+        // Arrange
+        when(videoAnalysisRepository.findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc("hash-1"))
+                .thenReturn(Optional.of(storedAnalysis("learner-1", "videos/old.mp4")));
+        when(videoStore.exists("videos/old.mp4")).thenReturn(true);
+
+        // Act
+        fullAnalysisService.analyzeStaged("learner-1", stagedVideo);
+
+        // Assert
+        verify(skillModelService, never()).observationsFrom(any());
+        verify(skillModelService, never()).record(anyString(), anyMap());
+    }
+
+    @Test
+    void testAnalyzeStaged_HashHitOfAnotherUserRecordsSkillModel() throws Exception {
+        // Arrange
+        when(videoAnalysisRepository.findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc("hash-1"))
+                .thenReturn(Optional.of(storedAnalysis("learner-2", "videos/old.mp4")));
+        when(videoStore.exists("videos/old.mp4")).thenReturn(true);
+        when(skillModelService.observationsFrom(any())).thenReturn(Map.of("dink", 42.0));
+
+        // Act
+        fullAnalysisService.analyzeStaged("learner-1", stagedVideo);
+
+        // Assert
+        verify(skillModelService).record("learner-1", Map.of("dink", 42.0));
+        assertEquals(1.0, meterRegistry.counter("video.analysis.dedup", "result", "hit").count());
+    }
+
+    @Test
+    void testAnalyzeStaged_HashHitWithVideoMissingFromStoreStoresUploadAgain() throws Exception {
+        // Arrange
+        when(videoAnalysisRepository.findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc("hash-1"))
+                .thenReturn(Optional.of(storedAnalysis("learner-1", "videos/evicted.mp4")));
+        when(videoStore.exists("videos/evicted.mp4")).thenReturn(false);
+        when(videoStore.store(stagedVideo.path(), "clip.mp4")).thenReturn("videos/new.mp4");
+
+        // Act
+        Map<String, Object> response = fullAnalysisService.analyzeStaged("learner-1", stagedVideo);
+
+        // Assert
+        assertEquals("Phân tích thành công", response.get("message"));
+        verifyNoInteractions(visionClient);
+        verify(videoStore, never()).touch(anyString());
+        assertEquals("videos/new.mp4", persistedAnalysis().getVideoPath());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAnalyzeStaged_HashMissCallsVisionServiceAndStoresUpload() throws Exception {
+        // Arrange
+        when(videoAnalysisRepository.findFirstByContentHashAndAnalysisResultIsNotNullOrderByCreatedAtDesc("hash-1"))
+                .thenReturn(Optional.empty());
+        when(visionClient.execute(eq("analyze"), eq(false), any(DownstreamClient.Call.class)))
+                .thenReturn(analysisResponseParser.parse(RESPONSE));
+        when(videoStore.store(stagedVideo.path(), "clip.mp4")).thenReturn("videos/new.mp4");
+        when(skillModelService.observationsFrom(any())).thenReturn(Map.of("dink", 42.0));
+
+        // Act
+        Map<String, Object> response = fullAnalysisService.analyzeStaged("learner-1", stagedVideo);
+
+        // Assert
+        assertEquals("Phân tích thành công", response.get("message"));
+        assertEquals("videos/new.mp4", persistedAnalysis().getVideoPath());
+        verify(skillModelService).record("learner-1", Map.of("dink", 42.0));
+        assertEquals(0.0, meterRegistry.counter("video.analysis.dedup", "result", "hit").count());
+        assertEquals(1.0, meterRegistry.counter("video.analysis.dedup", "result", "miss").count());
+    }
+
+    private VideoAnalysis persistedAnalysis() {
+        ArgumentCaptor<VideoAnalysis> captor = ArgumentCaptor.forClass(VideoAnalysis.class);
+        verify(entityManager).persist(captor.capture());
+        return captor.getValue();
+    }
+
+    // Bản ghi của lần phân tích trước, các cột JSON ở dạng đã lưu
+    private VideoAnalysis storedAnalysis(String userId, String videoPath) throws Exception {
+        AnalysisResponse response = analysisResponseParser.parse(RESPONSE);
+        VideoAnalysis previous = new VideoAnalysis();
+        previous.setVideoId("previous");
+        previous.setUserId(userId);
+        previous.setVideoPath(videoPath);
+        previous.setContentHash("hash-1");
+        previous.setFeedbackFrames(FeedbackFrameCodec.encode(response.detailedFeedbacks()));
+        previous.setShotAnalysis("{\"weakestShots\":[\"dink\"]}");
+        previous.setAnalysisResult(
+                "{\"techniqueAnalysis\":{\"grip\":\"ok\"},\"performanceMetrics\":{\"averageScore\":58.5}}");
+        return previous;
+    }
+}
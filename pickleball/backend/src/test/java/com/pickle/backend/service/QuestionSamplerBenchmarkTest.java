@@ -0,0 +1,108 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.test.Question;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh QuestionSampler với ORDER BY RAND() khi ngân hàng câu hỏi tăng từ 1k
+ * lên 100k câu (H2 trong bộ nhớ). Chạy riêng:
+ * mvn test -Dtest=QuestionSamplerBenchmarkTest -Dbenchmark=true
+ */
+@DataJpaTest(showSql = false, properties = "logging.level.com.pickle=INFO")
+@Import(QuestionSampler.class)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class QuestionSamplerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionSamplerBenchmarkTest.class);
+    private static final int ROUNDS = 200;
+    private static final int OPTIONS_PER_QUESTION = 4;
+
+    @Autowired
+    private QuestionSampler questionSampler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void benchmarkSampleAgainstOrderByRand() {
+        int inserted = 0;
+        double samplerAt1k = 0;
+        double samplerAt100k = 0;
+        for (int size : new int[] { 1_000, 10_000, 100_000 }) {
+            insertQuestions(inserted, size);
+            inserted = size;
+            questionSampler.invalidate();
+
+            // Act
+            assertEquals(5, questionSampler.sample(5).size());
+            // Mỗi lượt như một request mới: persistence context rỗng
+            double sampler = averageMillis(() -> {
+                questionSampler.sample(5).forEach(q -> q.getOptions().size());
+                entityManager.clear();
+            });
+            // Như endpoint cũ: chọn câu hỏi bằng ORDER BY RAND() rồi nạp đáp án của từng câu
+            double orderByRand = averageMillis(() -> {
+                @SuppressWarnings("unchecked")
+                List<Question> questions = entityManager.getEntityManager()
+                        .createNativeQuery("SELECT * FROM question ORDER BY RAND() LIMIT 5", Question.class)
+                        .getResultList();
+                questions.forEach(q -> q.getOptions().size());
+                entityManager.clear();
+            });
+            logger.info("questions={} sampler={} ms orderByRand={} ms", size, String.format("%.3f", sampler),
+                    String.format("%.3f", orderByRand));
+
+            if (size == 1_000) {
+                samplerAt1k = sampler;
+            } else if (size == 100_000) {
+                samplerAt100k = sampler;
+            }
+        }
+
+        // Assert: chi phí không tăng theo kích thước bảng (cho phép nhiễu đo)
+        assertTrue(samplerAt100k < samplerAt1k * 5 + 1,
+                "sampler at 100k: " + samplerAt100k + " ms, at 1k: " + samplerAt1k + " ms");
+    }
+
+    private double averageMillis(Runnable action) {
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / ROUNDS;
+    }
+
+    private void insertQuestions(int from, int to) {
+        List<Object[]> questions = new ArrayList<>();
+        List<Object[]> options = new ArrayList<>();
+        for (int id = from + 1; id <= to; id++) {
+            questions.add(new Object[] { id, "Question " + id, "EASY", "dink" });
+            for (int o = 0; o < OPTIONS_PER_QUESTION; o++) {
+                options.add(new Object[] { id * OPTIONS_PER_QUESTION + o, "Option " + o, o == 0, id });
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO question (id, content, level, topic) VALUES (?, ?, ?, ?)", questions);
+        jdbcTemplate.batchUpdate("INSERT INTO question_options (id, content, is_correct, question_id)"
+                + " VALUES (?, ?, ?, ?)", options);
+    }
+}
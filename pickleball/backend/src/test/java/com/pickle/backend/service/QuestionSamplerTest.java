@@ -0,0 +1,76 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.test.Question;
+import com.pickle.backend.repository.QuestionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionSamplerTest {
+
+    @Mock
+    private QuestionRepository questionRepository;
+
+    @InjectMocks
+    private QuestionSampler questionSampler;
+
+    @Test
+    void testSample_ReturnsDistinctQuestionsFromOneQuery() {
+        // Arrange
+        when(questionRepository.findAllIds()).thenReturn(LongStream.rangeClosed(1, 1000).boxed().toList());
+        when(questionRepository.findWithOptionsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            List<Question> questions = new ArrayList<>();
+            ids.forEach(id -> questions.add(question(id)));
+            return questions;
+        });
+
+        // Act
+        List<Question> first = questionSampler.sample(5);
+        List<Question> second = questionSampler.sample(5);
+
+        // Assert
+        assertEquals(5, first.size());
+        assertEquals(5, new HashSet<>(first.stream().map(Question::getId).toList()).size());
+        assertEquals(5, second.size());
+        verify(questionRepository, times(1)).findAllIds();
+        verify(questionRepository, times(2)).findWithOptionsByIdIn(anyCollection());
+    }
+
+    @Test
+    void testSample_SkipsQuestionsDeletedSinceIdsWereLoadedAndReloadsAfterInvalidate() {
+        // Arrange
+        when(questionRepository.findAllIds()).thenReturn(List.of(1L, 2L, 3L));
+        when(questionRepository.findWithOptionsByIdIn(anyCollection())).thenReturn(List.of(question(1L), question(3L)));
+
+        // Act
+        List<Question> questions = questionSampler.sample(5);
+        questionSampler.invalidate();
+        questionSampler.sample(1);
+
+        // Assert
+        assertEquals(2, questions.size());
+        verify(questionRepository, times(2)).findAllIds();
+    }
+
+    private static Question question(Long id) {
+        Question question = new Question();
+        ReflectionTestUtils.setField(question, "id", id);
+        question.setContent("Question " + id);
+        return question;
+    }
+}
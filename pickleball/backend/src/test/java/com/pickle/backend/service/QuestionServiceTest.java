@@ -0,0 +1,158 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.AnswerDTO;
+import com.pickle.backend.dto.QuizAttemptDTO;
+import com.pickle.backend.dto.QuizResultDTO;
+import com.pickle.backend.dto.QuizScoreDTO;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.repository.OptionRepository;
+import com.pickle.backend.repository.QuizResultBatchRepository;
+import com.pickle.backend.repository.QuizResultsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuestionServiceTest {
+
+    @Mock
+    private QuizResultsRepository quizResultsRepository;
+
+    @Mock
+    private QuizResultBatchRepository quizResultBatchRepository;
+
+    @Mock
+    private SkillModelService skillModelService;
+
+    @Mock
+    private OptionRepository optionRepository;
+
+    @Mock
+    private QuizStatsService quizStatsService;
+
+    @InjectMocks
+    private QuestionService questionService;
+
+    @BeforeEach
+    void setUp() {
+        // QuestionService có constructor nên Mockito không tự gán các field @Autowired
+        ReflectionTestUtils.setField(questionService, "quizResultBatchRepository", quizResultBatchRepository);
+        ReflectionTestUtils.setField(questionService, "skillModelService", skillModelService);
+        ReflectionTestUtils.setField(questionService, "optionRepository", optionRepository);
+        ReflectionTestUtils.setField(questionService, "quizStatsService", quizStatsService);
+    }
+
+    @Test
+    void testSaveQuizAttempt_WritesOneBatchAndUpdatesSkillModelOnce() {
+        // Arrange
+        QuizAttemptDTO attempt = new QuizAttemptDTO();
+        attempt.setLearnerId("learner-1");
+        attempt.setTopic("dink");
+        attempt.setLevel("easy");
+        attempt.setResults(List.of(answer("Q1", true, null), answer("Q2", false, "serve")));
+
+        // Act
+        int saved = questionService.saveQuizAttempt(attempt);
+
+        // Assert
+        assertEquals(2, saved);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<QuizResult>> rows = ArgumentCaptor.forClass(List.class);
+        verify(quizResultBatchRepository, times(1)).insertAll(rows.capture());
+        List<QuizResult> inserted = rows.getValue();
+        assertEquals("dink", inserted.get(0).getTopic());
+        assertEquals("serve", inserted.get(1).getTopic());
+        assertEquals("learner-1", inserted.get(1).getLearnerId());
+        assertTrue(inserted.get(1).getCreatedAt().isAfter(inserted.get(0).getCreatedAt()));
+        verify(skillModelService, times(1)).recordQuizResults("learner-1", inserted);
+        verify(quizStatsService, times(1)).record("learner-1", inserted);
+        verify(quizResultsRepository, never()).save(any(QuizResult.class));
+    }
+
+    @Test
+    void testSaveQuizAttempt_RejectsAnswerWithoutQuestionText() {
+        // Arrange
+        QuizAttemptDTO attempt = new QuizAttemptDTO();
+        attempt.setLearnerId("learner-1");
+        List<QuizResultDTO> results = new ArrayList<>();
+        results.add(answer("Q1", true, null));
+        results.add(answer(null, false, null));
+        attempt.setResults(results);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> questionService.saveQuizAttempt(attempt));
+        verify(quizResultBatchRepository, never()).insertAll(anyList());
+        verify(skillModelService, never()).recordQuizResults(anyString(), anyList());
+    }
+
+    @Test
+    void testScoreQuiz_UsesOneQueryAndRejectsOptionFromAnotherQuestion() {
+        // Arrange
+        when(optionRepository.findAnswerKeys(anyCollection())).thenReturn(List.of(
+                answerKey(11L, 1L, true), answerKey(22L, 2L, false), answerKey(31L, 3L, true)));
+        List<AnswerDTO> answers = List.of(submitted(1L, 11L), submitted(2L, 22L), submitted(4L, 31L),
+                submitted(5L, 99L));
+
+        // Act
+        QuizScoreDTO result = questionService.scoreQuiz(answers);
+
+        // Assert
+        assertEquals(1, result.getScore());
+        assertEquals(4, result.getTotal());
+        assertEquals(List.of(true, false, false, false),
+                result.getResults().stream().map(QuizScoreDTO.AnswerResult::isCorrect).toList());
+        verify(optionRepository, times(1)).findAnswerKeys(anyCollection());
+        verify(optionRepository, never()).findById(any());
+    }
+
+    private static AnswerDTO submitted(Long questionId, Long optionId) {
+        AnswerDTO answer = new AnswerDTO();
+        answer.setQuestionId(questionId);
+        answer.setOptionId(optionId);
+        return answer;
+    }
+
+    private static OptionRepository.AnswerKey answerKey(Long optionId, Long questionId, boolean correct) {
+        return new OptionRepository.AnswerKey() {
+            @Override
+            public Long getOptionId() {
+                return optionId;
+            }
+
+            @Override
+            public Long getQuestionId() {
+                return questionId;
+            }
+
+            @Override
+            public Boolean getCorrect() {
+                return correct;
+            }
+        };
+    }
+
+    private static QuizResultDTO answer(String questionText, boolean correct, String topic) {
+        QuizResultDTO answer = new QuizResultDTO();
+        answer.setQuestionText(questionText);
+        answer.setSelectedOptionText("A");
+        answer.setCorrectOptionText(correct ? "A" : "B");
+        answer.setIsCorrect(correct);
+        answer.setTopic(topic);
+        return answer;
+    }
+}
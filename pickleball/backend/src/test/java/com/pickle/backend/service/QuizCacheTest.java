@@ -0,0 +1,140 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.QuizOptionDTO;
+import com.pickle.backend.dto.QuizQuestionDTO;
+import com.pickle.backend.dto.QuizResponseDTO;
+import com.pickle.backend.entity.QuizCacheEntry;
+import com.pickle.backend.repository.QuizCacheEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizCacheTest {
+
+    @Mock
+    private QuizCacheEntryRepository cacheEntryRepository;
+
+    @InjectMocks
+    private QuizCache quizCache;
+
+    private final QuizCache.Key key = new QuizCache.Key("dink", "easy", "r1:serve");
+    private final AtomicInteger generated = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizCache, "refreshExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(quizCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(quizCache, "enabled", true);
+        ReflectionTestUtils.setField(quizCache, "maxLocalEntries", 10);
+        ReflectionTestUtils.setField(quizCache, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(quizCache, "staleWhileRevalidate", Duration.ofHours(2));
+        setNow(Instant.parse("2026-01-01T00:00:00Z"));
+    }
+
+    @Test
+    void testGet_SecondRequestIsServedFromMemoryWithoutLearnerAnalysis() {
+        // Arrange
+        when(cacheEntryRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        // Act
+        QuizResponseDTO first = quizCache.get(key, this::generate);
+        QuizResponseDTO second = quizCache.get(key, this::generate);
+
+        // Assert
+        assertEquals(1, generated.get());
+        assertNotNull(first.getLearnerAnalysis());
+        assertNull(second.getLearnerAnalysis());
+        assertEquals("Question 1", second.getQuestions().get(0).getQuestionText());
+        assertTrue(second.getQuestions().get(0).getOptions().get(0).isCorrect());
+        verify(cacheEntryRepository, times(1)).save(any(QuizCacheEntry.class));
+    }
+
+    @Test
+    void testGet_StaleDbEntryIsReturnedAndRefreshedInBackground() {
+        // Arrange
+        quizCache.get(key, this::generate);
+        ArgumentCaptor<QuizCacheEntry> saved = ArgumentCaptor.forClass(QuizCacheEntry.class);
+        verify(cacheEntryRepository).save(saved.capture());
+        QuizCacheEntry row = saved.getValue();
+        row.setCreatedAt(new Timestamp(Instant.parse("2026-01-01T00:00:00Z").toEpochMilli()));
+
+        QuizCache otherNode = new QuizCache();
+        ReflectionTestUtils.setField(otherNode, "cacheEntryRepository", cacheEntryRepository);
+        ReflectionTestUtils.setField(otherNode, "refreshExecutor", new SyncTaskExecutor());
+        ReflectionTestUtils.setField(otherNode, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(otherNode, "enabled", true);
+        ReflectionTestUtils.setField(otherNode, "maxLocalEntries", 10);
+        ReflectionTestUtils.setField(otherNode, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(otherNode, "staleWhileRevalidate", Duration.ofHours(2));
+        otherNode.clock = Clock.fixed(Instant.parse("2026-01-01T01:30:00Z"), ZoneOffset.UTC);
+        when(cacheEntryRepository.findById(row.getCacheKey())).thenReturn(Optional.of(row));
+
+        // Act
+        QuizResponseDTO stale = otherNode.get(key, this::generate);
+
+        // Assert
+        assertNotNull(stale);
+        assertNull(stale.getLearnerAnalysis());
+        assertEquals(2, generated.get());
+        verify(cacheEntryRepository, times(2)).save(any(QuizCacheEntry.class));
+    }
+
+    @Test
+    void testGet_ExpiredEntryIsRegeneratedSynchronously() {
+        // Arrange
+        when(cacheEntryRepository.findById(anyString())).thenReturn(Optional.empty());
+        quizCache.get(key, this::generate);
+        setNow(Instant.parse("2026-01-01T03:00:01Z"));
+
+        // Act
+        QuizResponseDTO result = quizCache.get(key, this::generate);
+
+        // Assert
+        assertEquals(2, generated.get());
+        assertNotNull(result.getLearnerAnalysis());
+    }
+
+    private void setNow(Instant now) {
+        quizCache.clock = Clock.fixed(now, ZoneOffset.UTC);
+    }
+
+    private QuizResponseDTO generate() {
+        generated.incrementAndGet();
+        QuizOptionDTO option = new QuizOptionDTO();
+        option.setId(1);
+        option.setText("Soft");
+        option.setCorrect(true);
+        QuizQuestionDTO question = new QuizQuestionDTO();
+        question.setQuestionText("Question 1");
+        question.setOptions(List.of(option));
+        QuizResponseDTO quiz = new QuizResponseDTO();
+        quiz.setTopic("dink");
+        quiz.setLevel("easy");
+        quiz.setQuestions(List.of(question));
+        quiz.setLearnerAnalysis(Map.of("correct_rate", 0.5));
+        return quiz;
+    }
+}
@@ -0,0 +1,122 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.QuizQuestionDTO;
+import com.pickle.backend.dto.QuizResponseDTO;
+import com.pickle.backend.entity.QuizPoolEntry;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.repository.QuizPoolEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizPoolTest {
+
+    @Mock
+    private QuizPoolEntryRepository poolEntryRepository;
+
+    @InjectMocks
+    private QuizPool quizPool;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(quizPool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(quizPool, "enabled", true);
+        ReflectionTestUtils.setField(quizPool, "candidates", 5);
+        ReflectionTestUtils.setField(quizPool, "demandTtl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(quizPool, "warmKeys", new String[] { "Serve:easy" });
+    }
+
+    @Test
+    void testTake_PrefersQuizWithFewestKnownAnswersAndOrdersWrongFirst() {
+        // Arrange
+        QuizPoolEntry known = entry("known", "Q1", "Q2");
+        QuizPoolEntry fresh = entry("fresh", "Q1", "Q3", "Q5");
+        when(poolEntryRepository.findByTopicAndLevelOrderByCreatedAtAsc(eq("dink"), eq("easy"), any(Pageable.class)))
+                .thenReturn(List.of(known, fresh));
+        when(poolEntryRepository.claim("fresh")).thenReturn(1);
+        List<QuizResult> recent = List.of(result("Q3", false), result("Q2", true), result("Q4", true));
+
+        // Act
+        Optional<QuizResponseDTO> quiz = quizPool.take("Dink", "easy", recent);
+
+        // Assert
+        assertTrue(quiz.isPresent());
+        assertEquals("Dink", quiz.get().getTopic());
+        assertEquals(List.of("Q3", "Q1", "Q5"),
+                quiz.get().getQuestions().stream().map(QuizQuestionDTO::getQuestionText).toList());
+        verify(poolEntryRepository, never()).claim("known");
+    }
+
+    @Test
+    void testTake_EmptyWhenAnotherNodeClaimedEveryCandidate() {
+        // Arrange
+        QuizPoolEntry only = entry("only", "Q1");
+        when(poolEntryRepository.findByTopicAndLevelOrderByCreatedAtAsc(eq("dink"), eq("easy"), any(Pageable.class)))
+                .thenReturn(List.of(only));
+        when(poolEntryRepository.claim("only")).thenReturn(0);
+
+        // Act
+        Optional<QuizResponseDTO> quiz = quizPool.take("dink", "easy", List.of());
+
+        // Assert
+        assertTrue(quiz.isEmpty());
+    }
+
+    @Test
+    void testShortfall_CoversWarmKeysAndRequestedPairs() {
+        // Arrange
+        when(poolEntryRepository.findByTopicAndLevelOrderByCreatedAtAsc(eq("dink"), eq("hard"), any(Pageable.class)))
+                .thenReturn(List.of());
+        quizPool.take("dink", "hard", List.of());
+        when(poolEntryRepository.countByTopicAndLevel("serve", "easy")).thenReturn(7L);
+        when(poolEntryRepository.countByTopicAndLevel("dink", "hard")).thenReturn(10L);
+
+        // Act
+        Map<QuizPool.PoolKey, Integer> shortfall = quizPool.shortfall(10);
+
+        // Assert
+        assertEquals(Map.of(new QuizPool.PoolKey("serve", "easy"), 3), shortfall);
+    }
+
+    private static QuizPoolEntry entry(String id, String... questions) {
+        StringBuilder payload = new StringBuilder("{\"topic\":\"dink\",\"level\":\"easy\",\"questions\":[");
+        for (int i = 0; i < questions.length; i++) {
+            payload.append(i > 0 ? "," : "")
+                    .append("{\"question_text\":\"").append(questions[i]).append("\",\"options\":[],")
+                    .append("\"correctAnswer\":-1}");
+        }
+        payload.append("]}");
+        QuizPoolEntry entry = new QuizPoolEntry();
+        entry.setId(id);
+        entry.setTopic("dink");
+        entry.setLevel("easy");
+        entry.setPayload(payload.toString());
+        entry.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        return entry;
+    }
+
+    private static QuizResult result(String questionText, boolean correct) {
+        QuizResult result = new QuizResult();
+        result.setQuestionText(questionText);
+        result.setIsCorrect(correct);
+        return result;
+    }
+}
@@ -0,0 +1,150 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.LearnerQuizStat;
+import com.pickle.backend.entity.QuizResult;
+import com.pickle.backend.repository.LearnerQuizStatRepository;
+import com.pickle.backend.repository.QuizResultsRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class QuizStatsServiceTest {
+
+    @Mock
+    private LearnerQuizStatRepository statRepository;
+
+    @Mock
+    private QuizResultsRepository quizResultsRepository;
+
+    @InjectMocks
+    private QuizStatsService quizStatsService;
+
+    @Test
+    void testRecord_IncrementsExistingCountersWithoutReadingHistory() {
+        // Arrange
+        LearnerQuizStat all = stat(LearnerQuizStat.ALL, LearnerQuizStat.ALL_BUCKET, 10, 6);
+        LearnerQuizStat dink = stat(LearnerQuizStat.TOPIC, "dink", 4, 1);
+        LearnerQuizStat easy = stat(LearnerQuizStat.LEVEL, "easy", 10, 6);
+        when(statRepository.findForUpdate("learner-1")).thenReturn(new ArrayList<>(List.of(all, dink, easy)));
+
+        // Act
+        quizStatsService.record("learner-1", List.of(result("Dink ", "easy", true), result(null, "easy", false)));
+
+        // Assert
+        assertEquals(12, all.getTotal());
+        assertEquals(7, all.getCorrect());
+        assertEquals(5, dink.getTotal());
+        assertEquals(2, dink.getCorrect());
+        assertEquals(12, easy.getTotal());
+        Map<String, LearnerQuizStat> saved = savedByBucket();
+        assertEquals(1, saved.get("general").getTotal());
+        assertEquals(0, saved.get("general").getCorrect());
+        verify(quizResultsRepository, never()).sumByTopicAndLevel(anyString());
+    }
+
+    @Test
+    void testRecord_BuildsCountersFromHistoryOnceWithoutDoubleCounting() {
+        // Arrange
+        when(statRepository.findForUpdate("learner-1")).thenReturn(List.of());
+        // Tổng trong DB đã gồm câu vừa lưu
+        when(quizResultsRepository.sumByTopicAndLevel("learner-1")).thenReturn(List.of(
+                totals("dink", "easy", 3, 2), totals("Dink", "hard", 1, 1)));
+
+        // Act
+        quizStatsService.record("learner-1", List.of(result("dink", "hard", true)));
+
+        // Assert
+        Map<String, LearnerQuizStat> saved = savedByBucket();
+        assertEquals(4, saved.get(LearnerQuizStat.ALL_BUCKET).getTotal());
+        assertEquals(3, saved.get(LearnerQuizStat.ALL_BUCKET).getCorrect());
+        assertEquals(4, saved.get("dink").getTotal());
+        assertEquals(1, saved.get("hard").getTotal());
+    }
+
+    @Test
+    void testRecord_RebuildsWhenOnlyTheJustCreatedEmptyAllRowExists() {
+        // Arrange
+        when(statRepository.findForUpdate("learner-1")).thenReturn(new ArrayList<>(List.of(
+                new LearnerQuizStat("learner-1", LearnerQuizStat.ALL, LearnerQuizStat.ALL_BUCKET))));
+        when(quizResultsRepository.sumByTopicAndLevel("learner-1")).thenReturn(List.of(
+                totals("serve", "easy", 2, 1)));
+
+        // Act
+        quizStatsService.record("learner-1", List.of(result("serve", "easy", true)));
+
+        // Assert
+        verify(statRepository).insertAllRowIfAbsent("learner-1");
+        Map<String, LearnerQuizStat> saved = savedByBucket();
+        assertEquals(2, saved.get(LearnerQuizStat.ALL_BUCKET).getTotal());
+        assertEquals(1, saved.get(LearnerQuizStat.ALL_BUCKET).getCorrect());
+        assertEquals(2, saved.get("serve").getTotal());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, LearnerQuizStat> savedByBucket() {
+        ArgumentCaptor<Iterable<LearnerQuizStat>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(statRepository).saveAll(saved.capture());
+        Map<String, LearnerQuizStat> byBucket = new HashMap<>();
+        saved.getValue().forEach(stat -> byBucket.put(stat.getBucket(), stat));
+        return byBucket;
+    }
+
+    private static LearnerQuizStat stat(String dimension, String bucket, long total, long correct) {
+        LearnerQuizStat stat = new LearnerQuizStat("learner-1", dimension, bucket);
+        stat.add(total, correct, LocalDateTime.of(2026, 1, 1, 0, 0));
+        return stat;
+    }
+
+    private static QuizResult result(String topic, String level, boolean correct) {
+        QuizResult result = new QuizResult();
+        result.setLearnerId("learner-1");
+        result.setTopic(topic);
+        result.setLevel(level);
+        result.setIsCorrect(correct);
+        return result;
+    }
+
+    private static QuizResultsRepository.TopicLevelTotals totals(String topic, String level, long total,
+            long correct) {
+        return new QuizResultsRepository.TopicLevelTotals() {
+            @Override
+            public String getTopic() {
+                return topic;
+            }
+
+            @Override
+            public String getLevel() {
+                return level;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+
+            @Override
+            public Long getCorrect() {
+                return correct;
+            }
+
+            @Override
+            public LocalDateTime getLastAnsweredAt() {
+                return LocalDateTime.of(2026, 1, 1, 0, 0);
+            }
+        };
+    }
+}
@@ -0,0 +1,216 @@
+package com.pickle.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickle.backend.client.DownstreamClient;
+import com.pickle.backend.dto.StagedVideo;
+import com.pickle.backend.entity.RemoteAnalysisJob;
+import com.pickle.backend.repository.RemoteAnalysisJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RemoteAnalysisTrackerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Mock
+    private RemoteAnalysisJobRepository jobRepository;
+
+    @Mock
+    private DownstreamClient visionClient;
+
+    @Mock
+    private FullAnalysisService fullAnalysisService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ThreadPoolTaskScheduler scheduler;
+
+    @InjectMocks
+    private RemoteAnalysisTracker tracker;
+
+    @TempDir
+    Path tempDir;
+
+    private RemoteAnalysisJob job;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(tracker, "analysisResponseParser", new AnalysisResponseParser());
+        ReflectionTestUtils.setField(tracker, "scheduler", scheduler);
+        ReflectionTestUtils.setField(tracker, "statusUrl", "http://vision/status/{jobId}");
+        ReflectionTestUtils.setField(tracker, "initialDelay", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(tracker, "maxDelay", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(tracker, "maxWait", Duration.ofMinutes(30));
+        ReflectionTestUtils.setField(tracker, "completingTimeout", Duration.ofMinutes(10));
+
+        Path video = Files.writeString(tempDir.resolve("upload.mp4"), "video");
+        when(jobRepository.save(any(RemoteAnalysisJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        tracker.track("job-1", "learner-1", new StagedVideo(video, "upload.mp4", "video/mp4", 5, "hash"), "remote-1");
+        job = savedJob();
+        lenient().when(jobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        lenient().when(jobRepository.transition(eq("job-1"), eq(RemoteAnalysisJob.Status.POLLING),
+                eq(RemoteAnalysisJob.Status.COMPLETING), any())).thenReturn(1);
+        lenient().when(jobRepository.updatePollState(eq("job-1"), anyInt(), any(), any())).thenReturn(1);
+        clearInvocations(jobRepository, scheduler);
+    }
+
+    @Test
+    void testPoll_PendingIsRescheduledWithBackoffThenSuccessCompletesAnalysis() throws Exception {
+        // Arrange
+        when(visionClient.<JsonNode>execute(eq("status"), eq(true), any()))
+                .thenReturn(json("{\"status\":\"processing\"}"))
+                .thenReturn(json("{\"status\":\"success\",\"result\":{\"details\":{\"detected_shots\":"
+                        + "[{\"type\":\"Dink\",\"time\":1.5}]}}}"));
+        when(fullAnalysisService.completeAnalysis(eq("learner-1"), any(StagedVideo.class), any()))
+                .thenReturn(Map.of("message", "Phân tích thành công", "result", Map.of("summary", "ok")));
+
+        // Act
+        tracker.poll("job-1");
+        long firstDelay = job.getNextPollAt().getTime() - System.currentTimeMillis();
+        tracker.poll("job-1");
+
+        // Assert
+        assertTrue(firstDelay > 2000 && firstDelay <= 3000, "2s * 1.5 backoff, was " + firstDelay);
+        assertEquals(1, job.getPollCount());
+        verify(scheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(RemoteAnalysisJob.Status.SUCCEEDED, job.getStatus());
+        assertNull(job.getNextPollAt());
+        assertEquals("ok", MAPPER.readTree(job.getResultJson()).path("summary").asText());
+        ArgumentCaptor<StagedVideo> video = ArgumentCaptor.forClass(StagedVideo.class);
+        verify(fullAnalysisService).completeAnalysis(eq("learner-1"), video.capture(), any());
+        assertEquals("hash", video.getValue().sha256());
+        verify(eventPublisher).publishEvent(new RemoteAnalysisFinishedEvent("job-1", "SUCCEEDED",
+                "Phân tích thành công", Map.of("summary", "ok")));
+    }
+
+    @Test
+    void testPoll_RemoteErrorFailsJobAndDeletesStagedVideo() throws Exception {
+        // Arrange
+        when(visionClient.<JsonNode>execute(eq("status"), eq(true), any()))
+                .thenReturn(json("{\"status\":\"error\",\"message\":\"no player found\"}"));
+
+        // Act
+        tracker.poll("job-1");
+
+        // Assert
+        assertEquals(RemoteAnalysisJob.Status.FAILED, job.getStatus());
+        assertTrue(job.getMessage().endsWith("no player found"));
+        assertFalse(Files.exists(Path.of(job.getVideoPath())));
+        verify(fullAnalysisService, never()).completeAnalysis(anyString(), any(), any());
+        verify(scheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        verify(eventPublisher).publishEvent(any(RemoteAnalysisFinishedEvent.class));
+    }
+
+    @Test
+    void testPoll_JobOlderThanMaxWaitFailsWithoutCallingVisionService() {
+        // Arrange
+        job.setCreatedAt(new Timestamp(System.currentTimeMillis() - Duration.ofMinutes(31).toMillis()));
+
+        // Act
+        tracker.poll("job-1");
+
+        // Assert
+        assertEquals(RemoteAnalysisJob.Status.FAILED, job.getStatus());
+        assertTrue(job.getMessage().contains("quá thời gian chờ"));
+        verify(visionClient, never()).execute(anyString(), anyBoolean(), any());
+        verify(scheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void testPoll_CompleteAnalysisFailureKeepsPollingAndNextPollSucceeds() throws Exception {
+        // Arrange
+        when(visionClient.<JsonNode>execute(eq("status"), eq(true), any()))
+                .thenReturn(json("{\"status\":\"success\",\"result\":{\"details\":{}}}"));
+        when(fullAnalysisService.completeAnalysis(eq("learner-1"), any(StagedVideo.class), any()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(Map.of("message", "Phân tích thành công", "result", Map.of("summary", "ok")));
+
+        // Act
+        tracker.poll("job-1");
+        RemoteAnalysisJob.Status afterFailure = job.getStatus();
+        tracker.poll("job-1");
+
+        // Assert
+        assertEquals(RemoteAnalysisJob.Status.POLLING, afterFailure);
+        verify(jobRepository).transition(eq("job-1"), eq(RemoteAnalysisJob.Status.COMPLETING),
+                eq(RemoteAnalysisJob.Status.POLLING), any());
+        assertEquals(1, job.getPollCount());
+        verify(scheduler, times(1)).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(RemoteAnalysisJob.Status.SUCCEEDED, job.getStatus());
+        verify(fullAnalysisService, times(2)).completeAnalysis(eq("learner-1"), any(StagedVideo.class), any());
+    }
+
+    @Test
+    void testPoll_JobClaimedByAnotherInstanceIsNotCompletedTwice() throws Exception {
+        // Arrange
+        when(visionClient.<JsonNode>execute(eq("status"), eq(true), any()))
+                .thenReturn(json("{\"status\":\"success\",\"result\":{\"details\":{}}}"));
+        when(jobRepository.transition(eq("job-1"), eq(RemoteAnalysisJob.Status.POLLING),
+                eq(RemoteAnalysisJob.Status.COMPLETING), any())).thenReturn(0);
+
+        // Act
+        tracker.poll("job-1");
+
+        // Assert
+        verify(fullAnalysisService, never()).completeAnalysis(anyString(), any(), any());
+        verify(jobRepository, never()).save(any(RemoteAnalysisJob.class));
+        verify(scheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void testResumeUnfinishedJobs_SchedulesOverduePollsImmediately() {
+        // Arrange
+        job.setNextPollAt(new Timestamp(System.currentTimeMillis() - 60_000));
+        when(jobRepository.findByStatus(RemoteAnalysisJob.Status.POLLING)).thenReturn(List.of(job));
+        Instant before = Instant.now();
+
+        // Act
+        tracker.resumeUnfinishedJobs();
+
+        // Assert
+        ArgumentCaptor<Instant> at = ArgumentCaptor.forClass(Instant.class);
+        verify(scheduler).schedule(any(Runnable.class), at.capture());
+        assertFalse(at.getValue().isBefore(before));
+    }
+
+    private RemoteAnalysisJob savedJob() {
+        ArgumentCaptor<RemoteAnalysisJob> saved = ArgumentCaptor.forClass(RemoteAnalysisJob.class);
+        verify(jobRepository).save(saved.capture());
+        return saved.getValue();
+    }
+
+    private static JsonNode json(String value) throws Exception {
+        return MAPPER.readTree(value);
+    }
+}
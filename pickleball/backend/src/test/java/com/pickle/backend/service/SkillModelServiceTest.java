@@ -0,0 +1,82 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.analysis.AnalysisResponse;
+import com.pickle.backend.entity.LearnerSkillModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SkillModelServiceTest {
+
+    private final SkillModelService skillModelService = new SkillModelService();
+
+    @Test
+    void testObservationsFrom_ScoresOverallShotsGripAndBalance() throws Exception {
+        // Arrange
+        AnalysisResponse response = new AnalysisResponseParser().parse("""
+                {"detailed_feedbacks":[
+                   {"overall_score":40,"grip":{"type":"western_grip"},"balance":{"status":"unstable"},
+                    "shot":{"type":"dink"}},
+                   {"overall_score":60,"grip":{"type":"eastern_grip"},"balance":{"status":"stable"},
+                    "shot":{"type":"half_volley"}},
+                   {"overall_score":90,"shot":{"type":"forehand"}}],
+                 "shotAnalysis":{"weakestShots":["dink"]},
+                 "performanceMetrics":{"averageScore":63.3}}
+                """);
+
+        // Act
+        Map<String, Double> observations = skillModelService.observationsFrom(response);
+
+        // Assert
+        assertEquals(63.3, observations.get(LearnerSkillModel.OVERALL));
+        assertEquals(50.0, observations.get("DINK"));
+        assertEquals(90.0, observations.get("FOREHAND"));
+        assertEquals(50.0, observations.get("GRIP"));
+        assertEquals(50.0, observations.get("BALANCE"));
+        assertFalse(observations.containsKey("SERVE"));
+    }
+
+    @Test
+    void testObserve_TracksScoreTrendAndConfidenceIncrementally() {
+        // Arrange
+        LearnerSkillModel model = new LearnerSkillModel("learner-1", "SERVE");
+
+        // Act
+        model.observe(40);
+        double firstConfidence = model.getConfidence();
+        for (int i = 0; i < 20; i++) {
+            model.observe(80);
+        }
+
+        // Assert
+        assertEquals(21, model.getSamples());
+        assertTrue(model.getScore() > 79 && model.getScore() <= 80, "score " + model.getScore());
+        assertTrue(model.getConfidence() > firstConfidence);
+        assertTrue(model.getTrend() >= 0);
+        model.observe(120);
+        assertEquals(84.0, model.getScore(), 1.0);
+    }
+
+    @Test
+    void testWeakestSkills_OnlyLessonSkillsBelowThresholdLowestFirst() {
+        // Arrange
+        LearnerSkillModel overall = new LearnerSkillModel("learner-1", LearnerSkillModel.OVERALL);
+        overall.observe(10);
+        LearnerSkillModel dink = new LearnerSkillModel("learner-1", "DINK");
+        dink.observe(55);
+        LearnerSkillModel grip = new LearnerSkillModel("learner-1", "GRIP");
+        grip.observe(20);
+        LearnerSkillModel serve = new LearnerSkillModel("learner-1", "SERVE");
+        serve.observe(85);
+
+        // Act
+        List<String> weakest = SkillModelService.weakestSkills(Map.of(
+                LearnerSkillModel.OVERALL, overall, "DINK", dink, "GRIP", grip, "SERVE", serve), 3);
+
+        // Assert
+        assertEquals(List.of("grip", "dink"), weakest);
+    }
+}
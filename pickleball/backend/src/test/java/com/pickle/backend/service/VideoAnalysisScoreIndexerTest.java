@@ -0,0 +1,82 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.Learner;
+import com.pickle.backend.entity.User;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.repository.VideoAnalysisRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+class VideoAnalysisScoreIndexerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VideoAnalysisRepository videoAnalysisRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private VideoAnalysisScoreIndexer scoreIndexer;
+
+    @BeforeEach
+    void setUp() {
+        scoreIndexer = new VideoAnalysisScoreIndexer();
+        ReflectionTestUtils.setField(scoreIndexer, "videoAnalysisRepository", videoAnalysisRepository);
+        ReflectionTestUtils.setField(scoreIndexer, "transactionManager", transactionManager);
+        scoreIndexer.initTransactionTemplate();
+
+        User user = new User();
+        user.setUserId("learner-1");
+        user.setName("Learner");
+        user.setEmail("learner-1@example.com");
+        user.setRole("learner");
+        entityManager.persist(user);
+        Learner learner = new Learner();
+        learner.setUser(user);
+        entityManager.persist(learner);
+    }
+
+    @Test
+    void testBackfill_ScoresOldAnalysesOnceIncludingThoseWithoutScore() {
+        // Arrange
+        persistAnalysis("scored", "{\"performanceMetrics\":{\"averageScore\":85.5},\"summary\":\"ok\"}");
+        persistAnalysis("no-score", "{\"performanceMetrics\":{},\"summary\":\"ok\"}");
+        persistAnalysis("pending", null);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        scoreIndexer.backfill();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        VideoAnalysis scored = entityManager.find(VideoAnalysis.class, "scored");
+        assertEquals(85.5, scored.getAverageScore());
+        assertEquals("Advanced", scored.getSkillLevel());
+        VideoAnalysis noScore = entityManager.find(VideoAnalysis.class, "no-score");
+        assertNull(noScore.getAverageScore());
+        assertEquals("Intermediate", noScore.getSkillLevel());
+        assertNull(entityManager.find(VideoAnalysis.class, "pending").getSkillLevel());
+        assertTrue(videoAnalysisRepository.findUnscoredVideoIds("", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private void persistAnalysis(String videoId, String analysisResult) {
+        VideoAnalysis analysis = new VideoAnalysis();
+        analysis.setVideoId(videoId);
+        analysis.setUserId("learner-1");
+        analysis.setAnalysisResult(analysisResult);
+        entityManager.persist(analysis);
+    }
+}
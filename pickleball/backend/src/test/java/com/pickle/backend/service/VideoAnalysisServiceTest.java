@@ -0,0 +1,104 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.dto.CursorPageDTO;
+import com.pickle.backend.dto.VideoAnalysisSummaryDTO;
+import com.pickle.backend.entity.Learner;
+import com.pickle.backend.entity.User;
+import com.pickle.backend.entity.VideoAnalysis;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.web.client.RestTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+class VideoAnalysisServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private VideoAnalysisService videoAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        videoAnalysisService = new VideoAnalysisService(new RestTemplate(), entityManager.getEntityManager());
+        persistLearner("learner-1");
+        persistLearner("learner-2");
+    }
+
+    @Test
+    void testGetSummaries_WalksAllPagesNewestFirstWithNullCreatedAtLast() {
+        // Arrange
+        Timestamp older = Timestamp.valueOf("2026-01-01 08:00:00");
+        Timestamp newer = Timestamp.valueOf("2026-02-01 08:00:00");
+        persistAnalysis("a", "learner-1", older);
+        persistAnalysis("b", "learner-1", newer);
+        persistAnalysis("c", "learner-1", newer);
+        persistAnalysis("d", "learner-1", null);
+        persistAnalysis("e", "learner-1", null);
+        persistAnalysis("f", "learner-2", newer);
+
+        // Act
+        List<String> videoIds = new ArrayList<>();
+        List<CursorPageDTO<VideoAnalysisSummaryDTO>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<VideoAnalysisSummaryDTO> page = videoAnalysisService.getSummaries("learner-1", cursor, 2);
+            page.getItems().forEach(item -> videoIds.add(item.getVideoId()));
+            pages.add(page);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Assert
+        assertEquals(List.of("c", "b", "a", "e", "d"), videoIds);
+        assertEquals(3, pages.size());
+        assertEquals(1, pages.get(2).getItems().size());
+    }
+
+    @Test
+    void testGetSummaries_ReturnsNoCursorOnLastFullPage() {
+        // Arrange
+        persistAnalysis("a", "learner-1", Timestamp.valueOf("2026-01-01 08:00:00"));
+        persistAnalysis("b", "learner-1", null);
+
+        // Act
+        CursorPageDTO<VideoAnalysisSummaryDTO> page = videoAnalysisService.getSummaries(null, null, 2);
+
+        // Assert
+        assertEquals(2, page.getItems().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetSummaries_RejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> videoAnalysisService.getSummaries(null, "not-a-cursor", 10));
+    }
+
+    private void persistLearner(String userId) {
+        User user = new User();
+        user.setUserId(userId);
+        user.setName(userId);
+        user.setEmail(userId + "@example.com");
+        user.setRole("learner");
+        entityManager.persist(user);
+        Learner learner = new Learner();
+        learner.setUser(user);
+        entityManager.persist(learner);
+    }
+
+    private void persistAnalysis(String videoId, String userId, Timestamp createdAt) {
+        VideoAnalysis analysis = new VideoAnalysis();
+        analysis.setVideoId(videoId);
+        analysis.setUserId(userId);
+        analysis.setCreatedAt(createdAt);
+        entityManager.persist(analysis);
+    }
+}
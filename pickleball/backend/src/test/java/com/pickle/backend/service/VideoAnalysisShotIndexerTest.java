@@ -0,0 +1,89 @@
+package com.pickle.backend.service;
+
+import com.pickle.backend.entity.Learner;
+import com.pickle.backend.entity.User;
+import com.pickle.backend.entity.VideoAnalysis;
+import com.pickle.backend.entity.VideoAnalysisShot;
+import com.pickle.backend.repository.VideoAnalysisRepository;
+import com.pickle.backend.repository.VideoAnalysisShotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(showSql = false)
+class VideoAnalysisShotIndexerTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private VideoAnalysisRepository videoAnalysisRepository;
+
+    @Autowired
+    private VideoAnalysisShotRepository shotRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private VideoAnalysisShotIndexer shotIndexer;
+
+    @BeforeEach
+    void setUp() {
+        shotIndexer = new VideoAnalysisShotIndexer();
+        ReflectionTestUtils.setField(shotIndexer, "shotRepository", shotRepository);
+        ReflectionTestUtils.setField(shotIndexer, "videoAnalysisRepository", videoAnalysisRepository);
+        ReflectionTestUtils.setField(shotIndexer, "transactionManager", transactionManager);
+        shotIndexer.initTransactionTemplate();
+
+        User user = new User();
+        user.setUserId("learner-1");
+        user.setName("Learner");
+        user.setEmail("learner-1@example.com");
+        user.setRole("learner");
+        entityManager.persist(user);
+        Learner learner = new Learner();
+        learner.setUser(user);
+        entityManager.persist(learner);
+    }
+
+    @Test
+    void testBackfill_MarksEveryProcessedRowIncludingThoseWithoutShots() {
+        // Arrange
+        persistAnalysis("with-shots", "[{\"shot\":{\"type\":\"Dink\"}},{\"shot\":{\"type\":\"Serve\"}}]",
+                "{\"weakestShots\":[\"Dink\"]}");
+        persistAnalysis("no-shots", "[]", "{\"weakestShots\":[]}");
+        entityManager.flush();
+        entityManager.clear();
+
+        // Act
+        shotIndexer.backfill();
+        entityManager.flush();
+        entityManager.clear();
+
+        // Assert
+        List<VideoAnalysisShot> shots = shotRepository.findAll();
+        assertEquals(2, shots.size());
+        assertTrue(shots.stream().allMatch(shot -> shot.getVideoId().equals("with-shots")));
+        assertTrue(shots.stream().anyMatch(shot -> shot.getShotType().equals("dink") && shot.isWeakest()));
+        assertTrue(entityManager.find(VideoAnalysis.class, "no-shots").getShotsIndexed());
+        assertTrue(shotRepository.findUnindexedVideoIds("", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private void persistAnalysis(String videoId, String detailedFeedbacks, String shotAnalysis) {
+        VideoAnalysis analysis = new VideoAnalysis();
+        analysis.setVideoId(videoId);
+        analysis.setUserId("learner-1");
+        analysis.setLegacyDetailedFeedbacks(detailedFeedbacks);
+        analysis.setShotAnalysis(shotAnalysis);
+        entityManager.persist(analysis);
+    }
+}
@@ -0,0 +1,77 @@
+package com.pickle.backend.service.curriculum;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogCacheTest {
+
+    private final CatalogCache catalogCache = new CatalogCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(catalogCache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(catalogCache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(catalogCache, "enabled", true);
+    }
+
+    @Test
+    void testGet_SecondRequestReusesSerializedBytesAndEtag() {
+        // Act
+        CatalogCache.View first = catalogCache.get("courses", () -> load("Basics"));
+        CatalogCache.View second = catalogCache.get("courses", () -> load("Basics"));
+
+        // Assert
+        assertEquals(1, loads.get());
+        assertSame(first, second);
+        assertEquals("[\"Basics\"]", new String(second.body(), StandardCharsets.UTF_8));
+        assertTrue(second.etag().startsWith("\"") && second.etag().endsWith("\""));
+    }
+
+    @Test
+    void testOnCurriculumChanged_BumpsVersionAndEtagFollowsContent() {
+        // Arrange
+        CatalogCache.View before = catalogCache.get("courses", () -> load("Basics"));
+        long version = catalogCache.version();
+
+        // Act
+        catalogCache.onCurriculumChanged(CurriculumChangedEvent.course(1L));
+        CatalogCache.View unchanged = catalogCache.get("courses", () -> load("Basics"));
+        catalogCache.onCurriculumChanged(CurriculumChangedEvent.course(1L));
+        CatalogCache.View renamed = catalogCache.get("courses", () -> load("Advanced"));
+
+        // Assert
+        assertEquals(version + 2, catalogCache.version());
+        assertEquals(3, loads.get());
+        assertEquals(before.etag(), unchanged.etag());
+        assertNotEquals(before.etag(), renamed.etag());
+    }
+
+    @Test
+    void testGet_MissingViewIsNotCached() {
+        // Act
+        CatalogCache.View missing = catalogCache.get("course:7", () -> {
+            loads.incrementAndGet();
+            return null;
+        });
+        catalogCache.get("course:7", () -> load("Created"));
+
+        // Assert
+        assertNull(missing);
+        assertEquals(2, loads.get());
+    }
+
+    private List<String> load(String title) {
+        loads.incrementAndGet();
+        return List.of(title);
+    }
+}
@@ -0,0 +1,85 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Course;
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.CourseRepository;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CourseSkillIndexTest {
+
+    @Mock
+    private CourseRepository courseRepository;
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @InjectMocks
+    private CourseSkillIndex courseSkillIndex;
+
+    @Test
+    void testCoursesForLevelAndSkill_BuildsIndexOnceFromTwoQueries() {
+        // Arrange
+        when(courseRepository.findAll()).thenReturn(List.of(
+                course(1L, "Serve basics", Course.LevelRequired.BEGINNER),
+                course(2L, "Dink tactics", Course.LevelRequired.INTERMEDIATE)));
+        when(lessonRepository.findCourseSkillPairs()).thenReturn(List.of(
+                new Object[] { 1L, Lesson.SkillType.SERVE },
+                new Object[] { 2L, Lesson.SkillType.DINK }));
+
+        // Act
+        List<CourseSkillIndex.CourseSummary> serve = courseSkillIndex.coursesForLevelAndSkill(
+                Course.LevelRequired.BEGINNER, Lesson.SkillType.SERVE);
+        List<CourseSkillIndex.CourseSummary> beginner = courseSkillIndex.coursesForLevel(
+                Course.LevelRequired.BEGINNER);
+
+        // Assert
+        assertEquals(List.of("Serve basics"), serve.stream().map(CourseSkillIndex.CourseSummary::title).toList());
+        assertEquals(1, beginner.size());
+        assertTrue(courseSkillIndex.coursesForLevelAndSkill(Course.LevelRequired.BEGINNER, Lesson.SkillType.DINK)
+                .isEmpty());
+        verify(courseRepository, times(1)).findAll();
+    }
+
+    @Test
+    void testOnCurriculumChanged_DuringBuildDoesNotKeepStaleSnapshot() {
+        // Arrange
+        when(courseRepository.findAll())
+                .thenAnswer(invocation -> {
+                    // Admin sửa khóa học trong lúc index đang dựng từ dữ liệu cũ
+                    courseSkillIndex.onCurriculumChanged(CurriculumChangedEvent.course(1L));
+                    return List.of(course(1L, "Old title", Course.LevelRequired.BEGINNER));
+                })
+                .thenReturn(List.of(course(1L, "New title", Course.LevelRequired.BEGINNER)));
+        when(lessonRepository.findCourseSkillPairs()).thenReturn(List.of());
+
+        // Act
+        List<CourseSkillIndex.CourseSummary> during = courseSkillIndex.coursesForLevel(Course.LevelRequired.BEGINNER);
+        List<CourseSkillIndex.CourseSummary> after = courseSkillIndex.coursesForLevel(Course.LevelRequired.BEGINNER);
+        List<CourseSkillIndex.CourseSummary> cached = courseSkillIndex.coursesForLevel(Course.LevelRequired.BEGINNER);
+
+        // Assert
+        assertEquals("Old title", during.get(0).title());
+        assertEquals("New title", after.get(0).title());
+        assertEquals("New title", cached.get(0).title());
+        verify(courseRepository, times(2)).findAll();
+    }
+
+    private static Course course(Long id, String title, Course.LevelRequired level) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setLevelRequired(level);
+        return course;
+    }
+}
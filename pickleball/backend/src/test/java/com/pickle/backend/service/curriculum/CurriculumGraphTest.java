@@ -0,0 +1,106 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurriculumGraphTest {
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @InjectMocks
+    private CurriculumGraph curriculumGraph;
+
+    private final UUID serveIntro = UUID.randomUUID();
+    private final UUID serveDrill = UUID.randomUUID();
+    private final UUID dinkIntro = UUID.randomUUID();
+
+    @Test
+    void testEntryLessons_FollowCourseOrderAndLevel() {
+        // Arrange
+        when(lessonRepository.findOutline()).thenReturn(List.of(
+                row(serveDrill, 1L, Lesson.LevelRequired.BEGINNER, Lesson.SkillType.SERVE, 2),
+                row(dinkIntro, 2L, Lesson.LevelRequired.INTERMEDIATE, Lesson.SkillType.DINK, 1),
+                row(serveIntro, 1L, Lesson.LevelRequired.BEGINNER, Lesson.SkillType.SERVE, 1)));
+
+        // Act & Assert
+        assertEquals(Optional.of(serveIntro), curriculumGraph.entryLesson());
+        assertEquals(List.of(serveIntro, serveDrill), curriculumGraph.courseLessons(1L));
+        assertEquals(Optional.of(dinkIntro), curriculumGraph.entryLesson(Lesson.LevelRequired.INTERMEDIATE));
+        assertEquals(List.of(serveIntro, serveDrill),
+                curriculumGraph.lessonsForLevelAndSkill(Lesson.LevelRequired.BEGINNER, Lesson.SkillType.SERVE));
+        assertEquals(Optional.empty(), curriculumGraph.entryLesson(Lesson.LevelRequired.ADVANCED));
+        verify(lessonRepository, times(1)).findOutline();
+    }
+
+    @Test
+    void testOnCurriculumChanged_ReloadsOnlyTheChangedCourse() {
+        // Arrange
+        when(lessonRepository.findOutline()).thenReturn(List.of(
+                row(serveIntro, 1L, Lesson.LevelRequired.BEGINNER, Lesson.SkillType.SERVE, 1),
+                row(dinkIntro, 2L, Lesson.LevelRequired.INTERMEDIATE, Lesson.SkillType.DINK, 1)));
+        long before = curriculumGraph.version();
+        // dinkIntro chuyển sang khóa 1 và thành bài đầu tiên
+        when(lessonRepository.findOutlineByCourseId(1L)).thenReturn(List.of(
+                row(serveIntro, 1L, Lesson.LevelRequired.BEGINNER, Lesson.SkillType.SERVE, 2),
+                row(dinkIntro, 1L, Lesson.LevelRequired.BEGINNER, Lesson.SkillType.DINK, 1)));
+
+        // Act
+        curriculumGraph.onCurriculumChanged(CurriculumChangedEvent.lesson(1L, dinkIntro));
+
+        // Assert
+        assertEquals(before + 1, curriculumGraph.version());
+        assertEquals(List.of(dinkIntro, serveIntro), curriculumGraph.courseLessons(1L));
+        assertEquals(List.of(), curriculumGraph.courseLessons(2L));
+        assertEquals(List.of(), curriculumGraph.lessonsForLevel(Lesson.LevelRequired.INTERMEDIATE));
+        verify(lessonRepository, times(1)).findOutline();
+    }
+
+    private static LessonRepository.OutlineRow row(UUID id, Long courseId, Lesson.LevelRequired level,
+            Lesson.SkillType skillType, Integer orderInCourse) {
+        return new LessonRepository.OutlineRow() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public Long getCourseId() {
+                return courseId;
+            }
+
+            @Override
+            public Lesson.LevelRequired getLevel() {
+                return level;
+            }
+
+            @Override
+            public Lesson.SkillType getSkillType() {
+                return skillType;
+            }
+
+            @Override
+            public Integer getOrderInCourse() {
+                return orderInCourse;
+            }
+
+            @Override
+            public Integer getOrderInModule() {
+                return null;
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.LessonRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LessonCacheTest {
+
+    @Mock
+    private LessonRepository lessonRepository;
+
+    @InjectMocks
+    private LessonCache lessonCache;
+
+    private final Lesson first = lesson("First");
+    private final Lesson second = lesson("Second");
+
+    @Test
+    void testGetAll_LoadsMissesInOneQueryAndKeepsRequestedOrder() {
+        // Arrange
+        UUID deleted = UUID.randomUUID();
+        when(lessonRepository.findWithCourseByIdIn(anyCollection())).thenReturn(List.of(first, second));
+
+        // Act
+        List<Lesson> lessons = lessonCache.getAll(List.of(second.getId(), deleted, first.getId(), second.getId()));
+        List<Lesson> cached = lessonCache.getAll(List.of(first.getId(), second.getId()));
+
+        // Assert
+        assertEquals(List.of(second, first), lessons);
+        assertEquals(List.of(first, second), cached);
+        verify(lessonRepository, times(1)).findWithCourseByIdIn(anyCollection());
+    }
+
+    @Test
+    void testOnCurriculumChanged_ReloadsOnlyTheChangedLesson() {
+        // Arrange
+        when(lessonRepository.findWithCourseByIdIn(anyCollection())).thenReturn(List.of(first, second));
+        lessonCache.getAll(List.of(first.getId(), second.getId()));
+        Lesson renamed = lesson("Renamed");
+        renamed.setId(first.getId());
+        when(lessonRepository.findWithCourseByIdIn(List.of(first.getId()))).thenReturn(List.of(renamed));
+
+        // Act
+        lessonCache.onCurriculumChanged(CurriculumChangedEvent.lesson(1L, first.getId()));
+        List<Lesson> lessons = lessonCache.getAll(List.of(first.getId(), second.getId()));
+
+        // Assert
+        assertEquals("Renamed", lessons.get(0).getTitle());
+        assertSame(second, lessons.get(1));
+    }
+
+    @Test
+    void testGetAll_DoesNotCacheLessonEvictedWhileLoading() {
+        // Arrange
+        Lesson renamed = lesson("Renamed");
+        renamed.setId(first.getId());
+        when(lessonRepository.findWithCourseByIdIn(List.of(first.getId())))
+                .thenAnswer(invocation -> {
+                    // Admin sửa bài học trong lúc truy vấn đang đọc bản cũ
+                    lessonCache.onCurriculumChanged(CurriculumChangedEvent.lesson(1L, first.getId()));
+                    return List.of(first);
+                })
+                .thenReturn(List.of(renamed));
+
+        // Act
+        List<Lesson> during = lessonCache.getAll(List.of(first.getId()));
+        List<Lesson> after = lessonCache.getAll(List.of(first.getId()));
+
+        // Assert
+        assertSame(first, during.get(0));
+        assertEquals("Renamed", after.get(0).getTitle());
+        verify(lessonRepository, times(2)).findWithCourseByIdIn(List.of(first.getId()));
+    }
+
+    private static Lesson lesson(String title) {
+        Lesson lesson = new Lesson();
+        lesson.setId(UUID.randomUUID());
+        lesson.setTitle(title);
+        return lesson;
+    }
+}
@@ -0,0 +1,145 @@
+package com.pickle.backend.service.curriculum;
+
+import com.pickle.backend.entity.curriculum.LearnerProgress;
+import com.pickle.backend.entity.curriculum.Lesson;
+import com.pickle.backend.repository.curriculum.LearnerProgressBatchRepository;
+import com.pickle.backend.repository.curriculum.LearnerProgressBatchRepository.ProgressUpdate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProgressHeartbeatBufferTest {
+
+    @Mock
+    private LearnerProgressBatchRepository batchRepository;
+
+    @InjectMocks
+    private ProgressHeartbeatBuffer buffer;
+
+    private final UUID lessonId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxPending", 100);
+    }
+
+    @Test
+    void testFlush_CoalescesHeartbeatsIntoOneBatch() {
+        // Arrange
+        for (int second = 1; second <= 30; second++) {
+            buffer.record("learner-1", lessonId, second, false);
+        }
+        buffer.record("learner-2", lessonId, 5, false);
+
+        // Act
+        assertEquals(30, buffer.pending("learner-1", lessonId).orElseThrow().watchedDurationSeconds());
+        buffer.flush();
+        buffer.flush();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProgressUpdate>> batch = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(1)).upsertAll(batch.capture());
+        assertEquals(2, batch.getValue().size());
+        ProgressUpdate first = batch.getValue().stream()
+                .filter(update -> update.learnerId().equals("learner-1")).findFirst().orElseThrow();
+        assertEquals(30, first.watchedDurationSeconds());
+        assertNull(first.isCompleted());
+        assertTrue(buffer.pending("learner-1", lessonId).isEmpty());
+    }
+
+    @Test
+    void testRecord_CompletionIsWrittenImmediately() {
+        // Arrange
+        buffer.record("learner-1", lessonId, 100, false);
+
+        // Act
+        buffer.record("learner-1", lessonId, null, true);
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProgressUpdate>> batch = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(1)).upsertAll(batch.capture());
+        ProgressUpdate update = batch.getValue().get(0);
+        assertEquals(Boolean.TRUE, update.isCompleted());
+        assertEquals(100, update.watchedDurationSeconds());
+        assertTrue(buffer.pending("learner-1", lessonId).isEmpty());
+    }
+
+    @Test
+    void testFlush_KeepsHeartbeatsWhenDatabaseIsUnavailable() {
+        // Arrange
+        buffer.record("learner-1", lessonId, 10, false);
+        doThrow(new QueryTimeoutException("timeout")).doNothing().when(batchRepository).upsertAll(anyList());
+
+        // Act
+        buffer.flush();
+        buffer.record("learner-1", lessonId, 12, false);
+        buffer.flush();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ProgressUpdate>> batch = ArgumentCaptor.forClass(List.class);
+        verify(batchRepository, times(2)).upsertAll(batch.capture());
+        assertEquals(12, batch.getAllValues().get(1).get(0).watchedDurationSeconds());
+        assertTrue(buffer.pending("learner-1", lessonId).isEmpty());
+    }
+
+    @Test
+    void testFlush_ReadsDuringWriteStillSeeBufferedValue() {
+        // Arrange
+        buffer.record("learner-1", lessonId, 10, false);
+        LearnerProgress duringWrite = progressRow();
+        doAnswer(invocation -> {
+            buffer.overlay(duringWrite);
+            // Báo cáo mới đến trong lúc đang ghi
+            buffer.record("learner-1", lessonId, 11, false);
+            return null;
+        }).when(batchRepository).upsertAll(anyList());
+
+        // Act
+        buffer.flush();
+
+        // Assert
+        assertEquals(10, duringWrite.getWatchedDurationSeconds());
+        assertEquals(11, buffer.pending("learner-1", lessonId).orElseThrow().watchedDurationSeconds());
+    }
+
+    @Test
+    void testRecord_FailedCompletionWriteKeepsBufferedHeartbeat() {
+        // Arrange
+        buffer.record("learner-1", lessonId, 100, false);
+        doThrow(new QueryTimeoutException("timeout")).when(batchRepository).upsertAll(anyList());
+
+        // Act & Assert
+        assertThrows(QueryTimeoutException.class, () -> buffer.record("learner-1", lessonId, null, true));
+        assertEquals(100, buffer.pending("learner-1", lessonId).orElseThrow().watchedDurationSeconds());
+    }
+
+    private LearnerProgress progressRow() {
+        Lesson lesson = new Lesson();
+        lesson.setId(lessonId);
+        LearnerProgress progress = new LearnerProgress();
+        progress.setLearnerId("learner-1");
+        progress.setLesson(lesson);
+        progress.setWatchedDurationSeconds(0);
+        return progress;
+    }
+}
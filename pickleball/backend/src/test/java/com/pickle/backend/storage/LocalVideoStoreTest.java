@@ -0,0 +1,130 @@
+package com.pickle.backend.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalVideoStoreTest {
+
+    @TempDir
+    Path root;
+
+    private TempVideoArea tempArea;
+
+    @BeforeEach
+    void setUp() {
+        tempArea = new TempVideoArea(root.resolve("temp"), Duration.ofHours(1));
+    }
+
+    private Path tempVideo(VideoStore store, int size) throws Exception {
+        Path temp = store.createTempFile("my video.mp4");
+        Files.write(temp, new byte[size]);
+        return temp;
+    }
+
+    private void ageFile(Path file, Duration age) throws Exception {
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(age)));
+    }
+
+    @Test
+    void testStore_MovesTempFileIntoShardedDirectory() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 0, Duration.ZERO);
+        Path temp = tempVideo(store, 10);
+
+        // Act
+        String key = store.store(temp, "my video.mp4");
+
+        // Assert
+        assertTrue(key.matches("Uploads/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{32}_my_video\\.mp4"), key);
+        assertFalse(Files.exists(temp));
+        assertTrue(store.exists(key));
+        assertTrue(Files.isRegularFile(root.resolve(key)));
+    }
+
+    @Test
+    void testExists_RejectsKeysOutsideVideoDirectory() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 0, Duration.ZERO);
+        Files.writeString(root.resolve("secret.txt"), "x");
+
+        // Act & Assert
+        assertFalse(store.exists("Uploads/../secret.txt"));
+        assertThrows(java.io.IOException.class, () -> store.delete("Uploads/../secret.txt"));
+        assertTrue(Files.exists(root.resolve("secret.txt")));
+    }
+
+    @Test
+    void testSweep_DeletesStaleTempFilesOnly() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 0, Duration.ZERO);
+        Path stale = tempVideo(store, 1);
+        Path fresh = tempVideo(store, 1);
+        ageFile(stale, Duration.ofHours(3));
+
+        // Act
+        store.sweep();
+
+        // Assert
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+    }
+
+    @Test
+    void testSweep_EvictsLeastRecentlyUsedVideosOverQuota() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 250, Duration.ZERO);
+        String reused = store.store(tempVideo(store, 100), "a.mp4");
+        String leastRecent = store.store(tempVideo(store, 100), "b.mp4");
+        String newest = store.store(tempVideo(store, 100), "c.mp4");
+        ageFile(root.resolve(reused), Duration.ofMinutes(30));
+        ageFile(root.resolve(leastRecent), Duration.ofMinutes(20));
+        ageFile(root.resolve(newest), Duration.ofMinutes(10));
+        store.touch(reused);
+
+        // Act
+        store.sweep();
+
+        // Assert
+        assertFalse(store.exists(leastRecent));
+        assertTrue(store.exists(reused));
+        assertTrue(store.exists(newest));
+        assertEquals(200, store.getUsedBytes());
+    }
+
+    @Test
+    void testSweep_DeletesVideosPastRetention() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 0, Duration.ofDays(30));
+        String expired = store.store(tempVideo(store, 10), "a.mp4");
+        String kept = store.store(tempVideo(store, 10), "b.mp4");
+        ageFile(root.resolve(expired), Duration.ofDays(31));
+
+        // Act
+        store.sweep();
+
+        // Assert
+        assertFalse(store.exists(expired));
+        assertFalse(Files.exists(root.resolve(expired).getParent()));
+        assertTrue(store.exists(kept));
+    }
+
+    @Test
+    void testExists_AcceptsLegacyUploadKeys() throws Exception {
+        // Arrange
+        LocalVideoStore store = new LocalVideoStore(root, "Uploads", tempArea, 0, Duration.ZERO);
+        Files.createDirectories(root.resolve("Uploads"));
+        Files.write(root.resolve("Uploads/1700000000000_old.mp4"), new byte[1]);
+
+        // Act & Assert
+        assertTrue(store.exists("Uploads/1700000000000_old.mp4"));
+    }
+}
@@ -0,0 +1,163 @@
+package com.pickle.backend.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class S3VideoStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private HttpServer server;
+    private S3Client s3Client;
+    // Object của bucket giả lập, khóa là "/<bucket>/<key>"
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        s3Client = S3Client.builder()
+                .endpointOverride(URI.create("http://127.0.0.1:" + server.getAddress().getPort()))
+                .region(Region.US_EAST_1)
+                .forcePathStyle(true)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Client.close();
+        server.stop(0);
+    }
+
+    // Giả lập tối thiểu PUT/HEAD/DELETE object của S3 (path-style)
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        try (exchange) {
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    byte[] body = readBody(exchange);
+                    objects.put(path, body);
+                    exchange.getResponseHeaders().add("ETag", "\"" + md5Hex(body) + "\"");
+                    exchange.sendResponseHeaders(200, -1);
+                }
+                case "HEAD" -> {
+                    byte[] body = objects.get(path);
+                    if (body == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.getResponseHeaders().add("Content-Length", String.valueOf(body.length));
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "DELETE" -> {
+                    objects.remove(path);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    // Body có thể ở dạng aws-chunked khi ký payload qua HTTP
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        byte[] raw = exchange.getRequestBody().readAllBytes();
+        String contentSha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (contentSha == null || !contentSha.startsWith("STREAMING-")) {
+            return raw;
+        }
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        int position = 0;
+        while (position < raw.length) {
+            int lineEnd = indexOfCrlf(raw, position);
+            String header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.substring(0, header.indexOf(';')), 16);
+            position = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            decoded.write(raw, position, size);
+            position += size + 2;
+        }
+        return decoded.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] data, int from) {
+        for (int i = from; i < data.length - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return data.length;
+    }
+
+    private static String md5Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testStore_UploadsObjectAndRemovesTempFile() throws Exception {
+        // Arrange
+        S3VideoStore store = new S3VideoStore(s3Client, "videos-bucket", "videos/",
+                new TempVideoArea(tempDir, Duration.ofHours(1)));
+        Path temp = store.createTempFile("rally.mp4");
+        byte[] content = "fake video bytes".getBytes(StandardCharsets.UTF_8);
+        Files.write(temp, content);
+
+        // Act
+        String key = store.store(temp, "rally.mp4");
+
+        // Assert
+        assertTrue(key.startsWith("videos/"), key);
+        assertTrue(key.endsWith("_rally.mp4"), key);
+        assertFalse(Files.exists(temp));
+        assertArrayEquals(content, objects.get("/videos-bucket/" + key));
+        assertTrue(store.exists(key));
+    }
+
+    @Test
+    void testDelete_RemovesObject() throws Exception {
+        // Arrange
+        S3VideoStore store = new S3VideoStore(s3Client, "videos-bucket", "videos/",
+                new TempVideoArea(tempDir, Duration.ofHours(1)));
+        Path temp = store.createTempFile("rally.mp4");
+        Files.write(temp, new byte[] { 1, 2, 3 });
+        String key = store.store(temp, "rally.mp4");
+
+        // Act
+        store.delete(key);
+
+        // Assert
+        assertFalse(store.exists(key));
+        assertFalse(store.exists("videos/missing.mp4"));
+    }
+}
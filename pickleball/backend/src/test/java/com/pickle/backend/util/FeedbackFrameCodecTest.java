@@ -0,0 +1,92 @@
+package com.pickle.backend.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pickle.backend.entity.VideoAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedbackFrameCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String frames(int count) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"timestamp\":").append(1000 + i * 33)
+                    .append(",\"overall_score\":").append(40 + i % 50)
+                    .append(",\"shot\":{\"type\":\"").append(i % 3 == 0 ? "dink" : "forehand")
+                    .append("\",\"description\":\"Cú đánh cần cải thiện\"}")
+                    .append(",\"grip\":{\"type\":\"eastern_grip\",\"feedback\":\"Cầm vợt đúng\"}")
+                    .append(",\"balance\":{\"status\":\"stable\"}")
+                    .append(",\"swing\":{\"feedback\":\"Tốt\",\"velocity\":").append(0.125 * i).append("}}");
+        }
+        return json.append(']').toString();
+    }
+
+    @Test
+    void testEncodeJson_RoundTripsOriginalJson() throws Exception {
+        // Arrange
+        String json = frames(50);
+
+        // Act
+        String decoded = FeedbackFrameCodec.decodeToJson(FeedbackFrameCodec.encodeJson(json));
+
+        // Assert: so sánh theo nội dung, thứ tự khóa không được giữ
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(decoded));
+    }
+
+    @Test
+    void testEncodeJson_KeepsValuesOutsideTypedColumns() throws Exception {
+        // Arrange: điểm thập phân, timestamp dạng chuỗi và grip.type null không được tách cột
+        String json = "[{\"overall_score\":72.5,\"timestamp\":\"00:01\",\"grip\":{\"type\":null}},{},"
+                + "{\"timestamp\":-5,\"overall_score\":0,\"balance\":{\"status\":\"unstable\"}}]";
+
+        // Act
+        String decoded = FeedbackFrameCodec.decodeToJson(FeedbackFrameCodec.encodeJson(json));
+
+        // Assert
+        assertEquals(objectMapper.readTree(json), objectMapper.readTree(decoded));
+    }
+
+    @Test
+    void testEncodeJson_IsMuchSmallerThanJson() {
+        // Arrange
+        String json = frames(500);
+
+        // Act
+        byte[] encoded = FeedbackFrameCodec.encodeJson(json);
+
+        // Assert
+        assertTrue(encoded.length * 10 < json.getBytes(StandardCharsets.UTF_8).length,
+                "encoded " + encoded.length + " bytes");
+    }
+
+    @Test
+    void testEncodeJson_ReturnsNullForNonFrameJson() {
+        assertNull(FeedbackFrameCodec.encodeJson("{\"a\":1}"));
+        assertNull(FeedbackFrameCodec.encodeJson("[1,2]"));
+        assertNull(FeedbackFrameCodec.encodeJson("not json"));
+        assertNull(FeedbackFrameCodec.encodeJson(null));
+    }
+
+    @Test
+    void testVideoAnalysis_StoresFramesAndKeepsInvalidJsonAsText() {
+        // Arrange
+        VideoAnalysis analysis = new VideoAnalysis();
+
+        // Act & Assert
+        analysis.setDetailedFeedbacks(frames(3));
+        assertNotNull(analysis.getFeedbackFrames());
+        assertNull(analysis.getLegacyDetailedFeedbacks());
+
+        analysis.setDetailedFeedbacks("not json");
+        assertNull(analysis.getFeedbackFrames());
+        assertEquals("not json", analysis.getDetailedFeedbacks());
+    }
+}
@@ -0,0 +1,60 @@
+package com.pickle.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingMultipartBodyTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteTo_ContentLengthMatchesWrittenBytes() throws Exception {
+        // Arrange
+        byte[] video = new byte[3 * VideoFileUtil.CHUNK_SIZE + 17];
+        new Random(42).nextBytes(video);
+        Path file = Files.write(tempDir.resolve("clip.mp4"), video);
+        StreamingMultipartBody body = new StreamingMultipartBody("video", file, "clip.mp4", "video/mp4")
+                .field("userId", "user-1")
+                .field("analysisType", "enhanced");
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        // Assert
+        byte[] written = out.toByteArray();
+        assertEquals(body.getContentLength(), written.length);
+        String text = new String(written, StandardCharsets.ISO_8859_1);
+        String boundary = body.getContentType().getParameter("boundary");
+        assertTrue(text.contains("name=\"userId\"\r\n\r\nuser-1\r\n"));
+        assertTrue(text.contains("name=\"video\"; filename=\"clip.mp4\""));
+        assertTrue(text.endsWith("\r\n--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void testWriteTo_StripsHeaderBreakingCharactersFromFilename() throws Exception {
+        // Arrange
+        Path file = Files.write(tempDir.resolve("clip.mp4"), new byte[16]);
+        StreamingMultipartBody body = new StreamingMultipartBody("video", file,
+                "evil\"\r\nX-Injected: 1\\.mp4", "video/mp4");
+
+        // Act
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+
+        // Assert
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("filename=\"evilX-Injected: 1.mp4\"\r\n"));
+        assertFalse(text.contains("\r\nX-Injected"));
+        assertEquals(body.getContentLength(), out.size());
+    }
+}
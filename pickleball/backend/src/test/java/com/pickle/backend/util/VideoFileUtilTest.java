@@ -0,0 +1,43 @@
+package com.pickle.backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VideoFileUtilTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSha256_MatchesKnownDigestAcrossChunks() throws Exception {
+        // Arrange
+        Path small = Files.writeString(tempDir.resolve("abc.mp4"), "abc", StandardCharsets.US_ASCII);
+        Path large = Files.write(tempDir.resolve("large.mp4"), new byte[2 * VideoFileUtil.CHUNK_SIZE + 1]);
+
+        // Act
+        String smallHash = VideoFileUtil.sha256(small, 1024);
+        String largeHash = VideoFileUtil.sha256(large, Long.MAX_VALUE);
+
+        // Assert
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", smallHash);
+        assertEquals(64, largeHash.length());
+        assertEquals(largeHash, VideoFileUtil.sha256(large, Long.MAX_VALUE));
+    }
+
+    @Test
+    void testSha256_RejectsFileOverLimit() throws Exception {
+        // Arrange
+        Path file = Files.write(tempDir.resolve("big.mp4"), new byte[1024]);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> VideoFileUtil.sha256(file, 512));
+        assertEquals(64, VideoFileUtil.sha256(file, 2048).length());
+    }
+}
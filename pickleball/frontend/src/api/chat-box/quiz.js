@@ -9,6 +9,7 @@ export const generateQuiz = async ({ learnerId, topic, level }) => {
     });
 };
 
-export const saveQuizResult = async (result) => {
-    return axios.post('/questions/ai/save-result', result);
+// Lưu cả lượt làm quiz trong một request: { learnerId, topic, level, results: [...] }
+export const saveQuizAttempt = async (attempt) => {
+    return axios.post('/questions/ai/save-results', attempt);
 };
\ No newline at end of file
@@ -36,6 +36,11 @@ export const createLearnerProgress = async (progressData) => {
   return response.data;
 };
 
+export const sendProgressHeartbeat = async (progressData) => {
+  const response = await apiLearner.post('/learner-progress/heartbeat', progressData);
+  return response;
+};
+
 export const getLessonByCourse = async (idCourse) => {
   const response = await apiLearner.get(`/courses/${idCourse}/lessons`);
   return response;
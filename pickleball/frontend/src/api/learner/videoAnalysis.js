@@ -1,3 +1,5 @@
+import { waitForAnalysisJob } from "../user/video";
+
 export async function analyzeVideo(learnerId, videoFile) {
   if (!learnerId || !videoFile) {
     throw new Error("Thiếu learnerId hoặc video file.");
@@ -19,8 +21,14 @@ export async function analyzeVideo(learnerId, videoFile) {
       throw new Error(data.error || "Không thể phân tích video.");
     }
 
+    // 202: dịch vụ vision xử lý bất đồng bộ, chờ job xong để lấy kết quả
+    if (response.status === 202 && data.result?.jobId) {
+      const job = await waitForAnalysisJob(data.result.jobId);
+      return job.result;
+    }
+
     return data.result.result;
   } catch (error) {
     throw new Error(error.message || "Lỗi khi gọi API phân tích video.");
   }
-}
\ No newline at end of file
+}
@@ -1,9 +1,30 @@
 import apiClient from '../apiClient';
 
+const JOB_POLL_INTERVAL_MS = 3000;
+const JOB_MAX_WAIT_MS = 30 * 60 * 1000;
+
+const sleep = (ms) => new Promise((resolve) => setTimeout(resolve, ms));
+
+// Poll trạng thái job phân tích tới khi SUCCEEDED/FAILED, trả về AnalysisJobDTO cuối cùng
+export async function waitForAnalysisJob(jobId, { intervalMs = JOB_POLL_INTERVAL_MS, maxWaitMs = JOB_MAX_WAIT_MS } = {}) {
+    const deadline = Date.now() + maxWaitMs;
+    while (Date.now() < deadline) {
+        const { data: job } = await apiClient.get(`/api/ai/full-analysis/jobs/${encodeURIComponent(jobId)}`);
+        if (job.status === 'SUCCEEDED') {
+            return job;
+        }
+        if (job.status === 'FAILED') {
+            throw new Error(job.message || 'Phân tích video không thành công');
+        }
+        await sleep(intervalMs);
+    }
+    throw new Error('Phân tích video không thành công: quá thời gian chờ kết quả');
+}
+
 export async function uploadVideoAnalysis(userId, formData) {
     try {
         // Append userId manually if not already in formData, though typically it's handled by caller
-        // formData.append('userId', userId); 
+        // formData.append('userId', userId);
 
         const response = await apiClient.post('/api/ai/full-analysis', formData, {
             headers: {
@@ -11,7 +32,13 @@ export async function uploadVideoAnalysis(userId, formData) {
             },
             params: { userId } // Pass userId as query param as per controller
         });
-        return response.data;
+        const jobId = response.status === 202 ? response.data?.result?.jobId : null;
+        if (!jobId) {
+            return response.data;
+        }
+        // Dịch vụ vision xử lý bất đồng bộ: chờ job xong rồi trả về cùng dạng response đồng bộ
+        const job = await waitForAnalysisJob(jobId);
+        return { message: job.message, result: { message: job.message, result: job.result } };
     } catch (error) {
         console.error('Error handling video analysis upload:', error);
         throw error;
@@ -1,5 +1,5 @@
-import React, { useState, useEffect } from "react";
-import { generateQuiz, saveQuizResult } from "../../api/chat-box/quiz";
+import React, { useState, useEffect, useRef } from "react";
+import { generateQuiz, saveQuizAttempt } from "../../api/chat-box/quiz";
 import "./QuizTab.css";
 
 export default function QuizTab({ userId }) {
@@ -12,6 +12,27 @@ export default function QuizTab({ userId }) {
     const [quizFinished, setQuizFinished] = useState(false);
     const [showExplanation, setShowExplanation] = useState(false);
     const [learnerAnalysis, setLearnerAnalysis] = useState(null);
+    // Câu trả lời của lượt hiện tại, gửi một lần khi kết thúc quiz
+    const answersRef = useRef([]);
+
+    const flushAnswers = async (learnerId) => {
+        const results = answersRef.current;
+        answersRef.current = [];
+        if (!learnerId || results.length === 0) return;
+        try {
+            await saveQuizAttempt({
+                learnerId,
+                topic: "kỹ thuật forehand",
+                level: "medium",
+                results
+            });
+        } catch (err) {
+            console.error("❌ Error saving quiz attempt:", err);
+        }
+    };
+
+    // Rời tab giữa chừng vẫn lưu các câu đã trả lời
+    useEffect(() => () => { flushAnswers(userId); }, [userId]);
 
     useEffect(() => {
         const loadQuiz = async () => {
@@ -65,7 +86,7 @@ export default function QuizTab({ userId }) {
         }
     }, [userId]);
 
-    const handleAnswer = async () => {
+    const handleAnswer = () => {
         if (selectedOption === null) return;
 
         const currentQ = questions[currentQuestion];
@@ -76,24 +97,13 @@ export default function QuizTab({ userId }) {
         const selectedText = currentQ.options[selectedOption]?.text;
         const correctText = currentQ.options[currentQ.correctAnswer]?.text;
 
-        try {
-
-            await saveQuizResult({
-                learnerId: userId,
-                questionId: null,
-                selectedOptionId: null,
-                isCorrect: isCorrect,
-                questionText: currentQ.question,
-                selectedOptionText: selectedText,
-                correctOptionText: correctText,
-                explanation: currentQ.explanation,
-                topic: "kỹ thuật forehand",
-                level: "medium"
-            });
-
-        } catch (err) {
-            console.error("❌ Error saving quiz result:", err);
-        }
+        answersRef.current.push({
+            isCorrect: isCorrect,
+            questionText: currentQ.question,
+            selectedOptionText: selectedText,
+            correctOptionText: correctText,
+            explanation: currentQ.explanation
+        });
 
         // Hiển thị giải thích
         setShowExplanation(true);
@@ -103,6 +113,7 @@ export default function QuizTab({ userId }) {
         // Kiểm tra nếu đây là câu hỏi cuối cùng
         if (currentQuestion >= questions.length - 1) {
             setQuizFinished(true);
+            flushAnswers(userId);
         } else {
             setCurrentQuestion(prev => prev + 1);
             setSelectedOption(null);
@@ -111,6 +122,7 @@ export default function QuizTab({ userId }) {
     };
 
     const resetQuiz = () => {
+        answersRef.current = [];
         setCurrentQuestion(0);
         setScore(0);
         setSelectedOption(null);
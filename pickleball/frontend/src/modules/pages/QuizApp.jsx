@@ -63,7 +63,7 @@ export default function QuizApp() {
     try {
       const response = await submitQuiz(answerList);
 
-      setScore(response);
+      setScore(response.score);
       setError(null);
 
     } catch (err) {
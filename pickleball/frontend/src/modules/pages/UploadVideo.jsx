@@ -53,18 +53,14 @@ function UploadVideo() {
       try {
         const response = await uploadVideoAnalysis(id_user, formData);
 
-        // Access the nested result
-        const apiResult = response.result?.result || {
-          summary: "No summary available.",
-          performanceMetrics: { averageScore: 0, totalFrames: 0 },
-          skill_level: "N/A",
-          shotAnalysis: { shots_detected: [], weakest_shots: [] },
-          detailed_feedbacks: [],
-          recommendations: [],
-        };
+        // Access the nested result (uploadVideoAnalysis đã chờ job bất đồng bộ xong)
+        const apiResult = response.result?.result;
+        if (!apiResult) {
+          throw new Error(response.message || "Phân tích video không thành công");
+        }
         setResult({
           summary: apiResult.summary || "No summary available.",
-          performanceMetrics: { averageScore: apiResult.averageScore || 0, totalFrames: 0 }, // Use averageScore directly
+          performanceMetrics: { averageScore: apiResult.averageScore ?? null, totalFrames: 0 }, // null khi dịch vụ không chấm điểm
           skill_level: apiResult.skillLevel || "N/A", // Match skillLevel from data
           shotAnalysis: apiResult.shotAnalysis || { shots_detected: [], weakest_shots: [] },
           detailed_feedbacks: apiResult.detailedFeedbacks || [],
@@ -188,7 +184,10 @@ function UploadVideo() {
               <p className="text-gray-600 mb-2">{result.summary}</p>
               <div className="flex items-center space-x-4">
                 <span className="text-lg font-bold text-blue-600">
-                  Điểm trung bình: {result.performanceMetrics.averageScore.toFixed(1)}/100
+                  Điểm trung bình:{" "}
+                  {result.performanceMetrics.averageScore != null
+                    ? `${result.performanceMetrics.averageScore.toFixed(1)}/100`
+                    : "chưa có điểm"}
                 </span>
                 <span className="inline-flex items-center px-3 py-1 rounded-full text-sm font-medium bg-green-100 text-green-800">
                   Trình độ: {result.skill_level}
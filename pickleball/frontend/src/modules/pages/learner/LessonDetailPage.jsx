@@ -4,6 +4,7 @@ import { useParams } from 'react-router-dom';
 import {
   getLessonById,
   createLearnerProgress,
+  sendProgressHeartbeat,
   checkLearnerProgress,
   updateLessonComplete,
   checkCompleted,
@@ -160,7 +161,7 @@ const LessonDetailPage = ({ userId }) => {
               };
 
               if (idProgress) {
-                await createLearnerProgress(progress);
+                await sendProgressHeartbeat(progress);
               }
 
               // Cập nhật trạng thái hoàn thành nếu đủ điều kiện